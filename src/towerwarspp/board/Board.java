@@ -5,9 +5,11 @@ import towerwarspp.preset.PlayerColor;
 import towerwarspp.preset.Position;
 import towerwarspp.preset.Status;
 
-import java.util.HashSet;
-import java.util.PriorityQueue;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static towerwarspp.board.MoveResult.*;
 import static towerwarspp.preset.PlayerColor.BLUE;
@@ -24,7 +26,7 @@ import static towerwarspp.preset.Status.RED_WIN;
  * @author Alexander Wähling
  * @version 15-07-17
  */
-public class Board extends SimpleBoard {
+public class Board extends SimpleBoard implements BoardEngine {
     /**
      * Constant used in the evaluation of moves in {@link #altScore(Move, PlayerColor)}. Represents a move that leads to
      * direct victory.
@@ -40,12 +42,30 @@ public class Board extends SimpleBoard {
      * their starting position within a certain distance of their base. Is used so there are always a certain amount of
      * entities guarding the base.
      */
-    private static final int DEFENCE = -5000;
+    static final int DEFENCE = -5000;
     /**
      * Constant used in the evaluation of moves in {@link #altScore(Move, PlayerColor)}. Represents a move from an entity
      * that was in a {@link #DEFENCE} position but now has the opportunity to defeat an enemy stone.
      */
-    private static final int DEFEND = 5000;
+    static final int DEFEND = 5000;
+
+    /**
+     * Weight of the material of a token in {@link #evaluate(PlayerColor)}.
+     */
+    static final int EVAL_MATERIAL = 100;
+    /**
+     * Weight of a possible move of a token in {@link #evaluate(PlayerColor)}.
+     */
+    static final int EVAL_MOBILITY = 2;
+    /**
+     * Weight of a step towards the opponent's base in {@link #evaluate(PlayerColor)}.
+     */
+    static final int EVAL_PROGRESS = 5;
+
+    /**
+     * A list owned by this board which is used to generate moves for internal examinations.
+     */
+    private final MoveList scratch = new MoveList();
 
     /**
      * Initialises a new object of the class Board.
@@ -79,19 +99,70 @@ public class Board extends SimpleBoard {
      */
     public Vector<Move> allPossibleMoves(PlayerColor col) {
         Vector<Move> allMoves = new Vector<Move>();
-        Vector<Entity> list = getEntityList(col);
-        for (Entity ent : list) {
+        PieceList list = getEntityList(col);
+        for (int i = 0; i < list.size(); ++i) {
+            Entity ent = list.get(i);
             if (ent.isMovable()) {
-                int range = ent.getRange();
-                Vector<HashSet<Move>> entMoves = ent.getMoves();
-                for (int i = 1; i <= range; ++i) {
-                    allMoves.addAll(entMoves.get(i));
+                int start = HexTables.cell(ent.getPosition());
+                for (int cell = ent.nextTarget(0); cell >= 0; cell = ent.nextTarget(cell + 1)) {
+                    allMoves.add(Move.of(start, cell));
                 }
             }
         }
         return allMoves;
     }
 
+    /**
+     * Replaces the content of the specified list with all possible moves which a player of the color col has.
+     *
+     * @param col   the color of the player whose possible moves have to be delivered.
+     * @param moves the list which has to be filled with the packed moves.
+     */
+    public void generateMoves(PlayerColor col, MoveList moves) {
+        moves.clear();
+        PieceList list = getEntityList(col);
+        for (int i = 0; i < list.size(); ++i) {
+            Entity ent = list.get(i);
+            if (ent.isMovable() && ent.getMoveCounter() > 0) {
+                ent.addMoves(HexTables.cell(ent.getPosition()), moves);
+            }
+        }
+    }
+
+    /**
+     * Returns a move chosen uniformly at random from all possible moves which a player of the color col has.
+     * Since every token counts its moves, a random number is drawn from the total count and the token
+     * whose moves contain the drawn number is found without collecting the moves.
+     *
+     * @param col the color of the player whose move has to be returned.
+     * @param rng the random number generator which has to be used.
+     * @return a random possible move or null if the player has no moves.
+     */
+    public Move randomMove(PlayerColor col, Random rng) {
+        PieceList list = getEntityList(col);
+        int total = 0;
+        for (int i = 0; i < list.size(); ++i) {
+            Entity ent = list.get(i);
+            if (ent.isMovable()) {
+                total += ent.getMoveCounter();
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+        int n = rng.nextInt(total);
+        for (int i = 0; i < list.size(); ++i) {
+            Entity ent = list.get(i);
+            if (ent.isMovable()) {
+                if (n < ent.getMoveCounter()) {
+                    return Move.of(HexTables.cell(ent.getPosition()), ent.nthTarget(n));
+                }
+                n -= ent.getMoveCounter();
+            }
+        }
+        return null;
+    }
+
     /**
      * Computes an alternative score for the passed move representing an aggressive play strategy with some focus on
      * defending the base by assigning a very low score to moves that cause an entity to leave an area around the base
@@ -102,20 +173,34 @@ public class Board extends SimpleBoard {
      * @return score for this move
      */
     public int altScore(Move move, PlayerColor playerColor) {
-        Position ownBase = playerColor == RED ? redBase : blueBase;
-        Position opponentBase = playerColor == RED ? blueBase : redBase;
-        Position endPos = move.getEnd();
-        if (endPos.equals(opponentBase))
+        return altScore(move.pack(), playerColor);
+    }
+
+    /**
+     * Computes the alternative score of the move with the specified packed encoding as {@link #altScore(Move, PlayerColor)}.
+     * The packed move consists of the cell ids of its start and its end, so the distances are read from the
+     * {@link HexTables} and no {@link Move} or {@link Position} objects are needed.
+     *
+     * @param packedMove  packed move to evaluate
+     * @param playerColor player making that move
+     * @return score for this move
+     */
+    public int altScore(int packedMove, PlayerColor playerColor) {
+        int start = Move.packedStart(packedMove);
+        int end = Move.packedEnd(packedMove);
+        int ownBase = (playerColor == RED ? redBase : blueBase).index();
+        int opponentBase = (playerColor == RED ? blueBase : redBase).index();
+        if (end == opponentBase)
             return WIN;
-        Entity opponent = getElement(endPos);
-        int score = 3 * distance(move.getStart(), opponentBase) - distance(endPos, opponentBase);
-        int disToOwnBase = distance(move.getStart(), ownBase);
+        Entity opponent = getElement(end);
+        int score = 3 * HexTables.distance(start, opponentBase) - HexTables.distance(end, opponentBase);
+        int disToOwnBase = HexTables.distance(start, ownBase);
         if (disToOwnBase < 4 && disToOwnBase < size / 4.0)
             score = DEFENCE;
         if (opponent != null && score != DEFENCE) {
             if (opponent.getColor() != playerColor) {
                 if (opponent.isTower()) {
-                    if (distance(move.getStart(), endPos) == 1) {
+                    if (HexTables.distance(start, end) == 1) {
                         score += 50 * opponent.getHeight();
                     } else {
                         score += 15;
@@ -130,6 +215,41 @@ public class Board extends SimpleBoard {
         return score;
     }
 
+    /**
+     * Evaluates the current position statically from the point of view of the player of the color col.
+     * Every movable token of a player counts with its material (a stone counts as one, a tower additionally with its height),
+     * its possible moves and its progress towards the opponent's base. The evaluation is the difference
+     * between the sums of both players. No move is executed.
+     *
+     * @param col the color of the player from whose point of view the position has to be evaluated.
+     * @return the static evaluation of the position, positive values are good for the player of the color col.
+     */
+    public int evaluate(PlayerColor col) {
+        PlayerColor opponentColor = (col == RED ? BLUE : RED);
+        return evaluateTokens(col) - evaluateTokens(opponentColor);
+    }
+
+    /**
+     * Sums the static values of all tokens of the player of the color col, see {@link #evaluate(PlayerColor)}.
+     *
+     * @param col the color of the player in question.
+     * @return the sum of the values of the player's tokens.
+     */
+    private int evaluateTokens(PlayerColor col) {
+        PieceList list = getEntityList(col);
+        int opponentBase = HexTables.cell(col == RED ? blueBase : redBase);
+        int value = 0;
+        for (int i = 0; i < list.size(); ++i) {
+            Entity ent = list.get(i);
+            if (ent.isBlocked()) {
+                continue;
+            }
+            value += EVAL_MATERIAL * (1 + ent.getHeight()) + EVAL_MOBILITY * ent.getMoveCounter()
+                    + EVAL_PROGRESS * (2 * size - HexTables.distance(HexTables.cell(ent.getPosition()), opponentBase));
+        }
+        return value;
+    }
+
     /**
      * Returns a {@link MoveScore} object representing the information on the specified move: its score made according to the simple strategy
      * and its possible consequence like immediate win or lose, or unknown result.
@@ -141,38 +261,119 @@ public class Board extends SimpleBoard {
     /**
      * Returns the best moves available for the player of the color ownColor which have been rated
      * according to the simple score strategy and with respect to each available move's possible consequence.
+     * The cheap scores of all moves are computed first and the moves are examined in the order of decreasing score,
+     * see {@link #selectBest(PlayerColor, MoveList, long[], int, int, AtomicLong)}.
      *
      * @param ownColor the color of the player whose best possible moves have to be returned.
      * @return the best possible moves which a player of the color ownColor has.
      */
     public Vector<Move> getBestMoves(PlayerColor ownColor) {
+        MoveList candidates = new MoveList();
+        long[] order = orderCandidates(ownColor, candidates);
+        return selectBest(ownColor, candidates, order, 0, order.length, null).getMoves();
+    }
+
+    /**
+     * Returns the same moves in the same order as {@link #getBestMoves(PlayerColor)}, but examines the moves in parallel
+     * with the specified pool. The ordered moves are split into parts, every part is examined on its own copy of this board,
+     * and the best tiers of the parts are merged in the order of the parts. The parts share the best rank found so far,
+     * so that they skip moves which cannot belong to the best tier. This board is not changed and must not be changed
+     * by other threads while the moves are examined.
+     *
+     * @param ownColor the color of the player whose best possible moves have to be returned.
+     * @param pool     the pool which has to examine the moves.
+     * @return the best possible moves which a player of the color ownColor has.
+     */
+    public Vector<Move> getBestMoves(PlayerColor ownColor, ForkJoinPool pool) {
+        MoveList candidates = new MoveList();
+        long[] order = orderCandidates(ownColor, candidates);
+        int leafSize = Math.max(ScoringTask.MIN_LEAF_SIZE, (order.length + pool.getParallelism() - 1) / pool.getParallelism());
+        if (order.length <= leafSize) {
+            return selectBest(ownColor, candidates, order, 0, order.length, null).getMoves();
+        }
+        AtomicLong sharedRank = new AtomicLong(MoveTier.EMPTY_RANK);
+        return pool.invoke(new ScoringTask(this, ownColor, candidates, order, 0, order.length, leafSize, sharedRank)).getMoves();
+    }
+
+    /**
+     * Fills the specified list with all moves available for the player of the color ownColor and returns the order
+     * in which they have to be examined: the moves with the highest score according to the simple strategy first.
+     * Every entry of the returned array contains the negated score in the upper half, so that sorting the entries sorts
+     * the best moves first, and the index of the move in the list in the lower half.
+     *
+     * @param ownColor   the color of the player whose moves have to be ordered.
+     * @param candidates the list which has to be filled with the moves.
+     * @return the sorted entries of all moves.
+     */
+    private long[] orderCandidates(PlayerColor ownColor, MoveList candidates) {
+        Position opponentBase = (ownColor == RED ? blueBase : redBase);
+        /* the moves are collected first, because examining a move changes the move sets of the entities temporarily */
+        generateMoves(ownColor, candidates);
+        long[] order = new long[candidates.size()];
+        for (int i = 0; i < order.length; ++i) {
+            order[i] = ((long) -computeScore(candidates.move(i), opponentBase, ownColor) << 32) | i;
+        }
+        Arrays.sort(order);
+        return order;
+    }
+
+    /**
+     * Examines the moves with the entries from (inclusive) to (exclusive) of the specified order and returns their best tier.
+     * The moves are examined in the order of decreasing score. The expensive examination of the consequence is stopped
+     * as soon as no remaining move can be better than the best moves found so far: after an immediate win, moves with
+     * a lower score are not examined at all, and after a move with unknown consequence, moves with a lower score are only
+     * examined for an immediate win, which needs no examination at all as long as the opponent has enough moves.
+     * Only the best moves are collected. If a shared rank is specified, the best moves found by other parts are taken into
+     * account as well, so that a part can stop examining moves which are worse than the best moves of another part.
+     *
+     * @param ownColor   the color of the player whose moves have to be examined. It is this player's turn to make a move.
+     * @param candidates the moves delivered by {@link #orderCandidates(PlayerColor, MoveList)}.
+     * @param order      the order delivered by {@link #orderCandidates(PlayerColor, MoveList)}.
+     * @param from       the first entry of the order which has to be examined.
+     * @param to         the entry after the last one which has to be examined.
+     * @param sharedRank the smallest rank (see {@link MoveTier#rank(MoveResult, int)}) of all moves examined by any part so far,
+     *                   or null if no other parts are examined.
+     * @return the best tier of the examined moves. It may contain moves which are worse than the best moves of another part.
+     */
+    MoveTier selectBest(PlayerColor ownColor, MoveList candidates, long[] order, int from, int to, AtomicLong sharedRank) {
         PlayerColor opponentColor = (ownColor == RED ? BLUE : RED);
-        Vector<Entity> ownEntityList = getEntityList(ownColor);
-        Vector<Entity> opponentEntityList = getEntityList(opponentColor);
-        Position ownBase = (ownColor == RED ? redBase : blueBase);
-        boolean opponentCanDestroyBase = canBeDestroyed(ownBase, opponentEntityList);
-        Vector<Move> bestMoves = new Vector<Move>();
-        PriorityQueue<MoveScore> scoredMoves = new PriorityQueue<MoveScore>();
-        for (Entity ent : ownEntityList) {
-            Vector<HashSet<Move>> allMoves = ent.getMoves();
-            for (HashSet<Move> rangeMoves : allMoves) {
-                for (Move move : rangeMoves) {
-                    scoredMoves.add(scoreMove(move, ownColor, opponentCanDestroyBase));
+        Position opponentBase = (ownColor == RED ? blueBase : redBase);
+        boolean opponentCanDestroyBase = canDestroyBase(opponentColor);
+        /* if the opponent has enough moves, no move can win by leaving him/her without any moves */
+        boolean opponentCanBeBlocked = !haveManyMoves(getEntityList(opponentColor));
+        MoveTier tier = new MoveTier();
+        for (int i = from; i < to; ++i) {
+            Move move = candidates.move((int) order[i]);
+            int score = (int) -(order[i] >> 32);
+            long bestRank = (sharedRank == null ? tier.rank() : Math.min(tier.rank(), sharedRank.get()));
+            MoveResult bestResult = (bestRank == MoveTier.EMPTY_RANK ? null : MoveTier.resultOf(bestRank));
+            MoveResult result;
+            if (bestResult == null || score >= MoveTier.scoreOf(bestRank) || bestResult == CAN_LOSE) {
+                result = predictResult(move, ownColor, opponentCanDestroyBase, false);
+            } else if (bestResult == UNKNOWN) {
+                /* a move with a lower score can only be better if it leads to an immediate win */
+                if (!opponentCanBeBlocked && !move.getEnd().equals(opponentBase)) {
+                    continue;
                 }
+                result = predictResult(move, ownColor, opponentCanDestroyBase, true);
+                if (result == null) {
+                    continue;
+                }
+            } else {
+                /* all remaining moves have a lower score than the best winning move */
+                break;
             }
-        }
-        if (!scoredMoves.isEmpty()) {
-            int curScore = scoredMoves.peek().getScore();
-            MoveResult curResult = scoredMoves.peek().getResult();
-            while (!scoredMoves.isEmpty() && scoredMoves.peek().getScore() == curScore && scoredMoves.peek().getResult() == curResult) {
-                bestMoves.add(scoredMoves.poll().getMove());
+            tier.offer(move, score, result);
+            if (sharedRank != null) {
+                sharedRank.accumulateAndGet(tier.rank(), Math::min);
             }
         }
-        return bestMoves;
+        return tier;
     }
 
     /**
-     * Evaluates the specified move.
+     * Evaluates the specified move. The move is executed on this board and taken back afterwards,
+     * so that the board is left unchanged.
      *
      * @param move                  the move which has to be evaluated.
      * @param ownColor              the color of the player whose turn it is to make a move and whose move has to be evaluated.
@@ -182,29 +383,46 @@ public class Board extends SimpleBoard {
      * @return evaluation result as a MoveScore object containing the score and information on the possible consequence of the move.
      */
     private MoveScore scoreMove(Move move, PlayerColor ownColor, boolean ownBaseCanBeDestroyed) {
-        PlayerColor opponentColor = (ownColor == RED ? BLUE : RED);
-        Status ownWin = (ownColor == RED ? RED_WIN : BLUE_WIN);
-        Position ownBase = (ownColor == RED ? redBase : blueBase);
         Position opponentBase = (ownColor == RED ? blueBase : redBase);
         int score = computeScore(move, opponentBase, ownColor);
-        if (move.getEnd().equals(opponentBase)) {
-            return new MoveScore(move, score, WILL_WIN);
-        }
-        Board copy = this.clone();
-        copy.makeMove(move);
-        if (copy.getStatus() == ownWin) {
-            return new MoveScore(move, score, WILL_WIN);
-        }
-        if (ownBaseCanBeDestroyed && canBeDestroyed(ownBase, copy.getEntityList(opponentColor))) {
-            return new MoveScore(move, score, CAN_LOSE);
-        }
-        if (haveManyMoves(copy.getEntityList(ownColor))) {
-            return new MoveScore(move, score, UNKNOWN);
+        return new MoveScore(move, score, predictResult(move, ownColor, ownBaseCanBeDestroyed, false));
+    }
+
+    /**
+     * Determines the possible consequence of the specified move. Unless the move goes to the opponent's base,
+     * it is executed on this board and taken back afterwards, so that the board is left unchanged.
+     *
+     * @param move                  the move which has to be examined.
+     * @param ownColor              the color of the player whose turn it is to make a move and whose move has to be examined.
+     * @param ownBaseCanBeDestroyed indicates if the opponent has a move which can destroy the current player's base,
+     *                              see {@link #scoreMove(Move, PlayerColor, boolean)}.
+     * @param winOnly               if true, only an immediate win is recognised and the examination of the opponent's
+     *                              possible answers is skipped.
+     * @return the possible consequence of the move or null if winOnly is true and the move does not lead to an immediate win.
+     */
+    private MoveResult predictResult(Move move, PlayerColor ownColor, boolean ownBaseCanBeDestroyed, boolean winOnly) {
+        PlayerColor opponentColor = (ownColor == RED ? BLUE : RED);
+        Status ownWin = (ownColor == RED ? RED_WIN : BLUE_WIN);
+        if (move.getEnd().equals(ownColor == RED ? blueBase : redBase)) {
+            return WILL_WIN;
         }
-        if (playerCanWin(copy, opponentColor)) {
-            return new MoveScore(move, score, CAN_LOSE);
+        makeMove(move);
+        MoveResult result;
+        if (getStatus() == ownWin) {
+            result = WILL_WIN;
+        } else if (winOnly) {
+            result = null;
+        } else if (ownBaseCanBeDestroyed && canDestroyBase(opponentColor)) {
+            result = CAN_LOSE;
+        } else if (haveManyMoves(getEntityList(ownColor))) {
+            result = UNKNOWN;
+        } else if (canWinImmediately(opponentColor)) {
+            result = CAN_LOSE;
+        } else {
+            result = UNKNOWN;
         }
-        return new MoveScore(move, score, UNKNOWN);
+        unmakeMove();
+        return result;
     }
 
     /**
@@ -241,10 +459,11 @@ public class Board extends SimpleBoard {
      * @return true if the player in question has enough moves and tokens not to lose as a result of the opponnt's move
      * because of the absence of possible moves.
      */
-    private boolean haveManyMoves(Vector<Entity> ownEntities) {
+    private boolean haveManyMoves(PieceList ownEntities) {
         int nHasManyMoves = 0;
         int nStones = 0;
-        for (Entity ent : ownEntities) {
+        for (int i = 0; i < ownEntities.size(); ++i) {
+            Entity ent = ownEntities.get(i);
             if (ent.isMovable()) {
                 if (ent.getMoveCounter() > 1) {
                     ++nHasManyMoves;
@@ -261,39 +480,39 @@ public class Board extends SimpleBoard {
     }
 
     /**
-     * Returns true if at least one of the moves available for the player of the color col
-     * leads to the win.
+     * Returns true if the player of the color col has a possible move to the opponent's base.
+     * Takes constant time, see {@link #attackCount(PlayerColor, Position)}.
      *
-     * @param board the board with the current game situation.
-     * @param col   the color of the player in question. It is this player's turn to make a move.
-     * @return true at least one of the moves available for the player of the color col
-     * leads to the win.
+     * @param col the color of the player in question.
+     * @return true if the player of the color col can destroy the opponent's base with one move.
      */
-    private boolean playerCanWin(Board board, PlayerColor col) {
-        Status win = (col == RED ? RED_WIN : BLUE_WIN);
-        Vector<Move> moves = board.allPossibleMoves(col);
-        for (Move move : moves) {
-            Board copy = board.clone();
-            Status prediction = copy.makeMove(move);
-            if (prediction == win) {
-                return true;
-            }
-        }
-        return false;
+    public boolean canDestroyBase(PlayerColor col) {
+        return attackCount(col, (col == RED ? blueBase : redBase)) > 0;
     }
 
     /**
-     * Proves if a token located at the specified position can be destroyed (or blocked) by the opponent's stone.
-     * Returns true if this is possible which means if at least one opponent's token has a possible move to the specified position.
+     * Returns true if at least one of the moves available for the player of the color col
+     * leads to the win. A move to the opponent's base is found in constant time with {@link #canDestroyBase(PlayerColor)}.
+     * A move which leaves the opponent without any moves is only possible if the opponent does not have enough moves
+     * (see {@link #haveManyMoves(PieceList)}). Only in this case every move is executed on this board and taken back immediately.
      *
-     * @param pos      the position of the token for which it has to be proved if it can be destroyed or blocked.
-     * @param entities all movable tokens belonging to the opponent.
-     * @return true if at least one token from entities has a possible move to the position pos.
+     * @param col the color of the player in question. It is this player's turn to make a move.
+     * @return true at least one of the moves available for the player of the color col
+     * leads to the win.
      */
-    private boolean canBeDestroyed(Position pos, Vector<Entity> entities) {
-        for (Entity ent : entities) {
-            int dist = distance(ent.getPosition(), pos);
-            if (ent.hasMove(pos, dist)) {
+    public boolean canWinImmediately(PlayerColor col) {
+        if (canDestroyBase(col)) {
+            return true;
+        }
+        if (haveManyMoves(getEntityList(col == RED ? BLUE : RED))) {
+            return false;
+        }
+        Status win = (col == RED ? RED_WIN : BLUE_WIN);
+        generateMoves(col, scratch);
+        for (int i = 0; i < scratch.size(); ++i) {
+            Status prediction = makeMove(scratch.move(i));
+            unmakeMove();
+            if (prediction == win) {
                 return true;
             }
         }
@@ -308,10 +527,10 @@ public class Board extends SimpleBoard {
      * @param cloneBoard the 2-dimensional array representation of the board
      *                   where all the cloned entities have to be saved on the correct positions.
      */
-    private Vector<Entity> cloneAndPutOnBoard(Vector<Entity> list, Entity[][] cloneBoard) {
+    private Vector<Entity> cloneAndPutOnBoard(PieceList list, Entity[][] cloneBoard) {
         Vector<Entity> cloneList = new Vector<Entity>(list.size());
-        for (Entity ent : list) {
-            Entity cloneEnt = ent.clone();
+        for (int i = 0; i < list.size(); ++i) {
+            Entity cloneEnt = list.get(i).clone();
             Position pos = cloneEnt.getPosition();
             cloneBoard[pos.getLetter()][pos.getNumber()] = cloneEnt;
             cloneList.add(cloneEnt);
@@ -326,8 +545,8 @@ public class Board extends SimpleBoard {
      */
     public Board clone() {
         Entity[][] newBoard = new Entity[size + 1][size + 1];
-        newBoard[1][1] = getElement(new Position(1, 1)).clone();
-        newBoard[size][size] = getElement(new Position(size, size)).clone();
+        newBoard[1][1] = getElement(Position.of(1, 1)).clone();
+        newBoard[size][size] = getElement(Position.of(size, size)).clone();
         Vector<Entity> newListRed = cloneAndPutOnBoard(listRed, newBoard);
         Vector<Entity> newListBlue = cloneAndPutOnBoard(listBlue, newBoard);
         return new Board(size, turn, newListRed, newListBlue, newBoard, redBase, blueBase);
@@ -0,0 +1,161 @@
+package towerwarspp.board;
+
+import towerwarspp.main.WinType;
+import towerwarspp.preset.Move;
+import towerwarspp.preset.PlayerColor;
+import towerwarspp.preset.Status;
+import towerwarspp.preset.Viewable;
+
+import java.util.Random;
+import java.util.Vector;
+
+/**
+ * This interface represents a board engine: an object which stores a game situation, executes moves, takes them back and
+ * delivers all possible moves of a player. It contains exactly the functionality which the AI players need
+ * for searching and playing out games, so that the AI can work with different representations of the board.
+ * Implemented by {@link Board}, which stores the tokens as {@link Entity} objects, and by {@link PackedBoard},
+ * which stores every field of the board as one packed integer value.
+ * All implementations have to execute the moves according to the same rules and deliver the same status, win type and set of possible moves.
+ */
+public interface BoardEngine extends Viewable {
+    /**
+     * Returns the size of the board.
+     *
+     * @return the size of the board.
+     */
+    int getSize();
+
+    /**
+     * Returns the current turn.
+     *
+     * @return the current turn.
+     */
+    PlayerColor getTurn();
+
+    /**
+     * Returns the status of the board.
+     *
+     * @return the status of the board.
+     */
+    Status getStatus();
+
+    /**
+     * Returns the WinType or null if the game is not finished.
+     *
+     * @return the WinType or null if the game is not finished.
+     */
+    WinType getWinType();
+
+    /**
+     * Returns the Zobrist hash of the current position. Equal positions with the same player to move have equal hashes
+     * in all implementations.
+     *
+     * @return the Zobrist hash of the current position.
+     */
+    long hash();
+
+    /**
+     * Executes the specified move if this move is legal. Changes the board status and the turn accordingly.
+     * If the move is illegal, the turn will not be changed.
+     *
+     * @param move new move to be executed.
+     * @return actualised status of the board.
+     */
+    Status makeMove(Move move);
+
+    /**
+     * Takes back the last move executed by {@link #makeMove(Move)} and restores the exact state of the board before this move.
+     *
+     * @return true if a move has been taken back, false if there was no move to take back.
+     */
+    boolean unmakeMove();
+
+    /**
+     * Takes back moves with {@link #unmakeMove()} until only the specified number of moves is left to be taken back.
+     *
+     * @param historySize the number of moves which have to be left in the history.
+     */
+    void unmakeMovesTo(int historySize);
+
+    /**
+     * Returns the number of moves which can be taken back with {@link #unmakeMove()}.
+     *
+     * @return the number of moves which can be taken back.
+     */
+    int getHistorySize();
+
+    /**
+     * Forgets all executed moves so that they can no longer be taken back.
+     */
+    void clearHistory();
+
+    /**
+     * Returns all possible moves which a player of the color col has.
+     *
+     * @param col the color of the player whose possible moves have to be returned.
+     * @return all possible moves which a player of the color col has.
+     */
+    Vector<Move> allPossibleMoves(PlayerColor col);
+
+    /**
+     * Replaces the content of the specified list with all possible moves which a player of the color col has.
+     * The moves are delivered in the same order as by {@link #allPossibleMoves(PlayerColor)}.
+     *
+     * @param col   the color of the player whose possible moves have to be delivered.
+     * @param moves the list which has to be filled with the packed moves.
+     */
+    void generateMoves(PlayerColor col, MoveList moves);
+
+    /**
+     * Returns a move chosen uniformly at random from all possible moves which a player of the color col has.
+     * Implementations should not create a list of all moves to do so.
+     *
+     * @param col the color of the player whose move has to be returned.
+     * @param rng the random number generator which has to be used.
+     * @return a random possible move or null if the player has no moves.
+     */
+    Move randomMove(PlayerColor col, Random rng);
+
+    /**
+     * Returns true if the player of the color col has a possible move to the base of the opponent,
+     * which means that this player would win with the next move if it was his/her turn.
+     *
+     * @param col the color of the player in question.
+     * @return true if the player of the color col can destroy the opponent's base with one move.
+     */
+    boolean canDestroyBase(PlayerColor col);
+
+    /**
+     * Computes the alternative score of the specified move as described in {@link Board#altScore(Move, PlayerColor)}.
+     *
+     * @param move        move to evaluate.
+     * @param playerColor player making that move.
+     * @return score for this move.
+     */
+    int altScore(Move move, PlayerColor playerColor);
+
+    /**
+     * Computes the alternative score of the move with the specified packed encoding (see {@link Move#pack()}) as
+     * described in {@link Board#altScore(Move, PlayerColor)}, without requiring a {@link Move} object.
+     *
+     * @param packedMove  packed move to evaluate.
+     * @param playerColor player making that move.
+     * @return score for this move.
+     */
+    int altScore(int packedMove, PlayerColor playerColor);
+
+    /**
+     * Evaluates the current position statically as described in {@link Board#evaluate(PlayerColor)}.
+     *
+     * @param col the color of the player from whose point of view the position has to be evaluated.
+     * @return the static evaluation of the position, positive values are good for the player of the color col.
+     */
+    int evaluate(PlayerColor col);
+
+    /**
+     * Returns an independent copy of this board engine. The history of executed moves is not copied.
+     *
+     * @return the copy of this board engine.
+     */
+    BoardEngine clone();
+}
@@ -0,0 +1,32 @@
+package towerwarspp.board;
+
+/**
+ * Enum class to differentiate between the implementations of {@link BoardEngine} an AI player can search on.
+ */
+public enum EngineType {
+    /**
+     * Entity engine means, that the AI works on a {@link Board} which stores every token as an {@link Entity} object
+     * together with its possible moves.
+     */
+    ENTITY,
+    /**
+     * Packed engine means, that the AI works on a {@link PackedBoard} which stores every field as one packed integer value
+     * and generates the possible moves on request.
+     */
+    PACKED;
+
+    /**
+     * Creates a new board engine of this type which represents the same game situation as the specified board.
+     *
+     * @param board the board whose game situation has to be taken over.
+     * @return the new board engine.
+     */
+    public BoardEngine create(Board board) {
+        switch (this) {
+            case PACKED:
+                return new PackedBoard(board);
+            default:
+                return board.clone();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import towerwarspp.preset.PlayerColor;
 import towerwarspp.preset.Position;
 import towerwarspp.util.debug.Debug;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Vector;
 
@@ -59,10 +60,26 @@ public class Entity {
     private int range = 1;
 
     /**
-     * Contains all possible moves of this entity sorted according to the step range needed for reaching the end position.
-     * This means: the position n in the Vector contains a reference to the HashSet where all possible moves of the range n are stored.
+     * The number of bits in one word of the target set.
      */
-    private Vector<HashSet<Move>> allMoves;
+    private static final int WORD_BITS = 64;
+
+    /**
+     * The number of words needed to store one bit for every cell id.
+     */
+    private static final int WORDS = (HexTables.CELLS + WORD_BITS - 1) / WORD_BITS;
+
+    /**
+     * Contains the end positions of all possible moves of this entity as a bitset over the cell ids:
+     * the bit with the number c is set if this entity has a move to the field with the cell id c.
+     * The step range needed for reaching an end position is the distance to it and does not have to be stored separately.
+     */
+    private long[] targets = new long[WORDS];
+
+    /**
+     * The precomputed tables of the board size.
+     */
+    private final HexTables tables;
 
     /**
      * The size of the board.
@@ -79,6 +96,32 @@ public class Entity {
      */
     private int moveCounter = 0;
 
+    /**
+     * The slot of this entity in the {@link PieceList} of its board, or -1 if it is not in a list.
+     */
+    int slot = -1;
+
+    /**
+     * The id of this entity in the {@link ReachIndex} of its board, or -1 if it is not registered.
+     */
+    int indexedId = -1;
+
+    /**
+     * The cell id of the position this entity has been registered with in a {@link ReachIndex}.
+     */
+    int indexedCell;
+
+    /**
+     * The step range this entity has been registered with in a {@link ReachIndex}.
+     */
+    int indexedRange;
+
+    /**
+     * The attack counts of the color of this entity kept by the {@link ReachIndex} this entity is registered with,
+     * or null if it is not registered. Every added or removed possible move changes the count of its end position.
+     */
+    int[] attacks;
+
     /**
      * Instance of the class {@link Debug}.
      */
@@ -97,8 +140,8 @@ public class Entity {
         this.size = size;
         maxHeight = size / 3;
         maxRange = 6 * maxHeight + 2;
+        this.tables = HexTables.forSize(size);
         this.debug = Debug.getInstance();
-        initialiseMoves();
     }
 
     /**
@@ -131,7 +174,8 @@ public class Entity {
         this.moveCounter = original.moveCounter;
         this.maxHeight = original.maxHeight;
         this.maxRange = original.maxRange;
-        this.allMoves = original.copyAllMoves();
+        this.targets = original.targets.clone();
+        this.tables = original.tables;
         this.debug = Debug.getInstance();
     }
 
@@ -181,11 +225,21 @@ public class Entity {
     }
 
     /**
-     * Returns a reference to the collection of all possible moves stored in this {@link Entity} object (does not copy or restore the moves).
+     * Returns a new collection of all possible moves of this entity sorted according to the step range needed for reaching
+     * the end position. This means: the position n in the Vector contains the HashSet where all possible moves of the range n are stored.
+     * The collection is built on every call from the stored targets, changing it does not change this entity.
      *
-     * @return a reference to the collection of all possible moves stored in this {@link Entity} object.
+     * @return a new collection of all possible moves of this entity.
      */
-    public Vector<HashSet<Move>> getMoves() {
+    synchronized public Vector<HashSet<Move>> getMoves() {
+        Vector<HashSet<Move>> allMoves = new Vector<HashSet<Move>>(maxRange);
+        for (int i = 0; i < maxRange; ++i) {
+            allMoves.add(new HashSet<Move>(i * 6 + 1));
+        }
+        int start = HexTables.cell(position);
+        for (int cell = nextTarget(0); cell >= 0; cell = nextTarget(cell + 1)) {
+            allMoves.get(HexTables.distance(start, cell)).add(Move.of(start, cell));
+        }
         return allMoves;
     }
 
@@ -194,16 +248,90 @@ public class Entity {
      *
      * @return all possible moves of this Entity stored in a vector.
      */
-    public Vector<Move> getMovesAsVector() {
-        Vector<Move> moves = new Vector<Move>();
+    synchronized public Vector<Move> getMovesAsVector() {
+        Vector<Move> moves = new Vector<Move>(moveCounter);
         if (!isBlocked) {
-            for (int i = 1; i <= range; ++i) {
-                moves.addAll(allMoves.get(i));
+            int start = HexTables.cell(position);
+            for (int cell = nextTarget(0); cell >= 0; cell = nextTarget(cell + 1)) {
+                moves.add(Move.of(start, cell));
             }
         }
         return moves;
     }
 
+    /**
+     * Returns the smallest cell id which is not smaller than the specified one and is the end position of a possible move
+     * of this entity. Together with {@link #hasTarget(int)} this allows to iterate over all possible moves without creating objects:
+     * {@code for (int c = ent.nextTarget(0); c >= 0; c = ent.nextTarget(c + 1))}.
+     *
+     * @param from the cell id to start the search from.
+     * @return the next cell id which can be reached by this entity or -1 if there is none.
+     */
+    int nextTarget(int from) {
+        int index = from / WORD_BITS;
+        if (index >= WORDS) {
+            return -1;
+        }
+        long word = targets[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == WORDS) {
+                return -1;
+            }
+            word = targets[index];
+        }
+        return index * WORD_BITS + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Adds all possible moves of this entity to the specified list in their packed form (see {@link Move#pack(int, int)}),
+     * in the order of ascending end cell ids. Walks the words of the targets once instead of searching from every target
+     * like {@link #nextTarget(int)}.
+     *
+     * @param start the cell id of the position of this entity.
+     * @param moves the list the moves are added to.
+     */
+    void addMoves(int start, MoveList moves) {
+        for (int index = 0; index < WORDS; ++index) {
+            long word = targets[index];
+            while (word != 0) {
+                moves.add(Move.pack(start, index * WORD_BITS + Long.numberOfTrailingZeros(word)));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the cell id of the end position of the n-th possible move of this entity, counted from 0 in the order of
+     * ascending cell ids.
+     *
+     * @param n the number of the move, between 0 and {@link #getMoveCounter()} - 1.
+     * @return the cell id of the end position of the n-th move or -1 if this entity has not so many moves.
+     */
+    int nthTarget(int n) {
+        for (int index = 0; index < WORDS; ++index) {
+            long word = targets[index];
+            int count = Long.bitCount(word);
+            if (n < count) {
+                for (int i = 0; i < n; ++i) {
+                    word &= word - 1;
+                }
+                return index * WORD_BITS + Long.numberOfTrailingZeros(word);
+            }
+            n -= count;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if this entity has a move to the field with the specified cell id.
+     *
+     * @param cell the cell id of the end position.
+     * @return true if this entity has a move to the field.
+     */
+    boolean hasTarget(int cell) {
+        return (targets[cell / WORD_BITS] & (1L << cell)) != 0;
+    }
+
     /**
      * Returns true if this entity is blocked.
      *
@@ -278,7 +406,7 @@ public class Entity {
      * @param range distance to the move's end position from the current position of this entity.
      */
     synchronized public boolean hasMove(Position end, int range) {
-        return allMoves.get(range).contains(new Move(position, end));
+        return range != 0 && hasTarget(HexTables.cell(end));
     }
 
     /**
@@ -306,8 +434,9 @@ public class Entity {
      * which are not possible anymore
      */
     synchronized public void decRange() {
-        moveCounter -= allMoves.get(range).size();
-        allMoves.set(range, new HashSet<Move>());
+        for (int cell : tables.ring(HexTables.cell(position), range)) {
+            removeTarget(cell);
+        }
         --range;
         if (range < 0) {
             debug.send(LEVEL_1, BOARD, "range < 0");
@@ -329,11 +458,10 @@ public class Entity {
      *
      * @param end   end position of the move in question.
      * @param range distance to the move's end position from the current position of this entity.
+     * @return true if the move has been added, false if this entity already had such move.
      */
-    synchronized public void addMove(Position end, int range) {
-        if (range != 0 && allMoves.get(range).add(new Move(position, end))) {
-            ++moveCounter;
-        }
+    synchronized public boolean addMove(Position end, int range) {
+        return range != 0 && addTarget(HexTables.cell(end));
     }
 
     /**
@@ -341,43 +469,74 @@ public class Entity {
      *
      * @param end   end position of the move in question.
      * @param range distance to the move's end position from the current position of this entity.
+     * @return true if the move has been removed, false if this entity had no such move.
      */
-    synchronized public void removeMove(Position end, int range) {
-        if (range != 0 && allMoves.get(range).remove(new Move(position, end))) {
-            --moveCounter;
-        }
+    synchronized public boolean removeMove(Position end, int range) {
+        return range != 0 && removeTarget(HexTables.cell(end));
     }
 
     /**
-     * Removes all moves from the collection of all possible moves and sets the range to 1.
+     * Adds the field with the specified cell id to the end positions of the possible moves if this entity had no such move.
+     *
+     * @param cell the cell id of the end position.
+     * @return true if the move has been added, false if this entity already had such move.
      */
-    public void removeAllMoves() {
-        initialiseMoves();
+    boolean addTarget(int cell) {
+        long bit = 1L << cell;
+        int index = cell / WORD_BITS;
+        if ((targets[index] & bit) != 0) {
+            return false;
+        }
+        targets[index] |= bit;
+        ++moveCounter;
+        if (attacks != null) {
+            ++attacks[cell];
+        }
+        return true;
     }
 
     /**
-     * Returns collection of clones of all possible moves.
+     * Removes the field with the specified cell id from the end positions of the possible moves if this entity had such move.
      *
-     * @return collection of clones of all possible moves.
+     * @param cell the cell id of the end position.
+     * @return true if the move has been removed, false if this entity had no such move.
      */
-    synchronized private Vector<HashSet<Move>> copyAllMoves() {
-        Vector<HashSet<Move>> clone = new Vector<HashSet<Move>>();
-        for (HashSet<Move> set : allMoves) {
-            clone.add(new HashSet<Move>(set));
+    boolean removeTarget(int cell) {
+        long bit = 1L << cell;
+        int index = cell / WORD_BITS;
+        if ((targets[index] & bit) == 0) {
+            return false;
+        }
+        targets[index] &= ~bit;
+        --moveCounter;
+        if (attacks != null) {
+            --attacks[cell];
         }
-        return clone;
+        return true;
     }
 
     /**
-     * Initializes the collection of all possible moves.
+     * Removes all moves from the collection of all possible moves and sets the range to 1.
      */
-    synchronized private void initialiseMoves() {
-        allMoves = new Vector<HashSet<Move>>(maxRange);
-        for (int i = 0; i < maxRange; ++i) {
-            allMoves.add(i, new HashSet<Move>(i * 6 + 1));
+    synchronized public void removeAllMoves() {
+        if (attacks != null) {
+            for (int cell = nextTarget(0); cell >= 0; cell = nextTarget(cell + 1)) {
+                --attacks[cell];
+            }
         }
+        Arrays.fill(targets, 0L);
         moveCounter = 0;
-        this.range = 1;
+        range = 1;
+    }
+
+    /**
+     * Sets the step range back to the specified value without changing the possible moves.
+     * Used to take back {@link #decRange()} and {@link #removeAllMoves()}, whose removed moves are put back one by one.
+     *
+     * @param range the step range to restore.
+     */
+    void restoreRange(int range) {
+        this.range = range;
     }
 
     /**
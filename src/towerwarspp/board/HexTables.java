@@ -0,0 +1,221 @@
+package towerwarspp.board;
+
+import towerwarspp.preset.Position;
+
+import java.util.Arrays;
+
+/**
+ * This class holds precomputed tables of the hexagonal board geometry, so that the boards do not have to create new
+ * {@link Hexagon} and {@link Position} objects whenever they examine the surroundings of a field.
+ * Every field is identified by its cell id, which depends only on the coordinates of the field and not on the size of the board:
+ * the cell id of the position (letter, number) is (letter - 1) * {@link #STRIDE} + number - 1.
+ * The cell id equals {@link Position#index()}. The distances between all fields are stored once for all board sizes.
+ * The rings around every field, which do depend on the size of the board, are stored in one {@link HexTables} object per board size.
+ * These objects are built on first request and shared by all boards of the same size. All tables are never changed after construction.
+ */
+final class HexTables {
+    /**
+     * The number of cells in a row of the cell id space. Equals the maximal board size.
+     */
+    static final int STRIDE = 26;
+
+    /**
+     * The number of cell ids.
+     */
+    static final int CELLS = STRIDE * STRIDE;
+
+    /**
+     * A list of {@link Hexagon} objects representing all possible directions on the board.
+     */
+    private static final Hexagon[] DIRECTIONS = {new Hexagon(1, 0), new Hexagon(0, 1), new Hexagon(-1, 1),
+            new Hexagon(-1, 0), new Hexagon(0, -1), new Hexagon(1, -1)};
+
+    /**
+     * The tables of all board sizes indexed by the size. An entry is null until the table of this size has been requested.
+     */
+    private static final HexTables[] TABLES = new HexTables[STRIDE + 1];
+
+    /**
+     * The distances between all pairs of cells indexed by cell id * {@link #CELLS} + cell id.
+     */
+    private static final byte[] DISTANCES = new byte[CELLS * CELLS];
+
+    /**
+     * An empty ring which is returned for radiuses beyond the board.
+     */
+    private static final int[] EMPTY = new int[0];
+
+    static {
+        for (int a = 0; a < CELLS; ++a) {
+            for (int b = 0; b < CELLS; ++b) {
+                int x = letter(a) - letter(b);
+                int y = number(a) - number(b);
+                DISTANCES[a * CELLS + b] = (byte) ((Math.abs(x) + Math.abs(y) + Math.abs(x + y)) / 2);
+            }
+        }
+    }
+
+    /**
+     * The size of the board these tables belong to.
+     */
+    private final int size;
+
+    /**
+     * The cell ids of all fields on the ring with a certain radius around a cell indexed by cell id and radius.
+     * The cells of a ring are ordered as follows: the ring starts at the field in direction (0, -1) and runs counterclockwise
+     * through the directions (1, 0), (0, 1), (-1, 1), (-1, 0), (0, -1) and (1, -1).
+     */
+    private final int[][][] rings;
+
+    /**
+     * Creates the tables of the specified board size.
+     *
+     * @param size the size of the board.
+     */
+    private HexTables(int size) {
+        this.size = size;
+        int maxRadius = 2 * (size - 1);
+        rings = new int[CELLS][][];
+        int[] buffer = new int[6 * maxRadius];
+        for (int letter = 1; letter <= size; ++letter) {
+            for (int number = 1; number <= size; ++number) {
+                int[][] cellRings = new int[maxRadius + 1][];
+                cellRings[0] = EMPTY;
+                for (int radius = 1; radius <= maxRadius; ++radius) {
+                    Hexagon curHex = new Hexagon(letter, number);
+                    Hexagon direction = new Hexagon(DIRECTIONS[4]);
+                    direction.scale(radius);
+                    curHex.add(direction);
+                    int count = 0;
+                    for (int i = 0; i < 6; ++i) {
+                        for (int j = 0; j < radius; ++j) {
+                            if (isOnBoard(curHex.getX(), curHex.getY())) {
+                                buffer[count++] = cell(curHex.getX(), curHex.getY());
+                            }
+                            curHex.add(DIRECTIONS[i]);
+                        }
+                    }
+                    cellRings[radius] = Arrays.copyOf(buffer, count);
+                }
+                rings[cell(letter, number)] = cellRings;
+            }
+        }
+    }
+
+    /**
+     * Returns the tables of the specified board size. The tables are built on the first request.
+     * Since all fields are final, the tables can be read safely by every thread once the reference is visible.
+     *
+     * @param size the size of the board.
+     * @return the tables of the specified board size.
+     */
+    static HexTables forSize(int size) {
+        HexTables tables = TABLES[size];
+        if (tables == null) {
+            synchronized (TABLES) {
+                tables = TABLES[size];
+                if (tables == null) {
+                    tables = new HexTables(size);
+                    TABLES[size] = tables;
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Returns the cell ids of all fields on the board which lay on the ring with the specified center and the specified radius.
+     * The returned array must not be changed.
+     *
+     * @param center the cell id of the ring's center.
+     * @param radius the ring's radius.
+     * @return the cell ids of all fields on the board on the ring.
+     */
+    int[] ring(int center, int radius) {
+        int[][] cellRings = rings[center];
+        return radius < cellRings.length ? cellRings[radius] : EMPTY;
+    }
+
+    /**
+     * Returns the cell ids of all neighbouring fields of the specified field. The returned array must not be changed.
+     *
+     * @param center the cell id of the field.
+     * @return the cell ids of all neighbouring fields on the board.
+     */
+    int[] neighbours(int center) {
+        return rings[center][1];
+    }
+
+    /**
+     * Returns true if the position with the specified coordinates lays on the board.
+     *
+     * @param letter letter coordinate of the position in question.
+     * @param number number coordinate of the position in question.
+     * @return true if the position lays on the board.
+     */
+    boolean isOnBoard(int letter, int number) {
+        return letter >= 1 && number >= 1 && letter <= size && number <= size;
+    }
+
+    /**
+     * Returns the cell id of the field with the specified coordinates.
+     *
+     * @param letter the letter coordinate of the field.
+     * @param number the number coordinate of the field.
+     * @return the cell id of the field.
+     */
+    static int cell(int letter, int number) {
+        return (letter - 1) * STRIDE + number - 1;
+    }
+
+    /**
+     * Returns the cell id of the specified position.
+     *
+     * @param pos the position in question.
+     * @return the cell id of the position.
+     */
+    static int cell(Position pos) {
+        return pos.index();
+    }
+
+    /**
+     * Returns the letter coordinate of the specified cell.
+     *
+     * @param cell the cell id.
+     * @return the letter coordinate.
+     */
+    static int letter(int cell) {
+        return cell / STRIDE + 1;
+    }
+
+    /**
+     * Returns the number coordinate of the specified cell.
+     *
+     * @param cell the cell id.
+     * @return the number coordinate.
+     */
+    static int number(int cell) {
+        return cell % STRIDE + 1;
+    }
+
+    /**
+     * Returns the position of the specified cell. Always returns the canonical {@link Position} object of the cell.
+     *
+     * @param cell the cell id.
+     * @return the position of the cell.
+     */
+    static Position position(int cell) {
+        return Position.ofIndex(cell);
+    }
+
+    /**
+     * Returns the distance between two cells.
+     *
+     * @param a the first cell id.
+     * @param b the second cell id.
+     * @return the distance between the cells a and b.
+     */
+    static int distance(int a, int b) {
+        return DISTANCES[a * CELLS + b];
+    }
+}
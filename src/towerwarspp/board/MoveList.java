@@ -0,0 +1,114 @@
+package towerwarspp.board;
+
+import towerwarspp.preset.Move;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a reusable list of moves which are stored as packed integers (see {@link Move#pack()}).
+ * A caller creates one {@link MoveList} and passes it to {@link BoardEngine#generateMoves}
+ * again and again, so that delivering the possible moves of a player does not create new objects once the list
+ * has grown to the needed capacity.
+ * The list is not synchronized and should be owned by one thread.
+ */
+public final class MoveList {
+    /**
+     * The default initial capacity of a list.
+     */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The packed moves of the list. Only the first {@link #size} entries are used.
+     */
+    private int[] moves;
+
+    /**
+     * The number of moves in the list.
+     */
+    private int size;
+
+    /**
+     * Creates a new empty list with the default capacity.
+     */
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new empty list which can hold the specified number of moves without growing.
+     *
+     * @param capacity the initial capacity of the list.
+     */
+    public MoveList(int capacity) {
+        moves = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Returns the number of moves in this list.
+     *
+     * @return the number of moves in this list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if this list contains no moves.
+     *
+     * @return true if this list contains no moves.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all moves from this list. The capacity is kept.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Appends the specified packed move to this list.
+     *
+     * @param packedMove the packed move to be added.
+     */
+    public void add(int packedMove) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, 2 * size);
+        }
+        moves[size++] = packedMove;
+    }
+
+    /**
+     * Returns the packed move with the specified index.
+     *
+     * @param index the index of the move, between 0 and {@link #size()} - 1.
+     * @return the packed move with the specified index.
+     */
+    public int get(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Swaps the moves with the specified indices, so that a caller can reorder the list in place.
+     *
+     * @param i the index of the first move, between 0 and {@link #size()} - 1.
+     * @param j the index of the second move, between 0 and {@link #size()} - 1.
+     */
+    public void swap(int i, int j) {
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+    }
+
+    /**
+     * Returns the move with the specified index as the canonical {@link Move} object.
+     *
+     * @param index the index of the move, between 0 and {@link #size()} - 1.
+     * @return the move with the specified index.
+     */
+    public Move move(int index) {
+        return Move.unpack(moves[index]);
+    }
+}
@@ -0,0 +1,162 @@
+package towerwarspp.board;
+
+import towerwarspp.preset.Move;
+
+import java.util.Vector;
+
+/**
+ * This class represents the best tier of a set of examined moves: all moves which share the best possible consequence
+ * and, among the moves with this consequence, the highest score according to the simple strategy (see {@link MoveScore}).
+ * Tiers of disjoint sets of moves can be merged into the tier of the union, so that the moves can be examined in parts.
+ * An empty tier has no result. The consequence and the score of a tier can be packed into one rank (see {@link #rank(MoveResult, int)}),
+ * so that parts examined at the same time can share the best tier found so far in one atomic variable.
+ */
+final class MoveTier {
+    /**
+     * The rank of an empty tier. It is worse than the rank of every move.
+     */
+    static final long EMPTY_RANK = Long.MAX_VALUE;
+
+    /**
+     * The consequence shared by all moves of this tier or null if the tier is empty.
+     */
+    private MoveResult result;
+
+    /**
+     * The score shared by all moves of this tier.
+     */
+    private int score;
+
+    /**
+     * The moves of this tier in the order they have been added.
+     */
+    private final Vector<Move> moves = new Vector<Move>();
+
+    /**
+     * Returns the consequence shared by all moves of this tier.
+     *
+     * @return the consequence of the moves of this tier or null if the tier is empty.
+     */
+    MoveResult getResult() {
+        return result;
+    }
+
+    /**
+     * Returns the score shared by all moves of this tier.
+     *
+     * @return the score of the moves of this tier.
+     */
+    int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the rank of this tier, see {@link #rank(MoveResult, int)}.
+     *
+     * @return the rank of this tier or {@link #EMPTY_RANK} if the tier is empty.
+     */
+    long rank() {
+        return result == null ? EMPTY_RANK : rank(result, score);
+    }
+
+    /**
+     * Returns the rank of a move with the specified consequence and score. The better the move, the smaller the rank.
+     * The consequence is stored in the upper half and the inverted score in the lower half of the rank.
+     *
+     * @param moveResult the consequence of the move.
+     * @param moveScore  the score of the move.
+     * @return the rank of the move.
+     */
+    static long rank(MoveResult moveResult, int moveScore) {
+        return ((long) moveResult.ordinal() << 32) + (Integer.MAX_VALUE - (long) moveScore);
+    }
+
+    /**
+     * Returns the consequence of a move with the specified rank.
+     *
+     * @param rank the rank of the move, not {@link #EMPTY_RANK}.
+     * @return the consequence of the move.
+     */
+    static MoveResult resultOf(long rank) {
+        return MoveResult.values()[(int) (rank >>> 32)];
+    }
+
+    /**
+     * Returns the score of a move with the specified rank.
+     *
+     * @param rank the rank of the move, not {@link #EMPTY_RANK}.
+     * @return the score of the move.
+     */
+    static int scoreOf(long rank) {
+        return (int) (Integer.MAX_VALUE - (rank & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Returns the moves of this tier.
+     *
+     * @return the moves of this tier.
+     */
+    Vector<Move> getMoves() {
+        return moves;
+    }
+
+    /**
+     * Adds the specified move to this tier if it belongs to it. If the move is better than the moves of this tier,
+     * the tier is replaced by a new tier containing only the specified move. A worse move is ignored.
+     *
+     * @param move       the examined move.
+     * @param score      the score of the move.
+     * @param moveResult the consequence of the move.
+     */
+    void offer(Move move, int score, MoveResult moveResult) {
+        int comp = compare(moveResult, score);
+        if (comp < 0) {
+            moves.clear();
+            result = moveResult;
+            this.score = score;
+        }
+        if (comp <= 0) {
+            moves.add(move);
+        }
+    }
+
+    /**
+     * Merges the specified tier of other moves into this tier. If both tiers are equally good, the moves of the other
+     * tier are appended to the moves of this tier, so that the order of the merged moves only depends on the order of merging.
+     *
+     * @param other the tier of other moves.
+     */
+    void merge(MoveTier other) {
+        if (other.result == null) {
+            return;
+        }
+        int comp = compare(other.result, other.score);
+        if (comp < 0) {
+            moves.clear();
+            result = other.result;
+            score = other.score;
+        }
+        if (comp <= 0) {
+            moves.addAll(other.moves);
+        }
+    }
+
+    /**
+     * Compares a move with the specified consequence and score with the moves of this tier in the same way as
+     * {@link MoveScore#compareTo(MoveScore)}. Every move is better than the moves of an empty tier.
+     *
+     * @param moveResult the consequence of the move.
+     * @param moveScore  the score of the move.
+     * @return a negative integer, zero or a positive integer as the move is better than, as good as or worse than the moves of this tier.
+     */
+    private int compare(MoveResult moveResult, int moveScore) {
+        if (result == null) {
+            return -1;
+        }
+        int comp = moveResult.compareTo(result);
+        if (comp == 0) {
+            return Integer.compare(score, moveScore);
+        }
+        return comp;
+    }
+}
@@ -0,0 +1,86 @@
+package towerwarspp.board;
+
+import towerwarspp.preset.Move;
+import towerwarspp.preset.PlayerColor;
+import towerwarspp.preset.Position;
+import towerwarspp.preset.Status;
+import towerwarspp.preset.Viewer;
+
+import static towerwarspp.board.PackedBoard.*;
+
+/**
+ * This class implements the interface Viewer in the preset package and represents a viewer which observes
+ * a {@link PackedBoard} object. Since the {@link PackedBoard} does not store {@link Entity} objects, this viewer
+ * creates a new {@link Entity} with all its possible moves from the packed field in question every time a token is requested.
+ * If the field is empty, null will be returned.
+ */
+public class PViewer implements Viewer {
+    /**
+     * The {@link PackedBoard} object which has to be observed by this {@link PViewer}.
+     */
+    private PackedBoard board;
+
+    /**
+     * Creates a new instance of the class {@link PViewer}.
+     *
+     * @param board the board object that has to be observed by this {@link PViewer}.
+     */
+    public PViewer(PackedBoard board) {
+        this.board = board;
+    }
+
+    /**
+     * Returns the size of the observed board.
+     *
+     * @return the size of the observed board.
+     */
+    public int getSize() {
+        return board.getSize();
+    }
+
+    /**
+     * Returns the current status of the observed board.
+     *
+     * @return the current status of the observed board.
+     */
+    public Status getStatus() {
+        return board.getStatus();
+    }
+
+    /**
+     * Returns the color of the player whose turn it is to make move.
+     *
+     * @return the color of the player whose turn it is to make move.
+     */
+    public PlayerColor getTurn() {
+        return board.getTurn();
+    }
+
+    /**
+     * Returns a new token which represents the token located on the specified position on the board.
+     *
+     * @param position the position of the token in question.
+     * @return a new token which represents the token located on the specified position or null if the position is empty.
+     */
+    public Entity getEntity(Position position) {
+        int value = board.getField(position);
+        if ((value & COLOR_MASK) == 0) {
+            return null;
+        }
+        PlayerColor color = PlayerColor.values()[(value & COLOR_MASK) - 1];
+        Entity entity = new Entity(position, color, board.getSize(), (value & BASE) != 0);
+        for (int i = 0; i < height(value); ++i) {
+            entity.incHeight();
+        }
+        for (int i = 1; i < range(value); ++i) {
+            entity.incRange();
+        }
+        entity.setBlocked((value & BLOCKED) != 0);
+        MoveList moves = new MoveList();
+        board.addMoves(HexTables.cell(position), moves);
+        for (int i = 0; i < moves.size(); ++i) {
+            entity.addTarget(Move.packedEnd(moves.get(i)));
+        }
+        return entity;
+    }
+}
@@ -0,0 +1,1107 @@
+package towerwarspp.board;
+
+import towerwarspp.main.WinType;
+import towerwarspp.preset.Move;
+import towerwarspp.preset.PlayerColor;
+import towerwarspp.preset.Position;
+import towerwarspp.preset.Status;
+import towerwarspp.util.debug.Debug;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Vector;
+
+import static towerwarspp.main.WinType.*;
+import static towerwarspp.preset.PlayerColor.BLUE;
+import static towerwarspp.preset.PlayerColor.RED;
+import static towerwarspp.preset.Status.*;
+import static towerwarspp.util.debug.DebugLevel.LEVEL_1;
+import static towerwarspp.util.debug.DebugLevel.LEVEL_7;
+import static towerwarspp.util.debug.DebugSource.BOARD;
+
+/**
+ * This class represents a board engine which follows the same rules as {@link SimpleBoard} and {@link Board}, but does not
+ * use {@link Entity} objects. Every field of the board is stored as one integer value in a flat array indexed by the cell id
+ * of the field. The integer value contains the following packed information about the token located on the field:
+ * its color, whether it is a base, whether it is blocked, its height and, for stones, its current step range.
+ * The lists of movable tokens of both players are stored as arrays of cell ids.
+ * The possible moves are not stored, but generated on request from the packed fields.
+ * A copy of this board consists of a few integer arrays only and is therefore much cheaper than a copy of {@link Board}.
+ * All moves are recorded in a journal of changed fields, so that they can be taken back with {@link #unmakeMove()}.
+ */
+public class PackedBoard implements BoardEngine {
+    /**
+     * Mask of the color bits of a field: 0 for an empty field, 1 for a red token and 2 for a blue token.
+     */
+    static final int COLOR_MASK = 0x3;
+
+    /**
+     * Flag of a field containing a base.
+     */
+    static final int BASE = 1 << 2;
+
+    /**
+     * Flag of a field containing a blocked tower.
+     */
+    static final int BLOCKED = 1 << 3;
+
+    /**
+     * Position of the height bits of a field.
+     */
+    static final int HEIGHT_SHIFT = 4;
+
+    /**
+     * Mask of the height bits of a field after shifting.
+     */
+    static final int HEIGHT_MASK = 0x1F;
+
+    /**
+     * Position of the range bits of a field.
+     */
+    static final int RANGE_SHIFT = 9;
+
+    /**
+     * Mask of the range bits of a field after shifting.
+     */
+    static final int RANGE_MASK = 0x7F;
+
+    /**
+     * Number of bits a {@link #positionKey()} uses for the kind of a token.
+     */
+    public static final int KEY_KIND_BITS = 3;
+
+    /**
+     * Mask of the bits a {@link #positionKey()} uses for the kind of a token.
+     */
+    private static final int KEY_KIND_MASK = (1 << KEY_KIND_BITS) - 1;
+
+    /**
+     * Journal entry: a field has been changed. The arguments are the cell id and the previous value.
+     */
+    private static final int CELL = 0;
+
+    /**
+     * Journal entry: a cell id has been appended to a list of movable tokens. The first argument is the list.
+     */
+    private static final int LIST_ADD = 1;
+
+    /**
+     * Journal entry: a cell id has been removed from a list of movable tokens. The arguments are the list and the slot.
+     */
+    private static final int LIST_REMOVE = 2;
+
+    /**
+     * Journal entry: beginning of a move. The arguments are the previous status and turn and the previous win type.
+     */
+    private static final int MOVE = 3;
+
+    /**
+     * All values of {@link Status} by ordinal. Cached because {@link Status#values()} creates a new array on every call.
+     */
+    private static final Status[] STATUSES = Status.values();
+
+    /**
+     * All values of {@link PlayerColor} by ordinal.
+     */
+    private static final PlayerColor[] COLORS = PlayerColor.values();
+
+    /**
+     * All values of {@link WinType} by ordinal.
+     */
+    private static final WinType[] WIN_TYPES = WinType.values();
+
+    /**
+     * The size of the board.
+     */
+    private final int size;
+
+    /**
+     * The maximum allowed height of a tower.
+     */
+    private final int maxHeight;
+
+    /**
+     * The precomputed rings around all fields of a board of this size.
+     */
+    private final HexTables tables;
+
+    /**
+     * All fields of the board as packed integer values indexed by cell id.
+     */
+    private final int[] cells;
+
+    /**
+     * The lists of movable tokens (all stones and towers, but not the bases) as cell ids. Index 0 is the red list,
+     * index 1 the blue list.
+     */
+    private final int[][] pieces;
+
+    /**
+     * The number of entries in both lists of movable tokens.
+     */
+    private final int[] pieceCount;
+
+    /**
+     * The index of every occupied cell in its list of movable tokens.
+     */
+    private final int[] slot;
+
+    /**
+     * The cell id of the red base.
+     */
+    private final int redBase;
+
+    /**
+     * The cell id of the blue base.
+     */
+    private final int blueBase;
+
+    /**
+     * The cell ids of all fields except the bases in the order used by {@link #positionKey()}.
+     */
+    private final int[] keyCells;
+
+    /**
+     * The current turn.
+     */
+    private PlayerColor turn = RED;
+
+    /**
+     * The current board status.
+     */
+    private Status status = OK;
+
+    /**
+     * The win type if the game is finished, otherwise null.
+     */
+    private WinType winType = null;
+
+    /**
+     * The Zobrist hash of the current position. It is updated with every change of a field. See {@link Zobrist}.
+     */
+    private long hash = 0;
+
+    /**
+     * The journal of all changes as triples of integers: the kind of the change and two arguments.
+     */
+    private int[] journal = new int[3 * 64];
+
+    /**
+     * The number of integers used in the journal.
+     */
+    private int journalSize = 0;
+
+    /**
+     * The number of moves in the journal.
+     */
+    private int historySize = 0;
+
+    /**
+     * The list used by {@link #randomMove(PlayerColor, Random)} to collect the possible moves. It is reused by every call.
+     */
+    private final MoveList scratch = new MoveList();
+
+    /**
+     * Instance of the class {@link Debug}.
+     */
+    private final Debug debug;
+
+    /**
+     * Initialises a new object of the class PackedBoard with the start position of a game on a board of the specified size.
+     *
+     * @param n size of the new board.
+     */
+    public PackedBoard(int n) {
+        if (n < 4 || n > 26) {
+            throw new IllegalArgumentException("The size " + n + " is not allowed.");
+        }
+        this.size = n;
+        this.maxHeight = n / 3;
+        this.tables = HexTables.forSize(n);
+        this.cells = new int[HexTables.CELLS];
+        this.pieces = new int[2][HexTables.CELLS];
+        this.pieceCount = new int[2];
+        this.slot = new int[HexTables.CELLS];
+        this.redBase = HexTables.cell(1, 1);
+        this.blueBase = HexTables.cell(n, n);
+        this.keyCells = keyCells(n);
+        this.debug = Debug.getInstance();
+        initialiseBoard();
+    }
+
+    /**
+     * Initialises a new object of the class PackedBoard which represents the same game situation as the specified board.
+     *
+     * @param board the board whose game situation has to be taken over.
+     */
+    public PackedBoard(SimpleBoard board) {
+        this(board.getSize());
+        Arrays.fill(cells, 0);
+        hash = 0;
+        pieceCount[0] = 0;
+        pieceCount[1] = 0;
+        for (int letter = 1; letter <= size; ++letter) {
+            for (int number = 1; number <= size; ++number) {
+                Entity ent = board.getElement(Position.of(letter, number));
+                if (ent != null) {
+                    int value = colorBits(ent.getColor()) | (ent.getHeight() << HEIGHT_SHIFT);
+                    if (ent.isBase()) {
+                        value |= BASE;
+                    }
+                    if (ent.isBlocked()) {
+                        value |= BLOCKED;
+                    }
+                    setCell(HexTables.cell(letter, number), value);
+                }
+            }
+        }
+        for (int letter = 1; letter <= size; ++letter) {
+            for (int number = 1; number <= size; ++number) {
+                updateRange(HexTables.cell(letter, number));
+            }
+        }
+        turn = board.getTurn();
+        if (turn == BLUE) {
+            hash ^= Zobrist.SIDE;
+        }
+        status = board.getStatus();
+        winType = board.getWinType();
+        clearHistory();
+    }
+
+    /**
+     * Initialises a new object of the class PackedBoard with the game situation encoded in the specified position key
+     * (see {@link #positionKey()}). The status of the new board is OK, so the key must not describe a finished game.
+     *
+     * @param n   size of the new board.
+     * @param key the position key of the game situation.
+     * @throws IllegalArgumentException if boards of size n have no position keys.
+     */
+    public PackedBoard(int n, long key) {
+        this(n);
+        if (!hasPositionKey(n)) {
+            throw new IllegalArgumentException("Boards of size " + n + " have no position keys.");
+        }
+        for (int cell : keyCells) {
+            setCell(cell, 0);
+        }
+        int occupied = 1;
+        int kind = 1 + size * size - 2;
+        for (int cell : keyCells) {
+            if ((key >>> occupied++ & 1) != 0) {
+                int bits = (int) (key >>> kind) & KEY_KIND_MASK;
+                kind += KEY_KIND_BITS;
+                int value = ((bits & 1) != 0 ? colorBits(BLUE) : colorBits(RED));
+                if ((bits & 2) != 0) {
+                    value |= 1 << HEIGHT_SHIFT;
+                }
+                if ((bits & 4) != 0) {
+                    value |= BLOCKED;
+                }
+                setCell(cell, value);
+            }
+        }
+        for (int letter = 1; letter <= size; ++letter) {
+            for (int number = 1; number <= size; ++number) {
+                updateRange(HexTables.cell(letter, number));
+            }
+        }
+        if ((key & 1) != 0) {
+            turn = BLUE;
+            hash ^= Zobrist.SIDE;
+        }
+        clearHistory();
+    }
+
+    /**
+     * Copy-Constructor: creates a new {@link PackedBoard} object which is a copy of the given {@link PackedBoard} object original.
+     * The journal is not copied.
+     *
+     * @param original {@link PackedBoard} object which has to be copied.
+     */
+    private PackedBoard(PackedBoard original) {
+        this.size = original.size;
+        this.maxHeight = original.maxHeight;
+        this.tables = original.tables;
+        this.cells = original.cells.clone();
+        this.pieces = new int[][]{original.pieces[0].clone(), original.pieces[1].clone()};
+        this.pieceCount = original.pieceCount.clone();
+        this.slot = original.slot.clone();
+        this.redBase = original.redBase;
+        this.blueBase = original.blueBase;
+        this.keyCells = original.keyCells;
+        this.turn = original.turn;
+        this.status = original.status;
+        this.winType = original.winType;
+        this.hash = original.hash;
+        this.debug = original.debug;
+    }
+
+    /**
+     * Returns the color bits which represent the specified color in a packed field.
+     *
+     * @param col the color.
+     * @return the color bits.
+     */
+    static int colorBits(PlayerColor col) {
+        return col.ordinal() + 1;
+    }
+
+    /**
+     * Returns the height stored in the specified packed field.
+     *
+     * @param value the packed field.
+     * @return the height.
+     */
+    static int height(int value) {
+        return (value >> HEIGHT_SHIFT) & HEIGHT_MASK;
+    }
+
+    /**
+     * Returns the step range stored in the specified packed field.
+     *
+     * @param value the packed field.
+     * @return the step range.
+     */
+    static int range(int value) {
+        return (value >> RANGE_SHIFT) & RANGE_MASK;
+    }
+
+    /**
+     * Returns the index of the list of movable tokens which has to contain the token of the specified packed field,
+     * or -1 if the field is empty or contains a base.
+     *
+     * @param value the packed field.
+     * @return 0 for the red list, 1 for the blue list, -1 for none.
+     */
+    private static int listOf(int value) {
+        if ((value & BASE) != 0) {
+            return -1;
+        }
+        return (value & COLOR_MASK) - 1;
+    }
+
+    /**
+     * Returns the size of the board.
+     *
+     * @return the size of the board.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the current turn.
+     *
+     * @return the current turn.
+     */
+    public PlayerColor getTurn() {
+        return turn;
+    }
+
+    /**
+     * Returns the status of the board.
+     *
+     * @return the status of the board.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the WinType or null if the game is not finished.
+     *
+     * @return the WinType or null if the game is not finished.
+     */
+    public WinType getWinType() {
+        return winType;
+    }
+
+    /**
+     * Returns the Zobrist hash of the current position. Equal positions with the same player to move have equal hashes.
+     *
+     * @return the Zobrist hash of the current position.
+     */
+    public long hash() {
+        return hash;
+    }
+
+    /**
+     * Returns true if every game situation on a board of the specified size can be encoded in a position key
+     * (see {@link #positionKey()}). This is the case if towers can not grow higher than one stone on top of another
+     * and the occupancy of all fields together with the kinds of all tokens fits into 63 bits.
+     *
+     * @param n the size of the board.
+     * @return true if boards of size n have position keys.
+     */
+    public static boolean hasPositionKey(int n) {
+        int d = n / 2;
+        int stones = (d + 1) * (d + 2) / 2 - 1;
+        return n / 3 <= 1 && 1 + n * n - 2 + 2 * stones * KEY_KIND_BITS <= Long.SIZE;
+    }
+
+    /**
+     * Returns a key which encodes the complete game situation except the status and can be turned back into a board
+     * with {@link #PackedBoard(int, long)}. In contrast to {@link #hash()} two different situations never have the same key.
+     * Bit 0 is set if blue is to move. It is followed by one bit for every field except the bases telling whether the field
+     * is occupied and by {@link #KEY_KIND_BITS} bits for every occupied field telling the color of the token,
+     * whether it is a tower and whether it is blocked. The fields are taken in the order of increasing cell id.
+     * Only available if {@link #hasPositionKey(int)} returns true for the size of this board.
+     *
+     * @return the position key of the current game situation.
+     */
+    public long positionKey() {
+        long key = (turn == BLUE ? 1 : 0);
+        int occupied = 1;
+        int kind = 1 + size * size - 2;
+        for (int cell : keyCells) {
+            int value = cells[cell];
+            if ((value & COLOR_MASK) != 0) {
+                key |= 1L << occupied;
+                long bits = ((value & COLOR_MASK) == colorBits(BLUE) ? 1 : 0)
+                        | (height(value) > 0 ? 2 : 0)
+                        | ((value & BLOCKED) != 0 ? 4 : 0);
+                key |= bits << kind;
+                kind += KEY_KIND_BITS;
+            }
+            ++occupied;
+        }
+        return key;
+    }
+
+    /**
+     * Returns the cell ids of all fields of a board of the specified size except the bases in the order used by
+     * {@link #positionKey()}.
+     *
+     * @param size the size of the board.
+     * @return the cell ids of all fields except the bases.
+     */
+    private static int[] keyCells(int size) {
+        int redBase = HexTables.cell(1, 1);
+        int blueBase = HexTables.cell(size, size);
+        int[] keyCells = new int[size * size - 2];
+        int i = 0;
+        for (int letter = 1; letter <= size; ++letter) {
+            for (int number = 1; number <= size; ++number) {
+                int cell = HexTables.cell(letter, number);
+                if (cell != redBase && cell != blueBase) {
+                    keyCells[i++] = cell;
+                }
+            }
+        }
+        return keyCells;
+    }
+
+    /**
+     * Returns the packed value of the field with the specified position or 0 if the position is not on the board.
+     *
+     * @param pos the position in question.
+     * @return the packed value of the field.
+     */
+    int getField(Position pos) {
+        if (!tables.isOnBoard(pos.getLetter(), pos.getNumber())) {
+            return 0;
+        }
+        return cells[HexTables.cell(pos)];
+    }
+
+    /**
+     * Returns true if the player of the specified color can make the specified move.
+     *
+     * @param move the move in question.
+     * @param col  the color of the player in question.
+     * @return true if the player of the color col can make the specified move.
+     */
+    public boolean moveAllowed(Move move, PlayerColor col) {
+        if (move == null) return true;
+        Position start = move.getStart();
+        Position end = move.getEnd();
+        if (!tables.isOnBoard(start.getLetter(), start.getNumber()) || !tables.isOnBoard(end.getLetter(), end.getNumber())) {
+            return false;
+        }
+        return moveAllowed(HexTables.cell(start), HexTables.cell(end), colorBits(col));
+    }
+
+    /**
+     * Returns true if the token on the cell start belongs to the player with the specified color bits and can move to the cell end.
+     *
+     * @param start     the start cell of the move.
+     * @param end       the end cell of the move.
+     * @param colorBits the color bits of the player.
+     * @return true if the move is allowed.
+     */
+    private boolean moveAllowed(int start, int end, int colorBits) {
+        int value = cells[start];
+        if ((value & COLOR_MASK) != colorBits || (value & (BASE | BLOCKED)) != 0) {
+            return false;
+        }
+        int dist = HexTables.distance(start, end);
+        if (height(value) > 0) {
+            return dist == 1 && towerMayEnter(end, colorBits);
+        }
+        return dist >= 1 && dist <= range(value) && stoneMayEnter(end, colorBits, dist);
+    }
+
+    /**
+     * Returns true if a tower with the specified color bits can be dismantled on the specified neighbouring cell.
+     *
+     * @param target    the cell in question.
+     * @param colorBits the color bits of the tower.
+     * @return true if the tower can be dismantled on the cell.
+     */
+    private boolean towerMayEnter(int target, int colorBits) {
+        int value = cells[target];
+        int color = value & COLOR_MASK;
+        return color == 0 || (color == colorBits && (value & BASE) == 0
+                && (height(value) != maxHeight || (value & BLOCKED) != 0));
+    }
+
+    /**
+     * Returns true if a stone with the specified color bits can go to the specified cell taking into account the art of
+     * the move (close or remote one).
+     *
+     * @param target    the cell in question.
+     * @param colorBits the color bits of the stone.
+     * @param dist      the distance from the stone to the cell.
+     * @return true if the stone can go to the cell.
+     */
+    private boolean stoneMayEnter(int target, int colorBits, int dist) {
+        int value = cells[target];
+        int color = value & COLOR_MASK;
+        if (color == 0) {
+            return true;
+        }
+        if (color != colorBits) {
+            return (value & BASE) != 0 || (value & BLOCKED) == 0 || dist == 1;
+        }
+        return (value & BASE) == 0 && (height(value) != maxHeight || (value & BLOCKED) != 0);
+    }
+
+    /**
+     * Executes the specified move if this move is legal. Changes the board status and the turn accordingly.
+     * If the move is illegal, the turn will not be changed.
+     * Returns the current status of the board.
+     *
+     * @param move new move to be executed.
+     * @return actualised status of the board.
+     */
+    public Status makeMove(Move move) {
+        push(MOVE, status.ordinal() * 2 + turn.ordinal(), winType == null ? 0 : winType.ordinal() + 1);
+        ++historySize;
+        if (move == null) {
+            winType = SURRENDER;
+            status = (turn == RED ? BLUE_WIN : RED_WIN);
+            return status;
+        }
+        if (!moveAllowed(move, turn)) {
+            status = ILLEGAL;
+            debug.send(LEVEL_1, BOARD, "Move does not exist: turn = " + turn + ", move = " + move.toString());
+            return status;
+        }
+        int start = HexTables.cell(move.getStart());
+        int end = HexTables.cell(move.getEnd());
+        int colorBits = colorBits(turn);
+        int startValue = cells[start];
+        if (height(startValue) > 0) {
+            setCell(start, withHeight(startValue, height(startValue) - 1));
+        } else {
+            setCell(start, 0);
+        }
+        int endValue = cells[end];
+        int endColor = endValue & COLOR_MASK;
+        if (endColor == 0 || (endValue & BASE) != 0) {
+            setCell(end, colorBits);
+        } else if (endColor != colorBits) {
+            if (height(endValue) > 0 && HexTables.distance(start, end) > 1) {
+                setCell(end, endValue | BLOCKED);
+            } else {
+                setCell(end, colorBits);
+            }
+        } else if ((endValue & BLOCKED) != 0) {
+            setCell(end, endValue & ~BLOCKED);
+        } else {
+            setCell(end, withHeight(endValue, height(endValue) + 1));
+        }
+        updateRangesAround(start);
+        updateRangesAround(end);
+        status = checkWin(end);
+        turn = (turn == RED ? BLUE : RED);
+        hash ^= Zobrist.SIDE;
+        if (debug.isLogging(LEVEL_7, BOARD) && hash != computeHash()) {
+            debug.send(LEVEL_1, BOARD, "Hash differs from recomputed hash after move " + move.toString());
+        }
+        return status;
+    }
+
+    /**
+     * Takes back the last move executed by {@link #makeMove(Move)} and restores the exact state of the board before this move.
+     *
+     * @return true if a move has been taken back, false if there was no move to take back.
+     */
+    public boolean unmakeMove() {
+        if (historySize == 0) {
+            return false;
+        }
+        while (true) {
+            journalSize -= 3;
+            int kind = journal[journalSize];
+            int a = journal[journalSize + 1];
+            int b = journal[journalSize + 2];
+            switch (kind) {
+                case MOVE:
+                    status = STATUSES[a / 2];
+                    if (turn.ordinal() != a % 2) {
+                        hash ^= Zobrist.SIDE;
+                    }
+                    turn = COLORS[a % 2];
+                    winType = (b == 0 ? null : WIN_TYPES[b - 1]);
+                    --historySize;
+                    return true;
+                case CELL:
+                    hash ^= Zobrist.key(a, cells[a]) ^ Zobrist.key(a, b);
+                    cells[a] = b;
+                    break;
+                case LIST_ADD:
+                    --pieceCount[a];
+                    break;
+                case LIST_REMOVE:
+                    int[] list = pieces[a & 1];
+                    int index = a >> 1;
+                    int count = pieceCount[a & 1]++;
+                    if (index != count) {
+                        list[count] = list[index];
+                        slot[list[count]] = count;
+                    }
+                    list[index] = b;
+                    slot[b] = index;
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Takes back moves with {@link #unmakeMove()} until only the specified number of moves is left to be taken back.
+     *
+     * @param historySize the number of moves which have to be left in the history.
+     */
+    public void unmakeMovesTo(int historySize) {
+        while (this.historySize > historySize) {
+            unmakeMove();
+        }
+    }
+
+    /**
+     * Returns the number of moves which can be taken back with {@link #unmakeMove()}.
+     *
+     * @return the number of moves which can be taken back.
+     */
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    /**
+     * Forgets all executed moves so that they can no longer be taken back.
+     */
+    public void clearHistory() {
+        journalSize = 0;
+        historySize = 0;
+    }
+
+    /**
+     * Returns all possible moves which a player of the color col has.
+     *
+     * @param col the color of the player whose possible moves have to be returned.
+     * @return all possible moves which a player of the color col has.
+     */
+    public Vector<Move> allPossibleMoves(PlayerColor col) {
+        MoveList moves = new MoveList();
+        generateMoves(col, moves);
+        Vector<Move> allMoves = new Vector<Move>(moves.size());
+        for (int i = 0; i < moves.size(); ++i) {
+            allMoves.add(moves.move(i));
+        }
+        return allMoves;
+    }
+
+    /**
+     * Replaces the content of the specified list with all possible moves which a player of the color col has.
+     *
+     * @param col   the color of the player whose possible moves have to be delivered.
+     * @param moves the list which has to be filled with the packed moves.
+     */
+    public void generateMoves(PlayerColor col, MoveList moves) {
+        moves.clear();
+        int[] list = pieces[col.ordinal()];
+        int count = pieceCount[col.ordinal()];
+        for (int i = 0; i < count; ++i) {
+            addMoves(list[i], moves);
+        }
+    }
+
+    /**
+     * Returns a move chosen uniformly at random from all possible moves which a player of the color col has.
+     * The moves are generated into a list owned by this board, so no objects are created.
+     *
+     * @param col the color of the player whose move has to be returned.
+     * @param rng the random number generator which has to be used.
+     * @return a random possible move or null if the player has no moves.
+     */
+    public Move randomMove(PlayerColor col, Random rng) {
+        generateMoves(col, scratch);
+        if (scratch.isEmpty()) {
+            return null;
+        }
+        return scratch.move(rng.nextInt(scratch.size()));
+    }
+
+    /**
+     * Returns true if the player of the color col has a possible move to the base of the opponent.
+     * The possible moves are not stored on this board, so every movable token of the player is examined.
+     *
+     * @param col the color of the player in question.
+     * @return true if the player of the color col can destroy the opponent's base with one move.
+     */
+    public boolean canDestroyBase(PlayerColor col) {
+        int[] list = pieces[col.ordinal()];
+        int count = pieceCount[col.ordinal()];
+        int target = (col == RED ? blueBase : redBase);
+        for (int i = 0; i < count; ++i) {
+            if (moveAllowed(list[i], target, colorBits(col))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds all possible moves of the token on the specified cell to the specified list.
+     * Adds nothing if the cell is empty or contains a base or a blocked tower.
+     *
+     * @param start    the cell id of the token.
+     * @param allMoves the list to which the packed moves have to be added.
+     */
+    void addMoves(int start, MoveList allMoves) {
+        int value = cells[start];
+        int colorBits = value & COLOR_MASK;
+        if (colorBits == 0 || (value & (BASE | BLOCKED)) != 0) {
+            return;
+        }
+        int maxRange = height(value) > 0 ? 1 : range(value);
+        for (int radius = 1; radius <= maxRange; ++radius) {
+            for (int end : tables.ring(start, radius)) {
+                if (height(value) > 0 ? towerMayEnter(end, colorBits) : stoneMayEnter(end, colorBits, radius)) {
+                    allMoves.add(Move.pack(start, end));
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the alternative score of the specified move exactly as {@link Board#altScore(Move, PlayerColor)} does.
+     *
+     * @param move        move to evaluate
+     * @param playerColor player making that move
+     * @return score for this move
+     */
+    public int altScore(Move move, PlayerColor playerColor) {
+        return altScore(move.pack(), playerColor);
+    }
+
+    /**
+     * Computes the alternative score of the move with the specified packed encoding exactly as
+     * {@link Board#altScore(Move, PlayerColor)} does. The packed move consists of the cell ids of its start and its end,
+     * so no objects are needed.
+     *
+     * @param packedMove  packed move to evaluate
+     * @param playerColor player making that move
+     * @return score for this move
+     */
+    public int altScore(int packedMove, PlayerColor playerColor) {
+        int start = Move.packedStart(packedMove);
+        int end = Move.packedEnd(packedMove);
+        int ownBase = playerColor == RED ? redBase : blueBase;
+        int opponentBase = playerColor == RED ? blueBase : redBase;
+        if (end == opponentBase)
+            return Board.WIN;
+        int opponent = cells[end];
+        int opponentColor = opponent & COLOR_MASK;
+        int score = 3 * HexTables.distance(start, opponentBase) - HexTables.distance(end, opponentBase);
+        int disToOwnBase = HexTables.distance(start, ownBase);
+        boolean defence = disToOwnBase < 4 && disToOwnBase < size / 4.0;
+        if (defence)
+            score = Board.DEFENCE;
+        if (opponentColor != 0 && !defence) {
+            if (opponentColor != colorBits(playerColor)) {
+                if (height(opponent) > 0) {
+                    if (HexTables.distance(start, end) == 1) {
+                        score += 50 * height(opponent);
+                    } else {
+                        score += 15;
+                    }
+                } else {
+                    score += 45;
+                }
+            }
+        } else if (opponentColor != 0 && opponentColor != colorBits(playerColor)) {
+            score = Board.DEFEND;
+        }
+        return score;
+    }
+
+    /**
+     * Evaluates the current position statically exactly as {@link Board#evaluate(PlayerColor)} does.
+     * The possible moves of every token are counted in the list used by {@link #randomMove(PlayerColor, Random)}.
+     *
+     * @param col the color of the player from whose point of view the position has to be evaluated.
+     * @return the static evaluation of the position, positive values are good for the player of the color col.
+     */
+    public int evaluate(PlayerColor col) {
+        return evaluateTokens(col) - evaluateTokens(col == RED ? BLUE : RED);
+    }
+
+    /**
+     * Sums the static values of all tokens of the player of the color col, see {@link #evaluate(PlayerColor)}.
+     *
+     * @param col the color of the player in question.
+     * @return the sum of the values of the player's tokens.
+     */
+    private int evaluateTokens(PlayerColor col) {
+        int[] list = pieces[col.ordinal()];
+        int count = pieceCount[col.ordinal()];
+        int opponentBase = (col == RED ? blueBase : redBase);
+        int value = 0;
+        for (int i = 0; i < count; ++i) {
+            int cell = list[i];
+            if ((cells[cell] & BLOCKED) != 0) {
+                continue;
+            }
+            scratch.clear();
+            addMoves(cell, scratch);
+            value += Board.EVAL_MATERIAL * (1 + height(cells[cell])) + Board.EVAL_MOBILITY * scratch.size()
+                    + Board.EVAL_PROGRESS * (2 * size - HexTables.distance(cell, opponentBase));
+        }
+        return value;
+    }
+
+    /**
+     * Clones the current {@link PackedBoard} object and returns the clone. The journal is not copied.
+     *
+     * @return the clone of this {@link PackedBoard} object.
+     */
+    public PackedBoard clone() {
+        return new PackedBoard(this);
+    }
+
+    /**
+     * Returns a viewer for this board.
+     *
+     * @return a viewer for this board.
+     */
+    public PViewer viewer() {
+        return new PViewer(this);
+    }
+
+    /**
+     * Returns the specified packed field with a changed height.
+     *
+     * @param value  the packed field.
+     * @param height the new height.
+     * @return the changed packed field.
+     */
+    private static int withHeight(int value, int height) {
+        return (value & ~(HEIGHT_MASK << HEIGHT_SHIFT)) | (height << HEIGHT_SHIFT);
+    }
+
+    /**
+     * Changes the value of the specified field, records the change in the journal and
+     * actualises the lists of movable tokens.
+     *
+     * @param cell  the cell id of the field.
+     * @param value the new packed value of the field.
+     */
+    private void setCell(int cell, int value) {
+        int old = cells[cell];
+        if (old == value) {
+            return;
+        }
+        push(CELL, cell, old);
+        cells[cell] = value;
+        hash ^= Zobrist.key(cell, old) ^ Zobrist.key(cell, value);
+        int oldList = listOf(old);
+        int newList = listOf(value);
+        if (oldList != newList) {
+            if (oldList >= 0) {
+                removePiece(oldList, cell);
+            }
+            if (newList >= 0) {
+                addPiece(newList, cell);
+            }
+        }
+    }
+
+    /**
+     * Appends the specified cell to the specified list of movable tokens.
+     *
+     * @param list the index of the list.
+     * @param cell the cell id.
+     */
+    private void addPiece(int list, int cell) {
+        push(LIST_ADD, list, cell);
+        int index = pieceCount[list]++;
+        pieces[list][index] = cell;
+        slot[cell] = index;
+    }
+
+    /**
+     * Removes the specified cell from the specified list of movable tokens by replacing it with the last entry of the list.
+     *
+     * @param list the index of the list.
+     * @param cell the cell id.
+     */
+    private void removePiece(int list, int cell) {
+        int index = slot[cell];
+        push(LIST_REMOVE, (index << 1) | list, cell);
+        int last = pieces[list][--pieceCount[list]];
+        pieces[list][index] = last;
+        slot[last] = index;
+    }
+
+    /**
+     * Appends a change to the journal.
+     *
+     * @param kind the kind of the change.
+     * @param a    the first argument.
+     * @param b    the second argument.
+     */
+    private void push(int kind, int a, int b) {
+        if (journalSize + 3 > journal.length) {
+            journal = Arrays.copyOf(journal, journal.length * 2);
+        }
+        journal[journalSize] = kind;
+        journal[journalSize + 1] = a;
+        journal[journalSize + 2] = b;
+        journalSize += 3;
+    }
+
+    /**
+     * Recomputes the step ranges of the token on the specified cell and of all tokens on the neighbouring cells.
+     *
+     * @param center the cell id of the changed field.
+     */
+    private void updateRangesAround(int center) {
+        updateRange(center);
+        for (int neighbour : tables.neighbours(center)) {
+            updateRange(neighbour);
+        }
+    }
+
+    /**
+     * Recomputes the step range of the token on the specified cell. A stone has the range 1 plus the heights of all
+     * neighbouring towers of the same color which are not blocked. All other fields have the range 0.
+     *
+     * @param cell the cell id of the field.
+     */
+    private void updateRange(int cell) {
+        int value = cells[cell];
+        int range = 0;
+        int color = value & COLOR_MASK;
+        if (color != 0 && (value & BASE) == 0 && height(value) == 0) {
+            range = 1;
+            for (int neighbourCell : tables.neighbours(cell)) {
+                int neighbour = cells[neighbourCell];
+                if ((neighbour & COLOR_MASK) == color && (neighbour & (BASE | BLOCKED)) == 0) {
+                    range += height(neighbour);
+                }
+            }
+        }
+        setCell(cell, (value & ~(RANGE_MASK << RANGE_SHIFT)) | (range << RANGE_SHIFT));
+    }
+
+    /**
+     * Proves if the last move to the cell lastMove was a winning one and returns the corresponding status.
+     *
+     * @param lastMove end cell of the last move.
+     * @return RED_WIN if the red player has won;
+     * BLUE_WIN if the blue player has won;
+     * OK if the move was not winning.
+     */
+    private Status checkWin(int lastMove) {
+        if (lastMove == (turn == RED ? blueBase : redBase)) {
+            winType = BASE_DESTROYED;
+            return (turn == RED ? RED_WIN : BLUE_WIN);
+        }
+        if (!hasMoves(turn == RED ? BLUE : RED)) {
+            winType = NO_POSSIBLE_MOVES;
+            return (turn == RED ? RED_WIN : BLUE_WIN);
+        }
+        return OK;
+    }
+
+    /**
+     * Returns true if the player of the color col has at least one move.
+     *
+     * @param col the color of the player in question.
+     * @return true if the player of the color col has at least one move.
+     */
+    private boolean hasMoves(PlayerColor col) {
+        int colorBits = colorBits(col);
+        int[] list = pieces[col.ordinal()];
+        int count = pieceCount[col.ordinal()];
+        for (int i = 0; i < count; ++i) {
+            int start = list[i];
+            int value = cells[start];
+            if ((value & BLOCKED) != 0) {
+                continue;
+            }
+            int maxRange = height(value) > 0 ? 1 : range(value);
+            for (int radius = 1; radius <= maxRange; ++radius) {
+                for (int end : tables.ring(start, radius)) {
+                    if (height(value) > 0 ? towerMayEnter(end, colorBits) : stoneMayEnter(end, colorBits, radius)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the Zobrist hash of the current position from scratch by XOR-ing the keys of all occupied fields
+     * and the key of the player to move.
+     *
+     * @return the Zobrist hash of the current position.
+     */
+    private long computeHash() {
+        long h = (turn == BLUE ? Zobrist.SIDE : 0);
+        for (int cell = 0; cell < HexTables.CELLS; ++cell) {
+            h ^= Zobrist.key(cell, cells[cell]);
+        }
+        return h;
+    }
+
+    /**
+     * Initialises the board before the first move: sets both bases and all stones on their start positions,
+     * which are all positions whose distance to the own base is not greater than half of the board size.
+     */
+    private void initialiseBoard() {
+        setCell(redBase, colorBits(RED) | BASE);
+        setCell(blueBase, colorBits(BLUE) | BASE);
+        int d = size / 2;
+        for (int letter = 1; letter <= size; ++letter) {
+            for (int number = 1; number <= size; ++number) {
+                int cell = HexTables.cell(letter, number);
+                if (cell != redBase && HexTables.distance(cell, redBase) <= d) {
+                    setCell(cell, colorBits(RED));
+                } else if (cell != blueBase && HexTables.distance(cell, blueBase) <= d) {
+                    setCell(cell, colorBits(BLUE));
+                }
+            }
+        }
+        for (int letter = 1; letter <= size; ++letter) {
+            for (int number = 1; number <= size; ++number) {
+                updateRange(HexTables.cell(letter, number));
+            }
+        }
+        clearHistory();
+    }
+}
@@ -0,0 +1,111 @@
+package towerwarspp.board;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the list of movable tokens of one color on a {@link SimpleBoard}.
+ * Every token in the list knows its slot, so that adding and removing a token takes constant time:
+ * a removed token is replaced by the last token of the list. Taking back a removal with {@link #restore(Entity, int)}
+ * puts both tokens back on their former slots, so that the order of the list only depends on the executed moves.
+ * The list is not synchronized: it belongs to exactly one board.
+ */
+final class PieceList {
+    /**
+     * The tokens of the list. Only the first {@link #size} entries are used.
+     */
+    private Entity[] entities;
+
+    /**
+     * The number of tokens in the list.
+     */
+    private int size;
+
+    /**
+     * Creates a new empty list which can hold the specified number of tokens without growing.
+     *
+     * @param capacity the expected maximal number of tokens.
+     */
+    PieceList(int capacity) {
+        entities = new Entity[Math.max(1, capacity)];
+    }
+
+    /**
+     * Returns the number of tokens in this list.
+     *
+     * @return the number of tokens in this list.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the token on the specified slot.
+     *
+     * @param index the slot, between 0 and {@link #size()} - 1.
+     * @return the token on the specified slot.
+     */
+    Entity get(int index) {
+        return entities[index];
+    }
+
+    /**
+     * Appends the specified token to this list.
+     *
+     * @param ent the token which has to be added.
+     */
+    void add(Entity ent) {
+        if (size == entities.length) {
+            entities = Arrays.copyOf(entities, 2 * size);
+        }
+        ent.slot = size;
+        entities[size++] = ent;
+    }
+
+    /**
+     * Removes the last token of this list. Takes back the last call of {@link #add(Entity)}.
+     */
+    void removeLast() {
+        entities[--size].slot = -1;
+        entities[size] = null;
+    }
+
+    /**
+     * Removes the specified token from this list. The last token of the list takes its slot.
+     *
+     * @param ent the token which has to be removed.
+     * @return the former slot of the token or -1 if the token was not in this list.
+     */
+    int remove(Entity ent) {
+        int index = ent.slot;
+        if (index < 0 || index >= size || entities[index] != ent) {
+            return -1;
+        }
+        Entity last = entities[--size];
+        entities[index] = last;
+        last.slot = index;
+        entities[size] = null;
+        ent.slot = -1;
+        return index;
+    }
+
+    /**
+     * Takes back the last call of {@link #remove(Entity)}: the token which has taken the slot of the removed token
+     * is moved back to the end of the list and the removed token is put back on its former slot.
+     *
+     * @param ent   the removed token.
+     * @param index the former slot of the removed token.
+     */
+    void restore(Entity ent, int index) {
+        if (size == entities.length) {
+            entities = Arrays.copyOf(entities, 2 * size);
+        }
+        if (index < size) {
+            Entity moved = entities[index];
+            entities[size] = moved;
+            moved.slot = size;
+        }
+        entities[index] = ent;
+        ent.slot = index;
+        ++size;
+    }
+}
@@ -0,0 +1,233 @@
+package towerwarspp.board;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a reverse reachability index of the movable tokens of one color on a {@link SimpleBoard}.
+ * For every field of the board it stores all tokens which have this field inside their current step range,
+ * so that opening or closing a field only has to visit these tokens and not every token of the color.
+ * A token covers all fields whose distance to the token's position is between 1 and the token's step range.
+ * Every registered token gets a small id, and the tokens covering a field are stored as a bitset over these ids,
+ * so that covering or uncovering a field only sets or clears one bit.
+ * The index does not observe the tokens: the board has to call {@link #update(Entity)} after every change of the position
+ * or the step range of a registered token. The id and the area a token has been registered with are stored in the token itself.
+ * Additionally, the index keeps the attack count of every field: the number of registered tokens which have a possible move
+ * to this field. These counts are maintained by the tokens themselves, every registered token changes them whenever one of
+ * its possible moves is added or removed, so that asking whether a field can be reached by the color takes constant time.
+ */
+final class ReachIndex {
+    /**
+     * The number of bits in one word of a bitset.
+     */
+    private static final int WORD_BITS = 64;
+
+    /**
+     * The precomputed tables of the board size.
+     */
+    private final HexTables tables;
+
+    /**
+     * The number of words of the bitset of one field.
+     */
+    private int words;
+
+    /**
+     * The bitsets of the ids of the tokens covering a field, {@link #words} words per field indexed by cell id.
+     */
+    private long[] bits;
+
+    /**
+     * The registered tokens indexed by id. An entry is null if the id is free.
+     */
+    private Entity[] entities;
+
+    /**
+     * The stack of free ids. The ids are handed out in ascending order at first.
+     */
+    private int[] freeIds;
+
+    /**
+     * The number of ids on the stack of free ids.
+     */
+    private int freeCount;
+
+    /**
+     * The number of registered tokens with a possible move to a field indexed by cell id.
+     */
+    private final int[] attacks = new int[HexTables.CELLS];
+
+    /**
+     * Creates a new empty index for a board with the specified tables which can hold the specified number of tokens
+     * without growing.
+     *
+     * @param tables   the precomputed tables of the board size.
+     * @param capacity the expected maximal number of registered tokens.
+     */
+    ReachIndex(HexTables tables, int capacity) {
+        this.tables = tables;
+        allocate(Math.max(1, (capacity + WORD_BITS - 1) / WORD_BITS));
+    }
+
+    /**
+     * Returns the smallest id which is not smaller than the specified one and belongs to a token covering the specified field.
+     * Together with {@link #entity(int)} this allows to iterate over all tokens covering a field:
+     * {@code for (int id = reach.next(cell, 0); id >= 0; id = reach.next(cell, id + 1))}.
+     *
+     * @param cell the cell id of the field.
+     * @param from the id to start the search from.
+     * @return the next id of a token covering the field or -1 if there is none.
+     */
+    int next(int cell, int from) {
+        int index = from / WORD_BITS;
+        if (index >= words) {
+            return -1;
+        }
+        int offset = cell * words;
+        long word = bits[offset + index] & (-1L << from);
+        while (word == 0) {
+            if (++index == words) {
+                return -1;
+            }
+            word = bits[offset + index];
+        }
+        return index * WORD_BITS + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Returns the registered token with the specified id.
+     *
+     * @param id the id of the token.
+     * @return the registered token with the specified id.
+     */
+    Entity entity(int id) {
+        return entities[id];
+    }
+
+    /**
+     * Returns the number of registered tokens which have a possible move to the specified field.
+     *
+     * @param cell the cell id of the field.
+     * @return the number of registered tokens with a possible move to the field.
+     */
+    int attacks(int cell) {
+        return attacks[cell];
+    }
+
+    /**
+     * Registers the specified token with its current position and step range.
+     *
+     * @param ent the token which has to be added to the index.
+     */
+    void add(Entity ent) {
+        if (freeCount == 0) {
+            allocate(2 * words);
+        }
+        int id = freeIds[--freeCount];
+        entities[id] = ent;
+        int center = HexTables.cell(ent.getPosition());
+        cover(id, center, 1, ent.getRange(), true);
+        ent.indexedId = id;
+        ent.indexedCell = center;
+        ent.indexedRange = ent.getRange();
+        for (int cell = ent.nextTarget(0); cell >= 0; cell = ent.nextTarget(cell + 1)) {
+            ++attacks[cell];
+        }
+        ent.attacks = attacks;
+    }
+
+    /**
+     * Removes the specified token from the index. Does nothing if the token is not registered.
+     *
+     * @param ent the token which has to be removed from the index.
+     */
+    void remove(Entity ent) {
+        int id = ent.indexedId;
+        if (id < 0) {
+            return;
+        }
+        cover(id, ent.indexedCell, 1, ent.indexedRange, false);
+        entities[id] = null;
+        freeIds[freeCount++] = id;
+        ent.indexedId = -1;
+        for (int cell = ent.nextTarget(0); cell >= 0; cell = ent.nextTarget(cell + 1)) {
+            --attacks[cell];
+        }
+        ent.attacks = null;
+    }
+
+    /**
+     * Brings the registration of the specified token up to date with its current position and step range.
+     * If only the step range has changed, only the fields of the added or removed rings are visited.
+     * Does nothing if the token is not registered.
+     *
+     * @param ent the token whose position or step range has changed.
+     */
+    void update(Entity ent) {
+        int id = ent.indexedId;
+        if (id < 0) {
+            return;
+        }
+        int center = HexTables.cell(ent.getPosition());
+        int range = ent.getRange();
+        if (center == ent.indexedCell) {
+            if (range > ent.indexedRange) {
+                cover(id, center, ent.indexedRange + 1, range, true);
+            } else if (range < ent.indexedRange) {
+                cover(id, center, range + 1, ent.indexedRange, false);
+            }
+        } else {
+            cover(id, ent.indexedCell, 1, ent.indexedRange, false);
+            cover(id, center, 1, range, true);
+            ent.indexedCell = center;
+        }
+        ent.indexedRange = range;
+    }
+
+    /**
+     * Sets or clears the bit of the specified id on all fields on the rings with the radiuses from first to last
+     * around the specified center.
+     *
+     * @param id     the id of the token in question.
+     * @param center the cell id of the center.
+     * @param first  the radius of the first ring.
+     * @param last   the radius of the last ring.
+     * @param set    true if the fields have to be covered, false if they have to be uncovered.
+     */
+    private void cover(int id, int center, int first, int last, boolean set) {
+        int index = id / WORD_BITS;
+        long bit = 1L << id;
+        for (int radius = first; radius <= last; ++radius) {
+            for (int cell : tables.ring(center, radius)) {
+                if (set) {
+                    bits[cell * words + index] |= bit;
+                } else {
+                    bits[cell * words + index] &= ~bit;
+                }
+            }
+        }
+    }
+
+    /**
+     * Allocates room for the specified number of words per field and keeps all registrations.
+     * The new ids are put on the stack of free ids so that the smallest one is handed out first.
+     *
+     * @param newWords the new number of words per field.
+     */
+    private void allocate(int newWords) {
+        long[] newBits = new long[HexTables.CELLS * newWords];
+        for (int cell = 0; cell < HexTables.CELLS; ++cell) {
+            for (int i = 0; i < words; ++i) {
+                newBits[cell * newWords + i] = bits[cell * words + i];
+            }
+        }
+        int oldCapacity = words * WORD_BITS;
+        int newCapacity = newWords * WORD_BITS;
+        entities = entities == null ? new Entity[newCapacity] : Arrays.copyOf(entities, newCapacity);
+        freeIds = freeIds == null ? new int[newCapacity] : Arrays.copyOf(freeIds, newCapacity);
+        for (int id = newCapacity - 1; id >= oldCapacity; --id) {
+            freeIds[freeCount++] = id;
+        }
+        bits = newBits;
+        words = newWords;
+    }
+}
@@ -0,0 +1,106 @@
+package towerwarspp.board;
+
+import towerwarspp.preset.PlayerColor;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class represents the examination of a part of the ordered moves of a player with
+ * {@link Board#selectBest(PlayerColor, MoveList, long[], int, int, AtomicLong)}. A part which is larger than the leaf size is split into halves,
+ * which are examined in parallel. A part which is not larger than the leaf size is examined on a copy of the board,
+ * so that parts can be examined at the same time. The tiers of both halves are always merged left half first,
+ * so that the result does not depend on the order in which the parts are finished. All parts share the rank of the best move
+ * found so far, which only allows them to skip moves that cannot belong to the merged tier.
+ */
+final class ScoringTask extends RecursiveTask<MoveTier> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The smallest number of moves examined on one copy of the board. Copying the board is not worth it for fewer moves.
+     */
+    static final int MIN_LEAF_SIZE = 8;
+
+    /**
+     * The board the moves belong to. It is only read.
+     */
+    private final Board board;
+
+    /**
+     * The color of the player whose moves are examined.
+     */
+    private final PlayerColor ownColor;
+
+    /**
+     * The moves of the player.
+     */
+    private final MoveList candidates;
+
+    /**
+     * The order in which the moves have to be examined.
+     */
+    private final long[] order;
+
+    /**
+     * The first entry of the order which belongs to this part.
+     */
+    private final int from;
+
+    /**
+     * The entry after the last one which belongs to this part.
+     */
+    private final int to;
+
+    /**
+     * The largest number of moves which are examined without splitting the part.
+     */
+    private final int leafSize;
+
+    /**
+     * The smallest rank of all moves examined by any part so far.
+     */
+    private final AtomicLong sharedRank;
+
+    /**
+     * Creates a new task examining the specified part of the ordered moves.
+     *
+     * @param board      the board the moves belong to.
+     * @param ownColor   the color of the player whose moves are examined.
+     * @param candidates the moves of the player.
+     * @param order      the order in which the moves have to be examined.
+     * @param from       the first entry of the order which belongs to this part.
+     * @param to         the entry after the last one which belongs to this part.
+     * @param leafSize   the largest number of moves which are examined without splitting the part.
+     * @param sharedRank the smallest rank of all moves examined by any part so far.
+     */
+    ScoringTask(Board board, PlayerColor ownColor, MoveList candidates, long[] order, int from, int to, int leafSize,
+                AtomicLong sharedRank) {
+        this.board = board;
+        this.ownColor = ownColor;
+        this.candidates = candidates;
+        this.order = order;
+        this.from = from;
+        this.to = to;
+        this.leafSize = leafSize;
+        this.sharedRank = sharedRank;
+    }
+
+    /**
+     * Examines this part of the moves and returns its best tier.
+     *
+     * @return the best tier of the moves of this part.
+     */
+    @Override
+    protected MoveTier compute() {
+        if (to - from <= leafSize) {
+            return board.clone().selectBest(ownColor, candidates, order, from, to, sharedRank);
+        }
+        int middle = (from + to) >>> 1;
+        ScoringTask left = new ScoringTask(board, ownColor, candidates, order, from, middle, leafSize, sharedRank);
+        left.fork();
+        MoveTier right = new ScoringTask(board, ownColor, candidates, order, middle, to, leafSize, sharedRank).compute();
+        MoveTier tier = left.join();
+        tier.merge(right);
+        return tier;
+    }
+}
@@ -4,7 +4,6 @@ import towerwarspp.main.WinType;
 import towerwarspp.preset.*;
 import towerwarspp.util.debug.Debug;
 
-import java.util.HashSet;
 import java.util.Vector;
 
 import static towerwarspp.main.WinType.*;
@@ -12,6 +11,7 @@ import static towerwarspp.preset.PlayerColor.BLUE;
 import static towerwarspp.preset.PlayerColor.RED;
 import static towerwarspp.preset.Status.*;
 import static towerwarspp.util.debug.DebugLevel.LEVEL_1;
+import static towerwarspp.util.debug.DebugLevel.LEVEL_7;
 import static towerwarspp.util.debug.DebugSource.BOARD;
 
 /**
@@ -26,15 +26,25 @@ import static towerwarspp.util.debug.DebugSource.BOARD;
  */
 public class SimpleBoard implements Viewable {
     /**
-     * A list of {@link Hexagon} objects representing all possible directions on the board.
+     * All values of {@link Status} by ordinal. Cached because {@link Status#values()} creates a new array on every call.
      */
-    private final Hexagon[] directions = {new Hexagon(1, 0), new Hexagon(0, 1), new Hexagon(-1, 1),
-            new Hexagon(-1, 0), new Hexagon(0, -1), new Hexagon(1, -1),};
+    private static final Status[] STATUSES = Status.values();
+
+    /**
+     * All values of {@link PlayerColor} by ordinal.
+     */
+    private static final PlayerColor[] COLORS = PlayerColor.values();
+
     /**
      * The size of the board.
      */
     protected int size;
 
+    /**
+     * The precomputed rings around all fields of a board of this size.
+     */
+    private final HexTables tables;
+
     /**
      * The current turn.
      */
@@ -44,13 +54,13 @@ public class SimpleBoard implements Viewable {
      * A list of all potentially movable tokens belonging to the red player.
      * This list contais only stones and towers (blocked and not blocked), but not the base.
      */
-    protected Vector<Entity> listRed = new Vector<Entity>();
+    protected PieceList listRed;
 
     /**
      * A list of all potentially movable tokens belonging to the blue player.
      * This list contais only stones and towers (blocked and not blocked), but not the base.
      */
-    protected Vector<Entity> listBlue = new Vector<Entity>();
+    protected PieceList listBlue;
 
     /**
      * The position of the red base.
@@ -82,6 +92,28 @@ public class SimpleBoard implements Viewable {
      */
     private WinType winType = null;
 
+    /**
+     * Journal of all changes made by the executed moves. It allows to take back moves with {@link #unmakeMove()}
+     * instead of cloning the board before examining a move.
+     */
+    private final UndoJournal journal = new UndoJournal();
+
+    /**
+     * The Zobrist hash of the current position. It is updated with every change of a field while executing a move
+     * and restored from the journal when a move is taken back. See {@link Zobrist}.
+     */
+    private long hash;
+
+    /**
+     * The reverse reachability index of the red tokens: for every field, the red movable tokens which have it inside their step range.
+     */
+    private final ReachIndex reachRed;
+
+    /**
+     * The reverse reachability index of the blue tokens: for every field, the blue movable tokens which have it inside their step range.
+     */
+    private final ReachIndex reachBlue;
+
     /**
      * Initialises a new object of the class SimpleBoard.
      *
@@ -93,7 +125,14 @@ public class SimpleBoard implements Viewable {
         }
         board = new Entity[n + 1][n + 1];
         size = n;
+        tables = HexTables.forSize(n);
+        listRed = new PieceList(stonesPerColor(n));
+        listBlue = new PieceList(stonesPerColor(n));
+        reachRed = new ReachIndex(tables, stonesPerColor(n));
+        reachBlue = new ReachIndex(tables, stonesPerColor(n));
         initialiseBoard();
+        journal.clear();
+        hash = computeHash();
         this.debug = Debug.getInstance();
     }
 
@@ -110,15 +149,39 @@ public class SimpleBoard implements Viewable {
      */
     public SimpleBoard(int size, PlayerColor turn, Vector<Entity> lRed, Vector<Entity> lBlue, Entity[][] board, Position redB, Position blueB) {
         this.size = size;
+        this.tables = HexTables.forSize(size);
+        this.reachRed = new ReachIndex(tables, stonesPerColor(size));
+        this.reachBlue = new ReachIndex(tables, stonesPerColor(size));
         this.turn = turn;
-        this.listRed = lRed;
-        this.listBlue = lBlue;
+        this.listRed = new PieceList(Math.max(stonesPerColor(size), lRed.size()));
+        this.listBlue = new PieceList(Math.max(stonesPerColor(size), lBlue.size()));
         this.board = board;
         this.redBase = redB;
         this.blueBase = blueB;
+        for (Entity ent : lRed) {
+            listRed.add(ent);
+            reachRed.add(ent);
+        }
+        for (Entity ent : lBlue) {
+            listBlue.add(ent);
+            reachBlue.add(ent);
+        }
+        this.hash = computeHash();
         this.debug = Debug.getInstance();
     }
 
+    /**
+     * Returns the number of stones every player has at the beginning of a game on a board of the specified size.
+     * No player can have more movable tokens than this number.
+     *
+     * @param size the size of the board.
+     * @return the number of stones of one color at the beginning of a game.
+     */
+    private static int stonesPerColor(int size) {
+        int d = size / 2;
+        return (d + 1) * (d + 2) / 2 - 1;
+    }
+
     /**
      * Returns the size of the board.
      *
@@ -155,6 +218,16 @@ public class SimpleBoard implements Viewable {
         return winType;
     }
 
+    /**
+     * Returns the Zobrist hash of the current position. Equal positions with the same player to move have equal hashes.
+     * The hash is updated incrementally, so this method is cheap.
+     *
+     * @return the Zobrist hash of the current position.
+     */
+    public long hash() {
+        return hash;
+    }
+
     /**
      * Calculates the distance between two positions on the board.
      *
@@ -163,10 +236,7 @@ public class SimpleBoard implements Viewable {
      * @return the distance between the positions a and b.
      */
     public static int distance(Position a, Position b) {
-        int x = a.getLetter() - b.getLetter();
-        int y = a.getNumber() - b.getNumber();
-        int z = x + y;
-        return (Math.abs(x) + Math.abs(y) + Math.abs(z)) / 2;
+        return HexTables.distance(HexTables.cell(a), HexTables.cell(b));
     }
 
     /**
@@ -195,6 +265,7 @@ public class SimpleBoard implements Viewable {
      * @return actualised status of the board.
      */
     public Status makeMove(Move move) {
+        journal.pushMove(status.ordinal() * 2 + turn.ordinal(), winType, hash);
         if (move == null) {
             winType = SURRENDER;
             status = (turn == RED ? BLUE_WIN : RED_WIN);
@@ -218,19 +289,146 @@ public class SimpleBoard implements Viewable {
         changeEnd(ent, start, end);
         status = checkWin(end);
         turn = (turn == RED ? BLUE : RED);
+        hash ^= Zobrist.SIDE;
+        if (debug.isLogging(LEVEL_7, BOARD) && hash != computeHash()) {
+            debug.send(LEVEL_1, BOARD, "Hash differs from recomputed hash after move " + move.toString());
+        }
         return status;
     }
 
+    /**
+     * Takes back the last move executed by {@link #makeMove(Move)} and restores the exact state of the board
+     * before this move: all tokens with their positions, heights, ranges, possible moves and blocked flags,
+     * the lists of movable tokens, the status, the win type and the turn.
+     *
+     * @return true if a move has been taken back, false if there was no move to take back.
+     */
+    public boolean unmakeMove() {
+        if (journal.moves() == 0) {
+            return false;
+        }
+        while (true) {
+            Entity ent = journal.entity();
+            int arg = journal.arg();
+            Object object = journal.object();
+            switch (journal.op()) {
+                case UndoJournal.MOVE:
+                    status = STATUSES[arg / 2];
+                    turn = COLORS[arg % 2];
+                    winType = (WinType) object;
+                    hash = journal.hash();
+                    journal.pop();
+                    return true;
+                case UndoJournal.SET_ELEMENT:
+                    Position pos = (Position) object;
+                    board[pos.getLetter()][pos.getNumber()] = ent;
+                    break;
+                case UndoJournal.SET_BLOCKED:
+                    ent.setBlocked(arg == 1);
+                    break;
+                case UndoJournal.ADD_MOVE:
+                    ent.removeTarget(HexTables.cell((Position) object));
+                    break;
+                case UndoJournal.REMOVE_MOVE:
+                    ent.addTarget(HexTables.cell((Position) object));
+                    break;
+                case UndoJournal.REMOVE_ALL_MOVES:
+                    ent.restoreRange(arg);
+                    getReach(ent.getColor()).update(ent);
+                    break;
+                case UndoJournal.INC_RANGE:
+                    ent.decRange();
+                    getReach(ent.getColor()).update(ent);
+                    break;
+                case UndoJournal.DEC_RANGE:
+                    ent.restoreRange(ent.getRange() + 1);
+                    getReach(ent.getColor()).update(ent);
+                    break;
+                case UndoJournal.INC_HEIGHT:
+                    ent.decHeight();
+                    break;
+                case UndoJournal.DEC_HEIGHT:
+                    ent.incHeight();
+                    break;
+                case UndoJournal.SET_POSITION:
+                    ent.setPosition((Position) object);
+                    getReach(ent.getColor()).update(ent);
+                    break;
+                case UndoJournal.ADD_TO_LIST:
+                    getEntityList(ent.getColor()).removeLast();
+                    getReach(ent.getColor()).remove(ent);
+                    break;
+                case UndoJournal.REMOVE_FROM_LIST:
+                    getEntityList(ent.getColor()).restore(ent, arg);
+                    getReach(ent.getColor()).add(ent);
+                    break;
+            }
+            journal.pop();
+        }
+    }
+
+    /**
+     * Takes back moves with {@link #unmakeMove()} until only the specified number of moves is left to be taken back.
+     * A search can remember {@link #getHistorySize()} before examining a line of moves and
+     * restore the board afterwards by calling this method.
+     *
+     * @param historySize the number of moves which have to be left in the history.
+     */
+    public void unmakeMovesTo(int historySize) {
+        while (journal.moves() > historySize) {
+            unmakeMove();
+        }
+    }
+
+    /**
+     * Returns the number of moves which can be taken back with {@link #unmakeMove()}.
+     *
+     * @return the number of moves which can be taken back.
+     */
+    public int getHistorySize() {
+        return journal.moves();
+    }
+
+    /**
+     * Forgets all executed moves so that they can no longer be taken back. Should be called on boards which
+     * follow a running game and never take back moves in order to release the memory held by the journal.
+     */
+    public void clearHistory() {
+        journal.clear();
+    }
+
     /**
      * Returns the list of movable tokens of the specified color.
      *
      * @param col the color of the tokens in question.
      * @return the list of movable tokens of the specified color.
      */
-    protected Vector<Entity> getEntityList(PlayerColor col) {
+    protected PieceList getEntityList(PlayerColor col) {
         return (col == RED ? listRed : listBlue);
     }
 
+    /**
+     * Returns the reverse reachability index of the movable tokens of the specified color.
+     *
+     * @param col the color of the tokens in question.
+     * @return the reverse reachability index of the movable tokens of the specified color.
+     */
+    private ReachIndex getReach(PlayerColor col) {
+        return (col == RED ? reachRed : reachBlue);
+    }
+
+    /**
+     * Returns the number of movable tokens of the specified color which have a possible move to the specified position.
+     * The counts are maintained together with the possible moves, so this method takes constant time.
+     *
+     * @param col the color of the tokens in question.
+     * @param pos the position in question.
+     * @return the number of tokens of the color col which can move to the position pos.
+     */
+    public int attackCount(PlayerColor col, Position pos) {
+        return getReach(col).attacks(HexTables.cell(pos));
+    }
+
     /**
      * Returns the token located on the specified position on the board.
      *
@@ -241,6 +439,17 @@ public class SimpleBoard implements Viewable {
         return board[pos.getLetter()][pos.getNumber()];
     }
 
+    /**
+     * Returns the entity on the field with the specified cell id (see {@link Position#index()}) or null if the field is
+     * empty. Does not create a {@link Position} object.
+     *
+     * @param cell the cell id of the field.
+     * @return the entity on the field or null.
+     */
+    protected Entity getElement(int cell) {
+        return board[HexTables.letter(cell)][HexTables.number(cell)];
+    }
+
     /**
      * Puts the specified token on the specified position on the board.
      *
@@ -248,6 +457,7 @@ public class SimpleBoard implements Viewable {
      * @param pos position for the specified token to be placed on.
      */
     private void setElement(Entity ent, Position pos) {
+        journal.push(UndoJournal.SET_ELEMENT, board[pos.getLetter()][pos.getNumber()], 0, pos);
         board[pos.getLetter()][pos.getNumber()] = ent;
     }
 
@@ -258,6 +468,7 @@ public class SimpleBoard implements Viewable {
      * @param block specifies if the tower in question has to be blocked or unblocked (if block == true, the tower has to be blocked).
      */
     private void setBlocked(Entity tower, boolean block) {
+        journal.push(UndoJournal.SET_BLOCKED, tower, tower.isBlocked() ? 1 : 0, null);
         tower.setBlocked(block);
     }
 
@@ -269,7 +480,9 @@ public class SimpleBoard implements Viewable {
      * @param range distance to the position pos from the token's current position.
      */
     private void addMove(Entity ent, Position pos, int range) {
-        ent.addMove(pos, range);
+        if (ent.addMove(pos, range)) {
+            journal.push(UndoJournal.ADD_MOVE, ent, range, pos);
+        }
     }
 
     /**
@@ -280,16 +493,26 @@ public class SimpleBoard implements Viewable {
      * @param range distance to the position pos from the token's current position.
      */
     private void removeMove(Entity ent, Position pos, int range) {
-        ent.removeMove(pos, range);
+        if (ent.removeMove(pos, range)) {
+            journal.push(UndoJournal.REMOVE_MOVE, ent, range, pos);
+        }
     }
 
     /**
-     * Removes all moves of the specified token.
+     * Removes all moves of the specified token. Every removed move is journaled on its own,
+     * so that taking back this change does not need a copy of the token's moves.
      *
      * @param ent the token whose moves have to be removed.
      */
     private void removeAllMoves(Entity ent) {
+        int start = HexTables.cell(ent.getPosition());
+        for (int cell = ent.nextTarget(0); cell >= 0; cell = ent.nextTarget(cell + 1)) {
+            ent.removeTarget(cell);
+            journal.push(UndoJournal.REMOVE_MOVE, ent, HexTables.distance(start, cell), HexTables.position(cell));
+        }
+        journal.push(UndoJournal.REMOVE_ALL_MOVES, ent, ent.getRange(), null);
         ent.removeAllMoves();
+        getReach(ent.getColor()).update(ent);
     }
 
     /**
@@ -302,8 +525,8 @@ public class SimpleBoard implements Viewable {
     private void addRanges(Entity stone, int n) {
         for (int i = 0; i < n; ++i) {
             incRange(stone);
-            Vector<Position> opponents = findPositionsInRange(stone.getPosition(), stone.getRange());
-            for (Position opponentPos : opponents) {
+            for (int cell : tables.ring(HexTables.cell(stone.getPosition()), stone.getRange())) {
+                Position opponentPos = HexTables.position(cell);
                 if (checkMoveForStone(opponentPos, stone.getColor(), stone.getRange())) {
                     addMove(stone, opponentPos, stone.getRange());
                 }
@@ -331,7 +554,9 @@ public class SimpleBoard implements Viewable {
      * @param ent the token whose step range has to be increased.
      */
     private void incRange(Entity ent) {
+        journal.push(UndoJournal.INC_RANGE, ent, 0, null);
         ent.incRange();
+        getReach(ent.getColor()).update(ent);
     }
 
     /**
@@ -341,7 +566,13 @@ public class SimpleBoard implements Viewable {
      * @param ent the token whose step range has to be decreased.
      */
     private void decRange(Entity ent) {
+        int range = ent.getRange();
+        for (int cell : tables.ring(HexTables.cell(ent.getPosition()), range)) {
+            removeMove(ent, HexTables.position(cell), range);
+        }
+        journal.push(UndoJournal.DEC_RANGE, ent, 0, null);
         ent.decRange();
+        getReach(ent.getColor()).update(ent);
     }
 
     /**
@@ -350,6 +581,7 @@ public class SimpleBoard implements Viewable {
      * @param tower the token whose height has to be increased.
      */
     private void incHeight(Entity tower) {
+        journal.push(UndoJournal.INC_HEIGHT, tower, 0, null);
         tower.incHeight();
     }
 
@@ -359,6 +591,7 @@ public class SimpleBoard implements Viewable {
      * @param tower the token whose height has to be decreased.
      */
     private void decHeight(Entity tower) {
+        journal.push(UndoJournal.DEC_HEIGHT, tower, 0, null);
         tower.decHeight();
     }
 
@@ -369,7 +602,9 @@ public class SimpleBoard implements Viewable {
      * @param pos the new position.
      */
     private void setPosition(Entity ent, Position pos) {
+        journal.push(UndoJournal.SET_POSITION, ent, 0, ent.getPosition());
         ent.setPosition(pos);
+        getReach(ent.getColor()).update(ent);
     }
 
     /**
@@ -378,8 +613,9 @@ public class SimpleBoard implements Viewable {
      * @param ent the token in question.
      */
     private void addToList(Entity ent) {
-        Vector<Entity> list = (ent.getColor() == RED ? listRed : listBlue);
-        list.add(ent);
+        journal.push(UndoJournal.ADD_TO_LIST, ent, 0, null);
+        getEntityList(ent.getColor()).add(ent);
+        getReach(ent.getColor()).add(ent);
     }
 
     /**
@@ -388,9 +624,11 @@ public class SimpleBoard implements Viewable {
      * @param ent the token in question.
      */
     private void removeFromList(Entity ent) {
-        Vector<Entity> list = (ent.getColor() == RED ? listRed : listBlue);
-        list.remove(ent);
-
+        int index = getEntityList(ent.getColor()).remove(ent);
+        if (index >= 0) {
+            journal.push(UndoJournal.REMOVE_FROM_LIST, ent, index, null);
+            getReach(ent.getColor()).remove(ent);
+        }
     }
 
     /**
@@ -420,8 +658,9 @@ public class SimpleBoard implements Viewable {
      * @return true if the player of the color col has at least one move.
      */
     private boolean hasMoves(PlayerColor col) {
-        Vector<Entity> list = getEntityList(col);
-        for (Entity ent : list) {
+        PieceList list = getEntityList(col);
+        for (int i = 0; i < list.size(); ++i) {
+            Entity ent = list.get(i);
             if (ent.isMovable()) {
                 return true;
             }
@@ -429,41 +668,6 @@ public class SimpleBoard implements Viewable {
         return false;
     }
 
-    /**
-     * Returns all positions on the board which lay on the ring with the specified center and the specified radius.
-     *
-     * @param center position of the ring's center.
-     * @param radius the ring's radius.
-     * @return all positions on the board which lay on the ring with the specified center and the specified radius.
-     */
-    private Vector<Position> findPositionsInRange(Position center, int radius) {
-        Vector<Position> result = new Vector<Position>(radius * 6);
-        Hexagon curHex = new Hexagon(center);
-        Hexagon direction = new Hexagon(directions[4]);
-        direction.scale(radius);
-        curHex.add(direction);
-        for (int i = 0; i < 6; ++i) {
-            for (int j = 0; j < radius; ++j) {
-                if (isOnBoard(curHex.getX(), curHex.getY())) {
-                    result.add(new Position(curHex.getX(), curHex.getY()));
-                }
-                curHex.add(directions[i]);
-            }
-        }
-        return result;
-    }
-
-    /**
-     * Returns true if the position with the specified coordinates lays on the board.
-     *
-     * @param x x-coordinate of the position in question.
-     * @param y y-coordinate of the position in question.
-     * @return true if the position (x, y) lays on the board.
-     */
-    private boolean isOnBoard(int x, int y) {
-        return x >= 1 && y >= 1 && x <= size && y <= size;
-    }
-
     /**
      * Conducts changes caused by the current move, which is specified for the token ent, in respect to its start position.
      * If the moving token is a tower;
@@ -479,15 +683,17 @@ public class SimpleBoard implements Viewable {
      * @return the stone which is to be placed on the end position of the current move.
      */
     private Entity changeStart(Entity ent, Position start) {
+        hash ^= Zobrist.key(ent);
         if (ent.isTower()) {
             actualiseTowerRemoveStone(ent);
+            hash ^= Zobrist.key(ent);
             Entity newStone = new Entity(start, ent.getColor(), size);
             addToList(newStone);
             return newStone;
         }
         setElement(null, start);
-        Vector<Position> neighbours = findPositionsInRange(start, 1);
-        for (Position neighbour : neighbours) {
+        for (int cell : tables.neighbours(HexTables.cell(start))) {
+            Position neighbour = HexTables.position(cell);
             actualiseTowerNeighbourIsEmpty(start, neighbour, ent.getColor());
         }
         return ent;
@@ -559,6 +765,10 @@ public class SimpleBoard implements Viewable {
         setPosition(ent, end);
         Entity opponent = getElement(end);
         if (opponent == null || opponent.isBase()) {
+            hash ^= Zobrist.key(ent);
+            if (opponent != null) {
+                hash ^= Zobrist.key(opponent);
+            }
             setElement(ent, end);
             if (opponent == null) {
                 findStoneMoves(ent);
@@ -584,7 +794,9 @@ public class SimpleBoard implements Viewable {
             unblockTower(opponent, ent);
         } else {
             removeFromList(ent);
+            hash ^= Zobrist.key(opponent);
             actualiseTowerAddStone(opponent);
+            hash ^= Zobrist.key(opponent);
         }
     }
 
@@ -602,7 +814,9 @@ public class SimpleBoard implements Viewable {
      */
     private void blockTower(Entity tower, Entity blockingStone) {
         actualiseTowerNeighboursRemoveRanges(tower, tower.getHeight());
+        hash ^= Zobrist.key(tower);
         setBlocked(tower, true);
+        hash ^= Zobrist.key(tower);
         removeAllMoves(tower);
         if (tower.isMaxHeight()) {
             positionOpened(tower.getPosition(), tower.getColor());
@@ -625,7 +839,9 @@ public class SimpleBoard implements Viewable {
      * @param unblockingStone the stone which is going to unblock the tower.
      */
     private void unblockTower(Entity tower, Entity unblockingStone) {
+        hash ^= Zobrist.key(tower);
         setBlocked(tower, false);
+        hash ^= Zobrist.key(tower);
         removeFromList(unblockingStone);
         findTowerMoves(tower);
         actualiseOwnTowerUnblockedOrIncreased(tower, tower.getHeight());
@@ -643,6 +859,7 @@ public class SimpleBoard implements Viewable {
      * @param removingStone the stone which is going to beat the specified opponent's token and take its place on the board.
      */
     private void removeToken(Entity ent, Entity removingStone) {
+        hash ^= Zobrist.key(ent) ^ Zobrist.key(removingStone);
         setElement(removingStone, ent.getPosition());
         removeFromList(ent);
         findStoneMoves(removingStone);
@@ -676,8 +893,10 @@ public class SimpleBoard implements Viewable {
      *                  of the specified color (forAll == true) or only for those which can reach the position with a remote move (forAll == false).
      */
     private void positionClosed(Position closedPos, PlayerColor col, boolean forAll) {
-        Vector<Entity> list = getEntityList(col);
-        for (Entity ent : list) {
+        ReachIndex reach = getReach(col);
+        int cell = HexTables.cell(closedPos);
+        for (int id = reach.next(cell, 0); id >= 0; id = reach.next(cell, id + 1)) {
+            Entity ent = reach.entity(id);
             int dist = distance(closedPos, ent.getPosition());
             if (!forAll && dist == 1) {
                 continue;
@@ -694,13 +913,12 @@ public class SimpleBoard implements Viewable {
      * @param col       the color of the tokens which are now allowed to go to the position openedPos if they can reach it.
      */
     private void positionOpened(Position openedPos, PlayerColor col) {
-        Vector<Entity> list = (col == RED ? listRed : listBlue);
-        for (Entity ent : list) {
+        ReachIndex reach = getReach(col);
+        int cell = HexTables.cell(openedPos);
+        for (int id = reach.next(cell, 0); id >= 0; id = reach.next(cell, id + 1)) {
+            Entity ent = reach.entity(id);
             if (!ent.isBlocked()) {
-                int dist = distance(openedPos, ent.getPosition());
-                if (ent.getRange() >= dist) {
-                    addMove(ent, openedPos, dist);
-                }
+                addMove(ent, openedPos, distance(openedPos, ent.getPosition()));
             }
         }
     }
@@ -713,13 +931,12 @@ public class SimpleBoard implements Viewable {
      * @param col       the color of the stones which are now allowed to go to the position openedPos if they can reach it.
      */
     private void positionOpenedStonesOnly(Position openedPos, PlayerColor col) {
-        Vector<Entity> list = (col == RED ? listRed : listBlue);
-        for (Entity ent : list) {
+        ReachIndex reach = getReach(col);
+        int cell = HexTables.cell(openedPos);
+        for (int id = reach.next(cell, 0); id >= 0; id = reach.next(cell, id + 1)) {
+            Entity ent = reach.entity(id);
             if (!ent.isTower()) {
-                int dist = distance(openedPos, ent.getPosition());
-                if (ent.getRange() >= dist) {
-                    addMove(ent, openedPos, dist);
-                }
+                addMove(ent, openedPos, distance(openedPos, ent.getPosition()));
             }
         }
     }
@@ -734,9 +951,11 @@ public class SimpleBoard implements Viewable {
      * @param change the necessary change in the step range: will be subtracted from the current range values of the neighbouring stones.
      */
     private void actualiseTowerNeighboursRemoveRanges(Entity tower, int change) {
-        HashSet<Move> moves = tower.getMoves().get(1);
-        for (Move move : moves) {
-            Entity ent = getElement(move.getEnd());
+        for (int cell : tables.neighbours(HexTables.cell(tower.getPosition()))) {
+            if (!tower.hasTarget(cell)) {
+                continue;
+            }
+            Entity ent = getElement(HexTables.position(cell));
             if (ent != null && !ent.isTower()) {
                 removeRanges(ent, change);
             }
@@ -756,9 +975,11 @@ public class SimpleBoard implements Viewable {
      * @param change the necessary change in the step range: will be added to the current range values of the neighbouring stones.
      */
     private void actualiseOwnTowerUnblockedOrIncreased(Entity tower, int change) {
-        HashSet<Move> moves = tower.getMoves().get(1);
-        for (Move move : moves) {
-            Entity ent = getElement(move.getEnd());
+        for (int cell : tables.neighbours(HexTables.cell(tower.getPosition()))) {
+            if (!tower.hasTarget(cell)) {
+                continue;
+            }
+            Entity ent = getElement(HexTables.position(cell));
             if (ent != null && !ent.isTower()) {
                 addRanges(ent, change);
             }
@@ -802,8 +1023,8 @@ public class SimpleBoard implements Viewable {
      *                        for the towers of th other color (if so, openForOpponent == true).
      */
     private void positionClosedAndOpenedForTowers(Position pos, PlayerColor col, boolean openForOpponent) {
-        Vector<Position> neighbours = findPositionsInRange(pos, 1);
-        for (Position neighbour : neighbours) {
+        for (int cell : tables.neighbours(HexTables.cell(pos))) {
+            Position neighbour = HexTables.position(cell);
             Entity ent = getElement(neighbour);
             if (ent != null && ent.isTower() && !ent.isBlocked()) {
                 if (ent.getColor() == col) {
@@ -863,8 +1084,8 @@ public class SimpleBoard implements Viewable {
      */
     private void findTowerMoves(Entity tower) {
         removeAllMoves(tower);
-        Vector<Position> positions = findPositionsInRange(tower.getPosition(), 1);
-        for (Position endPos : positions) {
+        for (int cell : tables.neighbours(HexTables.cell(tower.getPosition()))) {
+            Position endPos = HexTables.position(cell);
             if (checkMoveForTower(endPos, tower.getColor())) {
                 addMove(tower, endPos, 1);
             }
@@ -879,8 +1100,8 @@ public class SimpleBoard implements Viewable {
     private void findStoneMoves(Entity stone) {
         removeAllMoves(stone);
         int addRanges = 0;    //additional step range
-        Vector<Position> closeNeighbours = findPositionsInRange(stone.getPosition(), 1);
-        for (Position neighbourPos : closeNeighbours) {
+        for (int cell : tables.neighbours(HexTables.cell(stone.getPosition()))) {
+            Position neighbourPos = HexTables.position(cell);
             Entity neighbour = getElement(neighbourPos);
             if (checkMoveForStone(neighbourPos, stone.getColor(), 1)) {
                 addMove(stone, neighbourPos, 1);
@@ -900,9 +1121,9 @@ public class SimpleBoard implements Viewable {
      * 2. adds all entities except the bases to the corresponding red and blue lists of entities (lists of movable tokens).
      */
     private void initialiseBoard() {
-        redBase = new Position(1, 1);
+        redBase = Position.of(1, 1);
         setElement(new Entity(redBase, RED, size, true), redBase);
-        blueBase = new Position(size, size);
+        blueBase = Position.of(size, size);
         setElement(new Entity(blueBase, BLUE, size, true), blueBase);
         int d = size / 2;
         initialiseEntities(redBase, d, RED, listRed);
@@ -922,16 +1143,36 @@ public class SimpleBoard implements Viewable {
      * @param col  the color of the player whose entities have to be created and set on the board.
      * @param list the list where all newly created entities have to be stored.
      */
-    private void initialiseEntities(Position base, int dist, PlayerColor col, Vector<Entity> list) {
+    private void initialiseEntities(Position base, int dist, PlayerColor col, PieceList list) {
         for (int i = 1; i <= dist; ++i) {
-            Vector<Position> positions = findPositionsInRange(base, i);
-            for (Position pos : positions) {
+            for (int cell : tables.ring(HexTables.cell(base), i)) {
+                Position pos = HexTables.position(cell);
                 Entity ent = new Entity(pos, col, size);
                 setElement(ent, pos);
                 findStoneMoves(ent);
                 list.add(ent);
+                getReach(col).add(ent);
+            }
+        }
+    }
+
+    /**
+     * Computes the Zobrist hash of the current position from scratch by XOR-ing the keys of all occupied fields
+     * and the key of the player to move.
+     *
+     * @return the Zobrist hash of the current position.
+     */
+    private long computeHash() {
+        long h = (turn == BLUE ? Zobrist.SIDE : 0);
+        for (int letter = 1; letter <= size; ++letter) {
+            for (int number = 1; number <= size; ++number) {
+                Entity ent = board[letter][number];
+                if (ent != null) {
+                    h ^= Zobrist.key(ent);
+                }
             }
         }
+        return h;
     }
 
     /**
@@ -0,0 +1,228 @@
+package towerwarspp.board;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a compact journal of all elementary changes which have been made on a {@link SimpleBoard}
+ * while executing moves. Every change is stored as one entry consisting of an operation code, the affected {@link Entity},
+ * an integer argument and an optional object argument. The entries are kept in parallel arrays, so that recording a change
+ * does not create a new object.
+ * The beginning of every move is marked by an entry with the operation code {@link #MOVE}, which allows the board
+ * to take back exactly one move by reverting all entries up to and including the last marker.
+ */
+class UndoJournal {
+    /**
+     * Marks the beginning of a move. The integer argument stores the previous status and turn, the object argument the previous win type.
+     * The previous hash of the board is stored separately and can be read with {@link #hash()}.
+     */
+    static final int MOVE = 0;
+    /**
+     * A field of the board has been changed. The entity is the previous content, the object is the position of the field.
+     */
+    static final int SET_ELEMENT = 1;
+    /**
+     * The blocked flag of an entity has been changed. The integer argument is 1 if the entity was blocked before.
+     */
+    static final int SET_BLOCKED = 2;
+    /**
+     * A move has been added to an entity. The object is the end position, the integer argument its range.
+     */
+    static final int ADD_MOVE = 3;
+    /**
+     * A move has been removed from an entity. The object is the end position, the integer argument its range.
+     */
+    static final int REMOVE_MOVE = 4;
+    /**
+     * All moves of an entity have been removed. The integer argument is the previous range.
+     * The removed moves are journaled as single {@link #REMOVE_MOVE} changes before this one.
+     */
+    static final int REMOVE_ALL_MOVES = 5;
+    /**
+     * The range of an entity has been increased by one.
+     */
+    static final int INC_RANGE = 6;
+    /**
+     * The range of an entity has been decreased by one.
+     * The discarded moves of the former range are journaled as single {@link #REMOVE_MOVE} changes before this one.
+     */
+    static final int DEC_RANGE = 7;
+    /**
+     * The height of an entity has been increased by one.
+     */
+    static final int INC_HEIGHT = 8;
+    /**
+     * The height of an entity has been decreased by one.
+     */
+    static final int DEC_HEIGHT = 9;
+    /**
+     * The position of an entity has been changed. The object is the previous position.
+     */
+    static final int SET_POSITION = 10;
+    /**
+     * An entity has been appended to the list of movable tokens of its color.
+     */
+    static final int ADD_TO_LIST = 11;
+    /**
+     * An entity has been removed from the list of movable tokens of its color. The integer argument is its former slot in the list,
+     * which has been taken by the last entity of the list.
+     */
+    static final int REMOVE_FROM_LIST = 12;
+
+    /**
+     * The initial capacity of the journal.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Operation codes of all entries.
+     */
+    private int[] ops = new int[INITIAL_CAPACITY];
+
+    /**
+     * Integer arguments of all entries.
+     */
+    private int[] args = new int[INITIAL_CAPACITY];
+
+    /**
+     * Affected entities of all entries.
+     */
+    private Entity[] entities = new Entity[INITIAL_CAPACITY];
+
+    /**
+     * Object arguments of all entries.
+     */
+    private Object[] objects = new Object[INITIAL_CAPACITY];
+
+    /**
+     * Hashes of the board before every stored move indexed by the number of the move.
+     */
+    private long[] hashes = new long[INITIAL_CAPACITY];
+
+    /**
+     * The number of entries currently stored.
+     */
+    private int size = 0;
+
+    /**
+     * The number of moves currently stored.
+     */
+    private int moves = 0;
+
+    /**
+     * Appends a new entry to the journal.
+     *
+     * @param op     the operation code of the change.
+     * @param ent    the affected entity (may be null).
+     * @param arg    the integer argument of the change.
+     * @param object the object argument of the change (may be null).
+     */
+    void push(int op, Entity ent, int arg, Object object) {
+        if (size == ops.length) {
+            int capacity = size * 2;
+            ops = Arrays.copyOf(ops, capacity);
+            args = Arrays.copyOf(args, capacity);
+            entities = Arrays.copyOf(entities, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+        }
+        ops[size] = op;
+        args[size] = arg;
+        entities[size] = ent;
+        objects[size] = object;
+        ++size;
+        if (op == MOVE) {
+            ++moves;
+        }
+    }
+
+    /**
+     * Appends a new entry with the operation code {@link #MOVE} to the journal which marks the beginning of a move.
+     *
+     * @param arg    the previous status and turn.
+     * @param object the previous win type.
+     * @param hash   the hash of the board before the move.
+     */
+    void pushMove(int arg, Object object, long hash) {
+        if (moves == hashes.length) {
+            hashes = Arrays.copyOf(hashes, moves * 2);
+        }
+        hashes[moves] = hash;
+        push(MOVE, null, arg, object);
+    }
+
+    /**
+     * Removes the last entry from the journal. Its values have to be read with {@link #op()}, {@link #entity()},
+     * {@link #arg()} and {@link #object()} before.
+     */
+    void pop() {
+        --size;
+        if (ops[size] == MOVE) {
+            --moves;
+        }
+        entities[size] = null;
+        objects[size] = null;
+    }
+
+    /**
+     * Returns the operation code of the last entry.
+     *
+     * @return the operation code of the last entry.
+     */
+    int op() {
+        return ops[size - 1];
+    }
+
+    /**
+     * Returns the integer argument of the last entry.
+     *
+     * @return the integer argument of the last entry.
+     */
+    int arg() {
+        return args[size - 1];
+    }
+
+    /**
+     * Returns the entity of the last entry.
+     *
+     * @return the entity of the last entry.
+     */
+    Entity entity() {
+        return entities[size - 1];
+    }
+
+    /**
+     * Returns the object argument of the last entry.
+     *
+     * @return the object argument of the last entry.
+     */
+    Object object() {
+        return objects[size - 1];
+    }
+
+    /**
+     * Returns the hash of the board before the last stored move.
+     *
+     * @return the hash of the board before the last stored move.
+     */
+    long hash() {
+        return hashes[moves - 1];
+    }
+
+    /**
+     * Returns the number of moves which are stored in the journal and can be taken back.
+     *
+     * @return the number of stored moves.
+     */
+    int moves() {
+        return moves;
+    }
+
+    /**
+     * Removes all entries from the journal.
+     */
+    void clear() {
+        Arrays.fill(entities, 0, size, null);
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+        moves = 0;
+    }
+}
@@ -0,0 +1,116 @@
+package towerwarspp.board;
+
+import towerwarspp.preset.PlayerColor;
+
+import java.util.Random;
+
+/**
+ * This class holds the random keys used for Zobrist hashing of board positions.
+ * Every possible state of a field - a base of one of both colors or a token of one of both colors with a certain height
+ * which is blocked or not - has its own 64-bit key for every field of the board. The hash of a position is the XOR of the keys
+ * of all occupied fields and the key {@link #SIDE} if it is the blue player's turn.
+ * Since XOR is its own inverse, a board can keep its hash up to date by XOR-ing the keys of the old and the new state
+ * of every changed field.
+ * The keys are generated with a fixed seed, so that the hash of a position is the same in every run of the program
+ * and can be used to recognise positions across stored games.
+ */
+final class Zobrist {
+    /**
+     * The maximal height of a tower on the largest board.
+     */
+    private static final int MAX_HEIGHT = 26 / 3;
+
+    /**
+     * The number of different states of an occupied field: two bases and, for both colors, every height blocked or not.
+     */
+    private static final int STATES = 2 + 2 * (MAX_HEIGHT + 1) * 2;
+
+    /**
+     * The seed of the random keys.
+     */
+    private static final long SEED = 0x546f776572576172L;
+
+    /**
+     * The key of every state of every field indexed by cell id * {@link #STATES} + state.
+     */
+    private static final long[] KEYS = new long[HexTables.CELLS * STATES];
+
+    /**
+     * The key which is added to the hash if it is the blue player's turn.
+     */
+    static final long SIDE;
+
+    static {
+        Random random = new Random(SEED);
+        for (int i = 0; i < KEYS.length; ++i) {
+            KEYS[i] = random.nextLong();
+        }
+        SIDE = random.nextLong();
+    }
+
+    /**
+     * The class only holds static keys and must not be instantiated.
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a field with the specified cell id which contains a token with the specified properties.
+     *
+     * @param cell    the cell id of the field.
+     * @param color   the color of the token.
+     * @param height  the height of the token.
+     * @param blocked true if the token is a blocked tower.
+     * @param base    true if the token is a base.
+     * @return the key of the field in this state.
+     */
+    static long key(int cell, PlayerColor color, int height, boolean blocked, boolean base) {
+        return key(cell, color.ordinal(), height, blocked, base);
+    }
+
+    /**
+     * Returns the key of a field with the specified cell id which contains a token with the specified properties.
+     *
+     * @param cell    the cell id of the field.
+     * @param color   the ordinal of the token's color.
+     * @param height  the height of the token.
+     * @param blocked true if the token is a blocked tower.
+     * @param base    true if the token is a base.
+     * @return the key of the field in this state.
+     */
+    private static long key(int cell, int color, int height, boolean blocked, boolean base) {
+        int state;
+        if (base) {
+            state = color;
+        } else {
+            state = 2 + ((color * (MAX_HEIGHT + 1) + height) << 1) + (blocked ? 1 : 0);
+        }
+        return KEYS[cell * STATES + state];
+    }
+
+    /**
+     * Returns the key of the specified token on its current position.
+     *
+     * @param ent the token in question.
+     * @return the key of the token's field in the token's current state.
+     */
+    static long key(Entity ent) {
+        return key(HexTables.cell(ent.getPosition()), ent.getColor(), ent.getHeight(), ent.isBlocked(), ent.isBase());
+    }
+
+    /**
+     * Returns the key of a field with the specified cell id and the specified packed value as stored by {@link PackedBoard}.
+     *
+     * @param cell  the cell id of the field.
+     * @param value the packed value of the field.
+     * @return the key of the field in this state or 0 if the field is empty.
+     */
+    static long key(int cell, int value) {
+        int color = value & PackedBoard.COLOR_MASK;
+        if (color == 0) {
+            return 0;
+        }
+        return key(cell, color - 1, PackedBoard.height(value),
+                (value & PackedBoard.BLOCKED) != 0, (value & PackedBoard.BASE) != 0);
+    }
+}
@@ -12,12 +12,19 @@ import towerwarspp.main.tournament.TResult;
 import towerwarspp.main.tournament.Tournament;
 import towerwarspp.network.Remote;
 import towerwarspp.player.*;
+import towerwarspp.player.book.OpeningBook;
 import towerwarspp.player.mcts.Mcts;
+import towerwarspp.player.mcts.ParallelizationMode;
+import towerwarspp.player.mcts.SearchSettings;
 import towerwarspp.player.mcts.TreeSelectionStrategy;
+import towerwarspp.player.tablebase.Tablebase;
 import towerwarspp.preset.*;
 import towerwarspp.util.debug.Debug;
 import towerwarspp.util.debug.DebugLevel;
 
+import java.io.File;
+import java.io.IOException;
+
 /**
  * Class AgeOfTower - main class to start a new game of TowerWarsPP.
  *
@@ -99,6 +106,13 @@ public class AgeOfTowers {
                     debug.setSource(ap.getDebugSource());
             }
 
+            if (ap.isSet("tablebase")) {
+                installTablebase(ap.getTablebase());
+            }
+            if (ap.isSet("book")) {
+                installBook(ap.getBook());
+            }
+
             if (ap.isSet("graphic")) {
                 System.out.println("Flag --graphic is deprecated. Standard output type is graphic. If you wish to" +
                         "play with text or no output, set -output setting.");
@@ -296,7 +310,7 @@ public class AgeOfTowers {
                 player = new RndPlayer();
                 break;
             case SIMPLE_AI:
-                player = new SimplePlayer();
+                player = createSimplePlayer();
                 break;
             case ADVANCED_AI_1:
                 player = new Adv1Player();
@@ -304,6 +318,9 @@ public class AgeOfTowers {
             case ADVANCED_AI_2:
                 player = createAdv2Player();
                 break;
+            case ADVANCED_AI_3:
+                player = createAdv3Player();
+                break;
             case REMOTE:
                 player = getRemotePlayer();
                 break;
@@ -314,6 +331,24 @@ public class AgeOfTowers {
         return player;
     }
 
+    /**
+     * Creates a Simple-Player with the parallelism stored within the {@link ArgumentParser}. Without this setting
+     * the player uses as many Threads as processors are available.
+     *
+     * @return the created simple-Player object
+     */
+    private SimplePlayer createSimplePlayer() {
+        int parallelFactor = Runtime.getRuntime().availableProcessors();
+        try {
+            if (ap.isSet("parallel"))
+                parallelFactor = ap.getParrallelFactor();
+        } catch (ArgumentParserException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+        return new SimplePlayer(parallelFactor);
+    }
+
     /**
      * Creates an Adv2-Player with the settings stored within the {@link ArgumentParser}.
      *
@@ -326,6 +361,7 @@ public class AgeOfTowers {
         int parallelFactor = Adv2Player.DEF_PARALLELIZATION;
         double bias = Mcts.DEF_BIAS;
         boolean fairPlay = false;
+        SearchSettings settings = new SearchSettings();
         try {
 
             if (ap.isSet("tstrategy"))
@@ -334,17 +370,81 @@ public class AgeOfTowers {
                 playStrategy = ap.getPlayStrategy();
             if (ap.isSet("thinktime"))
                 timePerMove = ap.getThinkingTime();
-            if (ap.isSet("prallel"))
+            if (ap.isSet("parallel"))
                 parallelFactor = ap.getParrallelFactor();
             if (ap.isSet("bias"))
                 bias = ap.getBias();
+            if (ap.isSet("engine"))
+                settings.setEngineType(ap.getEngineType());
+            if (ap.isSet("pmode"))
+                settings.setParallelizationMode(ap.getParallelizationMode());
+            if (ap.isSet("nodes"))
+                settings.setNodeCap(ap.getNodeCap());
+            if (ap.isSet("rave"))
+                settings.setRaveEquivalence(ap.getRaveEquivalence());
+            if (ap.isSet("widening"))
+                settings.setWidening(ap.getWidening());
+            if (ap.isSet("pdepth"))
+                settings.setPlayoutDepth(ap.getPlayoutDepth());
             fairPlay = ap.isFairplay();
+            settings.setTranspositions(ap.isTranspositions());
+            int treeCount = settings.getParallelizationMode() == ParallelizationMode.ROOT ? parallelFactor : 1;
+            if (settings.getNodeCap() < treeCount * Mcts.MIN_NODES_PER_TREE)
+                throw new ArgumentParserException("nodes argument must be at least " + Mcts.MIN_NODES_PER_TREE
+                        + " per search tree.");
+
+        } catch (ArgumentParserException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        }
+        return new Adv2Player(timePerMove, parallelFactor, treeSelectionStrategy, playStrategy, fairPlay, bias, settings);
+    }
 
+    /**
+     * Maps the tablebase file with the specified name into memory and installs it for its board size, so that the AI players
+     * play perfectly in all positions it covers. Exits if the file can not be read.
+     *
+     * @param fileName name of a file written by {@link towerwarspp.player.tablebase.TablebaseGenerator}
+     */
+    private void installTablebase(String fileName) {
+        try {
+            Tablebase.install(new Tablebase(new File(fileName)));
+        } catch (IOException e) {
+            System.out.println("Could not load tablebase: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Maps the opening book file with the specified name into memory and installs it for its board size, so that the AI
+     * players answer the positions it contains without searching. Exits if the file can not be read.
+     *
+     * @param fileName name of a file written by {@link towerwarspp.player.book.BookBuilder}
+     */
+    private void installBook(String fileName) {
+        try {
+            OpeningBook.install(new OpeningBook(new File(fileName)));
+        } catch (IOException e) {
+            System.out.println("Could not load opening book: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates an Adv3-Player with the think time stored within the {@link ArgumentParser}.
+     *
+     * @return the created adv3-Player object
+     */
+    private Adv3Player createAdv3Player() {
+        long timePerMove = Adv3Player.DEF_TIME_PER_MOVE;
+        try {
+            if (ap.isSet("thinktime"))
+                timePerMove = ap.getThinkingTime();
         } catch (ArgumentParserException e) {
             System.out.println(e.getMessage());
             System.exit(1);
         }
-        return new Adv2Player(timePerMove, parallelFactor, treeSelectionStrategy, playStrategy, fairPlay, bias);
+        return new Adv3Player(timePerMove);
     }
 
     /**
@@ -435,7 +535,7 @@ public class AgeOfTowers {
                 "-delay  \t sets delay time in milliseconds to slow down the game \n" +
                 "-output \t chose output type, default is textual \n" +
                 "possible parameter:\n" +
-                "player types: human, random, simple, adv1, remote \n" +
+                "player types: human, random, simple, adv1, adv2, adv3, remote \n" +
                 "size:   \t  integer between 4 and 26 \n" +
                 "output: \t  text, graphic, none \n" +
                 "games:  \t  integer bigger than 0 \n" +
@@ -448,7 +548,7 @@ public class AgeOfTowers {
                 "------------ \n" +
                 "\n" +
                 "Advanced settings for adv2 AI:\n" +
-                "-thinktime \t set the time (in ms) adv2 AI will spend deciding on a move per round (default 2000ms)\n" +
+                "-thinktime \t set the time (in ms) adv2 and adv3 AI will spend deciding on a move per round (default 2000ms)\n" +
                 "-pstrategy \t set the playout strategy of adv2 AI to either light (l) or heavy (h).\n" +
                 "           \t See  the documentation for more information.\n" +
                 "-tstrategy \t set the tree selection policy to either max (m) or robust (r). See documentation for more\n" +
@@ -456,6 +556,24 @@ public class AgeOfTowers {
                 "-bias      \t set the bias factor used in the UCB1 formulae of the Monte Carlo tree search.\n" +
                 "-parallel  \t set a value for the amount of parrallelization to employ. Roughly corresponds to the \n" +
                 "           \t  the maximum number of Thread running in parralel ( +-1).\n" +
+                "           \t Also sets the number of Threads the simple AI uses to score its moves\n" +
+                "           \t (default: number of available processors).\n" +
+                "-engine    \t set the board engine the search runs on to either entity (e) or packed (p).\n" +
+                "-pmode     \t set the parallelization of adv2 AI to either tree (t), all Threads share one search tree,\n" +
+                "           \t or root (r), every Thread builds its own tree and the trees are merged per move.\n" +
+                "-nodes     \t set the maximal number of search tree nodes adv2 AI keeps in memory (default 1048576, at least 1024 per search tree).\n" +
+                "           \t The least visited subtrees are pruned when the limit is approached.\n" +
+                "-rave      \t set the RAVE equivalence parameter of adv2 AI, the number of games for which the\n" +
+                "           \t all-moves-as-first statistics weigh as much as the normal ones (default 0, RAVE off).\n" +
+                "-widening  \t set the progressive widening factor w of adv2 AI. A node with n simulations explores at\n" +
+                "           \t most 1 + w * sqrt(n) moves, best first (default 0, all moves in random order).\n" +
+                "-pdepth    \t set the maximal number of moves of a simulated game of adv2 AI. Longer games are cut off\n" +
+                "           \t and their winner is estimated from the position (default 0, no limit).\n" +
+                "-tablebase \t file of an endgame tablebase written by the TablebaseGenerator. adv2 and adv3 AI play\n" +
+                "           \t perfectly in all positions of its board size it covers.\n" +
+                "-book      \t file of an opening book written by the BookBuilder. adv2 and adv3 AI play the moves of\n" +
+                "           \t the book without searching as long as the game is in the book.\n" +
+                "--transpositions \t adv2 AI shares the statistics of positions reached by different move orders.\n" +
                 "--fair     \t will cause the AI to spent as much time deciding on a move as long as the nemy took";
 
     }
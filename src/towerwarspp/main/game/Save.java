@@ -176,7 +176,17 @@ public class Save implements Iterable<Move> {
      * @param file the filename
      */
     public static Save load(String file) throws LoadParserException, IOException {
-        try (BufferedReader br = new BufferedReader(new FileReader(savePath + file))) {
+        return load(new File(savePath + file));
+    }
+
+    /**
+     * Static method to load a Save-Game from a file outside of the folder of the Savegames,
+     * e.g. for building an opening book from archived games.
+     *
+     * @param file the file to be loaded
+     */
+    public static Save load(File file) throws LoadParserException, IOException {
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
             Save a = new Save(Integer.parseInt(br.readLine()));
             String line = br.readLine();
             while (line != null) {
@@ -1,7 +1,9 @@
 package towerwarspp.player;
 
 import towerwarspp.board.Board;
+import towerwarspp.player.book.OpeningBook;
 import towerwarspp.player.mcts.Mcts;
+import towerwarspp.player.mcts.SearchSettings;
 import towerwarspp.player.mcts.TreeSelectionStrategy;
 import towerwarspp.preset.Move;
 import towerwarspp.preset.PlayerColor;
@@ -37,6 +39,15 @@ public class Adv2Player extends BasePlayer {
      * Thread that the {@link #mcts} Runnable is executed in.
      */
     private final Thread ai;
+    /**
+     * True if the {@link #mcts} search has been started for the current game. As long as the game is in the installed
+     * {@link towerwarspp.player.book.OpeningBook} the moves are taken from the book and the search is not started.
+     */
+    private boolean searching;
+    /**
+     * Maximal time in milliseconds of the tactical pre-check by {@link #provenWin(long, long)}, a share of the time per move.
+     */
+    private final long proofTime;
 
 
     /**
@@ -51,30 +62,67 @@ public class Adv2Player extends BasePlayer {
      */
     public Adv2Player(long timePerMove, int parallelizationFactor, TreeSelectionStrategy selectionStrategy,
                       PlayStrategy playStrategy, boolean fairPlay, double bias) {
+        this(timePerMove, parallelizationFactor, selectionStrategy, playStrategy, fairPlay, bias, new SearchSettings());
+    }
+
+    /**
+     * Creates a new Adv2Player object with the specified parameters and further options of the search.
+     *
+     * @param timePerMove           time the AI will spend deciding on a move
+     * @param parallelizationFactor maximum number of Threads used by the AI concurrently
+     * @param selectionStrategy     employed {@link TreeSelectionStrategy}
+     * @param playStrategy          employed {@link PlayStrategy}
+     * @param fairPlay              if set to true, the AI will spend as much time deciding on it's move as the opponent took before it
+     * @param bias                  bias used used for the UCB1 formulae in the {@link Mcts} implementation
+     * @param settings              further options of the search like the {@link towerwarspp.board.EngineType} or RAVE,
+     *                              see {@link SearchSettings}
+     */
+    public Adv2Player(long timePerMove, int parallelizationFactor, TreeSelectionStrategy selectionStrategy,
+                      PlayStrategy playStrategy, boolean fairPlay, double bias, SearchSettings settings) {
         debug = Debug.getInstance();
+        proofTime = timePerMove / PROOF_TIME_SHARE;
         /* Subtract one from the parallelizationFactor because the administration of the algorithm is running in it's
           own Thread at all times*/
-        mcts = new Mcts(timePerMove, parallelizationFactor - 1, playStrategy, selectionStrategy, fairPlay, bias);
+        mcts = new Mcts(timePerMove, parallelizationFactor - 1, playStrategy, selectionStrategy, fairPlay, bias, settings);
         ai = new Thread(mcts);
         ai.setDaemon(true);
     }
 
     /**
-     * Returns after the at Player construction specified time per move the best move found so far depending on the set
-     * {@link TreeSelectionStrategy}.
+     * Returns the move of the installed opening book right away as long as the game is in the book. After leaving the book
+     * the search is started. Returns the move of the installed tablebase right away if it covers the position, or the first
+     * move of a forced win if {@link #provenWin(long, long)} can prove one within {@link #proofTime}. Otherwise returns
+     * after the at Player construction specified time per move, counted from the call including the pre-check, the best
+     * move found so far depending on the set {@link TreeSelectionStrategy}.
      *
      * @return best move so far
      */
     @Override
     Move deliverMove() {
-        Move move = mcts.getMove();
+        long requestTime = System.currentTimeMillis();
+        Move move = searching ? null : bookMove();
+        if (move == null) {
+            if (!searching) {
+                startSearch();
+            }
+            move = solvedMove();
+            if (move == null) {
+                move = provenWin(DEF_PROOF_NODES, proofTime);
+            }
+            if (move != null) {
+                /* the position is solved or a forced win has been proven, the tree only has to follow the move */
+                mcts.feedOwnMove(move);
+            } else {
+                move = mcts.getMove(requestTime);
+            }
+        }
         debug.send(DebugLevel.LEVEL_2, DebugSource.PLAYER, "Adv2Player " + color + " moving " + move);
         return move;
     }
 
     /**
      * Calls {@link BasePlayer#update(Move, Status)} and then {@link Mcts#feedEnemyMove(Move)} to update the state of the search
-     * tree.
+     * tree if the search has been started.
      *
      * @param opponentMove opponent move to place on own board
      * @param boardStatus  opponent board status after move
@@ -84,13 +132,14 @@ public class Adv2Player extends BasePlayer {
     public void update(Move opponentMove, Status boardStatus) throws Exception {
         super.update(opponentMove, boardStatus);
         debug.send(DebugLevel.LEVEL_2, DebugSource.PLAYER, "Adv2Player " + color + " received " + opponentMove);
-        mcts.feedEnemyMove(opponentMove);
+        if (searching) {
+            mcts.feedEnemyMove(opponentMove);
+        }
     }
 
     /**
-     * Initializes this Player by first calling {@link BasePlayer#init(int, PlayerColor)} then {@link Mcts#setInit(Board)} to
-     * notify Mcts algorithm about new game state.
-     * If the Thread {@link #ai} is not alive, it's started.
+     * Initializes this Player by first calling {@link BasePlayer#init(int, PlayerColor)}. If an opening book is installed
+     * for the board size the search is started only after leaving the book, otherwise right away by {@link #startSearch()}.
      *
      * @param boardSize   size to initialize {@link BasePlayer}'s board with.
      * @param playerColor color of this Player
@@ -99,6 +148,18 @@ public class Adv2Player extends BasePlayer {
     @Override
     public void init(int boardSize, PlayerColor playerColor) throws Exception {
         super.init(boardSize, playerColor);
+        searching = false;
+        if (OpeningBook.forSize(boardSize) == null) {
+            startSearch();
+        }
+    }
+
+    /**
+     * Starts the search on the current game state by calling {@link Mcts#setInit(Board)} to notify the Mcts algorithm
+     * about the new game state. If the Thread {@link #ai} is not alive, it's started.
+     */
+    private void startSearch() {
+        searching = true;
         mcts.setInit(board.clone());
         if (!ai.isAlive()) {
             ai.start();
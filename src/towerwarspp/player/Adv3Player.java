@@ -0,0 +1,73 @@
+package towerwarspp.player;
+
+import towerwarspp.player.alphabeta.AlphaBeta;
+import towerwarspp.preset.Move;
+import towerwarspp.util.debug.Debug;
+import towerwarspp.util.debug.DebugLevel;
+import towerwarspp.util.debug.DebugSource;
+
+/**
+ * Advanced AI enemy that decides on its move with an iterative deepening alpha-beta search within the specified
+ * time per move. See {@link AlphaBeta} for an explanation of the algorithm employed. In contrast to the {@link Adv2Player}
+ * the search only runs while this player is requested to deliver a move.
+ */
+public class Adv3Player extends BasePlayer {
+    /**
+     * Default time in milliseconds the AI Player will decide on his move.
+     */
+    public static final long DEF_TIME_PER_MOVE = 2000;
+    /**
+     * Default binary logarithm of the number of entries of the transposition table.
+     */
+    public static final int DEF_TABLE_BITS = 20;
+    /**
+     * Debug object to send debug messages.
+     */
+    private final Debug debug;
+    /**
+     * Search used to decide on the moves.
+     */
+    private final AlphaBeta search;
+    /**
+     * Time in milliseconds the AI will spend deciding on a move.
+     */
+    private final long timePerMove;
+
+    /**
+     * Creates a new Adv3Player object which spends the specified time on every move.
+     *
+     * @param timePerMove time in milliseconds the AI will spend deciding on a move
+     */
+    public Adv3Player(long timePerMove) {
+        debug = Debug.getInstance();
+        this.timePerMove = timePerMove;
+        search = new AlphaBeta(DEF_TABLE_BITS);
+    }
+
+    /**
+     * Returns the move of the installed opening book or tablebase if one of them covers the position, otherwise the
+     * first move of a forced win
+     * if {@link #provenWin(long, long)} can prove one within a share of the time per move, otherwise the best move found
+     * by the {@link AlphaBeta} search within the rest of the time per move.
+     *
+     * @return best move found
+     */
+    @Override
+    Move deliverMove() {
+        long startTime = System.currentTimeMillis();
+        Move move = bookMove();
+        if (move == null) {
+            move = solvedMove();
+        }
+        if (move == null) {
+            move = provenWin(DEF_PROOF_NODES, timePerMove / PROOF_TIME_SHARE);
+        }
+        if (move == null) {
+            /* the time of the pre-checks is charged against the time per move */
+            long remaining = timePerMove - (System.currentTimeMillis() - startTime);
+            move = search.findMove(board, Math.max(1, remaining));
+        }
+        debug.send(DebugLevel.LEVEL_2, DebugSource.PLAYER, "Adv3Player " + color + " moving " + move);
+        return move;
+    }
+}
@@ -1,6 +1,10 @@
 package towerwarspp.player;
 
 import towerwarspp.board.Board;
+import towerwarspp.board.PackedBoard;
+import towerwarspp.player.book.OpeningBook;
+import towerwarspp.player.dfpn.ProofSearch;
+import towerwarspp.player.tablebase.Tablebase;
 import towerwarspp.preset.*;
 import towerwarspp.util.debug.Debug;
 import towerwarspp.util.debug.DebugLevel;
@@ -21,6 +25,19 @@ import static towerwarspp.preset.Status.ILLEGAL;
  * @version 07-07-17
  */
 public abstract class BasePlayer implements Player {
+    /**
+     * Default number of positions a {@link ProofSearch} may visit when it is used as tactical pre-check by
+     * {@link #provenWin(long, long)}.
+     */
+    public static final long DEF_PROOF_NODES = 50000;
+    /**
+     * The tactical pre-check of {@link #provenWin(long, long)} may use at most the think time divided by this value.
+     */
+    public static final long PROOF_TIME_SHARE = 10;
+    /**
+     * Binary logarithm of the number of entries of the table of the {@link ProofSearch} used by {@link #provenWin(long, long)}.
+     */
+    private static final int PROOF_TABLE_BITS = 18;
     /**
      * {@link Debug} Debug instance to log messages.
      */
@@ -38,6 +55,11 @@ public abstract class BasePlayer implements Player {
      * State that represents the point in the request - confirm - makeMove cycle of the Player
      */
     private PlayerState state;
+    /**
+     * Proof search used by {@link #provenWin(long, long)}. It is created on first use, so players which do not use it
+     * do not allocate its table.
+     */
+    private ProofSearch proofSearch;
 
     /**
      * Returns the current {@link PlayerColor}
@@ -145,6 +167,50 @@ public abstract class BasePlayer implements Player {
             state = PlayerState.UPDATE;
     }
 
+    /**
+     * Tactical pre-check for AI players: tries to prove with a {@link ProofSearch} that this player can force a win from the
+     * current state of the {@link #board} and returns the first move of the proven line. The board is left unchanged.
+     * A player that gets a move from this method can play it right away without spending its remaining think time.
+     *
+     * @param maxNodes  maximum number of positions the proof search may visit
+     * @param maxMillis maximum time in milliseconds the proof search may take
+     * @return the first move of a proven win or null if no win has been proven
+     */
+    Move provenWin(long maxNodes, long maxMillis) {
+        if (proofSearch == null) {
+            proofSearch = new ProofSearch(PROOF_TABLE_BITS);
+        }
+        Move[] line = proofSearch.prove(board, maxNodes, maxMillis);
+        return line == null || line.length == 0 ? null : line[0];
+    }
+
+    /**
+     * Looks the current state of the {@link #board} up in the {@link OpeningBook} installed for its size and returns
+     * the book move if it is a legal move of this player. Like a move of {@link #provenWin(long, long)} it can be played right away.
+     *
+     * @return the book move or null if the current state of the board is not in the book
+     */
+    Move bookMove() {
+        OpeningBook book = OpeningBook.forSize(board.getSize());
+        if (book == null) {
+            return null;
+        }
+        Move move = book.lookup(board.hash());
+        /* different positions may have the same hash, so the move is checked */
+        return move != null && board.moveAllowed(move, color) ? move : null;
+    }
+
+    /**
+     * Looks the current state of the {@link #board} up in the {@link Tablebase} installed for its size and returns a move of
+     * perfect play. Like a move of {@link #provenWin(long, long)} it can be played right away.
+     *
+     * @return a perfect move or null if no tablebase covers the current state of the board
+     */
+    Move solvedMove() {
+        Tablebase tablebase = Tablebase.forSize(board.getSize());
+        return tablebase == null ? null : tablebase.bestMove(new PackedBoard(board));
+    }
+
     /**
      * Only abstract method. Is called inside the request method. Subclasses of BasePlayer should put their logic into
      * their implementation of deliverMove(). This way it is guaranteed that all Player classes share the same
@@ -1,11 +1,13 @@
 package towerwarspp.player;
 
 import towerwarspp.board.Board;
+import towerwarspp.board.BoardEngine;
+import towerwarspp.board.MoveList;
 import towerwarspp.preset.Move;
 import towerwarspp.preset.PlayerColor;
 
 import java.util.Random;
-import java.util.Vector;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Class offering enums representing different play strategies and methods that implement those strategies.
@@ -13,7 +15,7 @@ import java.util.Vector;
 public enum PlayStrategy {
     /**
      * Light PlayStrategy is equivalent to making moves at random. If an AI Player is employing a LIGHT strategy
-     * he should use the offered {@link #lightPlay(Board)} method.
+     * he should use the offered {@link #lightPlay(BoardEngine)} method.
      */
     LIGHT,
     /**
@@ -24,53 +26,92 @@ public enum PlayStrategy {
      * Dynamically change between {@link #LIGHT} and {@link #HEAVY}.
      */
     DYNAMIC;
-    /**
-     * Random instance to generate pseudo random numbers.
-     */
-    private static final Random random = new Random();
 
     /**
-     * Uses the passed {@link Board} object to get all moves available to the Player returned by {@link Board#getTurn()},
-     * then randomly selects one of them and returns it.
+     * Uses the passed {@link BoardEngine} object to randomly select one of the moves available to the Player returned by
+     * {@link BoardEngine#getTurn()} and returns it. Every move has the same probability. The moves are not collected,
+     * see {@link BoardEngine#randomMove(PlayerColor, Random)}. The random numbers are drawn from the generator of the
+     * calling Thread, so concurrent callers do not contend for one generator.
      * The Board instance is not changed in any way.
      *
      * @param board board to get available moves from
      * @return randomly selected move
      */
-    public static Move lightPlay(Board board) {
-        Vector<Move> moves = board.allPossibleMoves(board.getTurn());
-        return moves.get(random.nextInt(moves.size()));
+    public static Move lightPlay(BoardEngine board) {
+        return lightPlay(board, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Does the same as {@link #lightPlay(BoardEngine)}, but draws from the passed random number generator, so that
+     * threads playing many games do not have to share one.
+     *
+     * @param board  board to get available moves from
+     * @param random random number generator to use
+     * @return randomly selected move
+     */
+    public static Move lightPlay(BoardEngine board, Random random) {
+        return board.randomMove(board.getTurn(), random);
     }
 
     /**
-     * Uses the passed {@link Board} object to get all moves available to the Player returned by {@link Board#getTurn()},
-     * then assigns a score to each of them by using the {@link Board#altScore(Move, PlayerColor)} evaluation function
+     * Uses the passed {@link BoardEngine} object to get all moves available to the Player returned by {@link BoardEngine#getTurn()},
+     * then assigns a score to each of them by using the {@link BoardEngine#altScore(Move, PlayerColor)} evaluation function
      * and returns a random move out of the highest scored moves.
-     * The {@link Board} instance is not changed in any way
+     * The {@link BoardEngine} instance is not changed in any way
+     *
+     * @param board board to get moves from
+     * @return randomly selected move out of the highest scored moves
+     */
+    public static Move heavyPlay(BoardEngine board) {
+        return heavyPlay(board, new MoveList());
+    }
+
+    /**
+     * Does the same as {@link #heavyPlay(BoardEngine)}, but collects the moves in the passed list, so that a caller
+     * who plays many moves can reuse one list for all of them.
      *
      * @param board board to get moves from
+     * @param moves list used to collect the available moves, its previous content is discarded
+     * @return randomly selected move out of the highest scored moves
+     */
+    public static Move heavyPlay(BoardEngine board, MoveList moves) {
+        return heavyPlay(board, moves, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Does the same as {@link #heavyPlay(BoardEngine, MoveList)}, but draws from the passed random number generator,
+     * so that threads playing many games do not have to share one. The moves are scored in their packed form, only the
+     * selected one is returned as a {@link Move} object.
+     *
+     * @param board  board to get moves from
+     * @param moves  list used to collect the available moves, its previous content is discarded
+     * @param random random number generator used to choose between the highest scored moves
      * @return randomly selected move out of the highest scored moves
      */
-    public static Move heavyPlay(Board board) {
+    public static Move heavyPlay(BoardEngine board, MoveList moves, Random random) {
         // get all possible moves that this player has available
-        Vector<Move> moves = board.allPossibleMoves(board.getTurn());
+        PlayerColor turn = board.getTurn();
+        board.generateMoves(turn, moves);
         int maxScore = Board.LOSE;
-        // create new Vector of moves that will always hold the Move objects that have the highest score
-        Vector<Move> maxMoves = new Vector<>();
+        // the currently selected move out of the highest scored ones and the number of moves with this score
+        int maxMove = -1;
+        int maxCount = 0;
 
-        for (Move move : moves) {
+        for (int i = 0; i < moves.size(); ++i) {
             // iterate over all possible moves and calculate their scores
-            int score = board.altScore(move, board.getTurn());
+            int move = moves.get(i);
+            int score = board.altScore(move, turn);
             if (score == maxScore) {
-                maxMoves.add(move);
-            } else if (score > maxScore) {
                 /*
-                * If the score of the last evaluated move is higher than the current maximum score, clear the maxMoves
-                * vector containing the prior best moves. Then add the new best move to the vector and makeMove
-                * the maxScore variable to new Score
+                * Replace the selected move with probability 1 / maxCount, so that every move with the highest score
+                * is returned with the same probability without storing all of them
                 * */
-                maxMoves.clear();
-                maxMoves.add(move);
+                if (random.nextInt(++maxCount) == 0) {
+                    maxMove = move;
+                }
+            } else if (score > maxScore) {
+                maxMove = move;
+                maxCount = 1;
                 maxScore = score;
                 // if the score indicates that this move is a winning move, break out of the loop and return it
                 if (score == Board.WIN) {
@@ -79,6 +120,6 @@ public enum PlayStrategy {
             }
 
         }
-        return maxMoves.get(random.nextInt(maxMoves.size()));
+        return maxMove < 0 ? null : Move.unpack(maxMove);
     }
 }
@@ -6,6 +6,7 @@ import towerwarspp.preset.PlayerColor;
 
 import java.util.Random;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -19,6 +20,8 @@ import java.util.Vector;
  * The simple AI randomly chooses one of the moves with the highest score. A move that leads to victory is always choosen
  * before the others. Moves that lead to a position in wich the opponent could win in one move will only be executed
  * if no other moves are available.
+ * If a parallelism greater than one is specified, the moves are examined in parallel by a {@link ForkJoinPool} with
+ * {@link Board#getBestMoves(PlayerColor, ForkJoinPool)}, which delivers the same moves as the sequential examination.
  *
  * @author Alexander Wähling
  * @version 08-07-17
@@ -31,11 +34,29 @@ public class SimplePlayer extends BasePlayer {
     private final Random rnd;
 
     /**
-     * Construct a new Random Player. For the initialization of the {@link #rnd} object no seed is used, which causes
+     * Pool used to examine the possible moves in parallel or null if the moves are examined in the calling Thread.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Construct a new Simple Player which examines the moves with as many Threads as processors are available.
+     * For the initialization of the {@link #rnd} object no seed is used, which causes
      * per specification the seed to be set "a value very likely to be distinct from any other invocation of this constructor."
      */
     public SimplePlayer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Construct a new Simple Player which examines the moves with the specified number of Threads. The number is limited
+     * to the number of available processors. For a parallelism of one or less the moves are examined in the calling Thread.
+     *
+     * @param parallelism maximum number of Threads used to examine the moves
+     */
+    public SimplePlayer(int parallelism) {
         rnd = new Random();
+        parallelism = Math.min(parallelism, Runtime.getRuntime().availableProcessors());
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
     }
 
     /**
@@ -47,7 +68,7 @@ public class SimplePlayer extends BasePlayer {
      */
     @Override
     Move deliverMove() {
-        Vector<Move> bestMoves = board.getBestMoves(color);
+        Vector<Move> bestMoves = pool == null ? board.getBestMoves(color) : board.getBestMoves(color, pool);
         return bestMoves.get(rnd.nextInt(bestMoves.size()));
     }
 }
@@ -0,0 +1,421 @@
+package towerwarspp.player.alphabeta;
+
+import towerwarspp.board.Board;
+import towerwarspp.board.MoveList;
+import towerwarspp.preset.Move;
+import towerwarspp.preset.PlayerColor;
+import towerwarspp.preset.Position;
+import towerwarspp.preset.Status;
+import towerwarspp.util.debug.Debug;
+
+import static towerwarspp.preset.PlayerColor.BLUE;
+import static towerwarspp.preset.PlayerColor.RED;
+import static towerwarspp.util.debug.DebugLevel.LEVEL_2;
+import static towerwarspp.util.debug.DebugLevel.LEVEL_3;
+import static towerwarspp.util.debug.DebugSource.PLAYER;
+
+/**
+ * This class implements an iterative deepening alpha-beta search in the negamax formulation. The search is executed directly
+ * on the {@link Board} of the player with {@link Board#makeMove(Move)} and {@link Board#unmakeMove()}, so the board is
+ * left unchanged after every search.
+ *
+ * The search is deepened one ply at a time until the time per move has run out or a forced win or loss has been found.
+ * Every iteration starts with an aspiration window around the score of the previous iteration and is repeated with an open
+ * window if the score falls outside. The moves are examined in the following order: the best move stored in the
+ * {@link TranspositionTable}, the two killer moves of the ply (moves which caused a cutoff in a sibling position) and then all
+ * other moves ordered by {@link Board#altScore(Move, PlayerColor)} and by the history score, which counts how often and how
+ * deep a move has caused a cutoff. All moves after the first one are searched with a null window first (principal variation search).
+ *
+ * A position below the root in which the player to move can destroy the opponent's base is a win without further search
+ * (see {@link Board#canDestroyBase(PlayerColor)}). At the root the moves are searched as usual, so that the winning move
+ * is found and returned. If the remaining depth is exhausted while the opponent threatens the own base,
+ * the position is searched one ply deeper, so that the threat is not hidden behind the horizon. All other positions at the
+ * horizon are evaluated with {@link Board#evaluate(PlayerColor)}.
+ */
+public class AlphaBeta {
+    /**
+     * Score of a win in the current position. A win in n plies is scored WIN - n, so that faster wins are preferred.
+     */
+    public static final int WIN = 1000000;
+    /**
+     * Maximum depth of the search in plies.
+     */
+    public static final int MAX_PLY = 64;
+    /**
+     * A score greater than every possible score.
+     */
+    private static final int INFINITY = WIN + 1;
+    /**
+     * Half width of the aspiration window around the score of the previous iteration.
+     */
+    private static final int ASPIRATION = 50;
+    /**
+     * The time is checked whenever the number of visited nodes is a multiple of this mask plus one.
+     */
+    private static final int CHECK_MASK = 1023;
+    /**
+     * History scores are halved as soon as one of them exceeds this limit, so that they stay below the weight of one
+     * point of {@link Board#altScore(Move, PlayerColor)}.
+     */
+    private static final int HISTORY_LIMIT = 1 << 16;
+    /**
+     * Debug object to send debug messages.
+     */
+    private final Debug debug;
+    /**
+     * Transposition table shared by all searches of this object.
+     */
+    private final TranspositionTable table;
+    /**
+     * Two killer moves per ply as packed moves.
+     */
+    private final int[][] killers = new int[MAX_PLY][2];
+    /**
+     * History scores indexed by start index * {@link Position#INDICES} + end index of a move.
+     */
+    private final int[] history = new int[Position.INDICES * Position.INDICES];
+    /**
+     * Reusable list of the generated moves per ply.
+     */
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    /**
+     * Ordering keys of the generated moves per ply.
+     */
+    private final long[][] keys = new long[MAX_PLY][];
+    /**
+     * Board the current search is executed on.
+     */
+    private Board board;
+    /**
+     * Time in nanoseconds (see {@link System#nanoTime()}) at which the current search has to stop.
+     */
+    private long deadline;
+    /**
+     * Set as soon as the time of the current search has run out. All scores computed afterwards are invalid.
+     */
+    private boolean stopped;
+    /**
+     * Number of nodes visited by the current search.
+     */
+    private long nodes;
+    /**
+     * Best move of the root position found by the current iteration as packed move.
+     */
+    private int rootBest;
+
+    /**
+     * Creates a new search object with a transposition table of 2^tableBits entries.
+     *
+     * @param tableBits binary logarithm of the number of entries of the transposition table
+     */
+    public AlphaBeta(int tableBits) {
+        debug = Debug.getInstance();
+        table = new TranspositionTable(tableBits);
+        for (int ply = 0; ply < MAX_PLY; ++ply) {
+            moveLists[ply] = new MoveList();
+            keys[ply] = new long[64];
+        }
+    }
+
+    /**
+     * Searches the best move for the player whose turn it is on the specified board within the specified time.
+     * The board is left unchanged. The status of the board has to be OK.
+     *
+     * @param board       board to search the move on
+     * @param timePerMove time in milliseconds the search may take
+     * @return the best move found by the deepest completed iteration
+     */
+    public Move findMove(Board board, long timePerMove) {
+        this.board = board;
+        long start = System.nanoTime();
+        deadline = start + timePerMove * 1000000L;
+        stopped = false;
+        nodes = 0;
+        table.nextAge();
+        ageHistory();
+        MoveList rootMoves = moveLists[0];
+        board.generateMoves(board.getTurn(), rootMoves);
+        if (rootMoves.size() == 1) {
+            return rootMoves.move(0);
+        }
+        int historySize = board.getHistorySize();
+        int bestMove = rootMoves.get(0);
+        int score = 0;
+        int depth = 0;
+        try {
+            while (depth < MAX_PLY - 1) {
+                int alpha = -INFINITY;
+                int beta = INFINITY;
+                if (depth > 1) {
+                    alpha = score - ASPIRATION;
+                    beta = score + ASPIRATION;
+                }
+                int result;
+                while (true) {
+                    rootBest = TranspositionTable.NO_MOVE;
+                    result = negamax(depth + 1, alpha, beta, 0);
+                    if (stopped) {
+                        break;
+                    }
+                    /* repeat the iteration with an open window on the side the score has fallen out of */
+                    if (result <= alpha && alpha > -INFINITY) {
+                        alpha = -INFINITY;
+                    } else if (result >= beta && beta < INFINITY) {
+                        beta = INFINITY;
+                    } else {
+                        break;
+                    }
+                }
+                if (stopped) {
+                    break;
+                }
+                ++depth;
+                score = result;
+                if (rootBest != TranspositionTable.NO_MOVE) {
+                    bestMove = rootBest;
+                }
+                debug.send(LEVEL_3, PLAYER, "AlphaBeta: depth " + depth + " score " + score + " best move "
+                        + Move.unpack(bestMove) + " nodes " + nodes);
+                if (Math.abs(score) > WIN - MAX_PLY) {
+                    /* a forced win or loss has been found, searching deeper does not change the result */
+                    break;
+                }
+            }
+        } finally {
+            board.unmakeMovesTo(historySize);
+            this.board = null;
+        }
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        debug.send(LEVEL_2, PLAYER, "AlphaBeta: reached depth " + depth + " with score " + score + ", " + nodes
+                + " nodes in " + elapsed / 1000000 + " ms (" + nodes * 1000000000L / elapsed + " nodes/s)");
+        return Move.unpack(bestMove);
+    }
+
+    /**
+     * Searches the current position of {@link #board} with the specified remaining depth and window and returns its score
+     * from the point of view of the player to move. If the time runs out, {@link #stopped} is set and the returned score is invalid.
+     *
+     * @param depth remaining depth in plies
+     * @param alpha lower bound of the window
+     * @param beta  upper bound of the window
+     * @param ply   distance from the root position in plies
+     * @return score of the position
+     */
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        if ((++nodes & CHECK_MASK) == 0 && System.nanoTime() > deadline) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        PlayerColor side = board.getTurn();
+        PlayerColor opponent = (side == RED ? BLUE : RED);
+        /* at the root the move onto the base has to be found, the move loop scores it as a win */
+        if (ply > 0 && board.canDestroyBase(side)) {
+            return WIN - ply - 1;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return board.evaluate(side);
+        }
+        if (depth <= 0) {
+            if (!board.canDestroyBase(opponent)) {
+                return board.evaluate(side);
+            }
+            /* the own base is threatened: look one ply further to see if the threat can be answered */
+            depth = 1;
+        }
+        int alphaOrig = alpha;
+        long hash = board.hash();
+        int ttMove = TranspositionTable.NO_MOVE;
+        int entry = table.probe(hash);
+        if (entry >= 0) {
+            ttMove = table.move(entry);
+            if (ply > 0 && table.depth(entry) >= depth) {
+                int score = fromTable(table.score(entry), ply);
+                int bound = table.bound(entry);
+                if (bound == TranspositionTable.EXACT) {
+                    return score;
+                } else if (bound == TranspositionTable.LOWER) {
+                    alpha = Math.max(alpha, score);
+                } else {
+                    beta = Math.min(beta, score);
+                }
+                if (alpha >= beta) {
+                    return score;
+                }
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        board.generateMoves(side, moves);
+        int count = moves.size();
+        long[] order = orderMoves(moves, side, ttMove, ply);
+        int best = -INFINITY;
+        int bestMove = TranspositionTable.NO_MOVE;
+        for (int i = 0; i < count; ++i) {
+            int packed = nextMove(moves, order, i);
+            Status status = board.makeMove(Move.unpack(packed));
+            int score;
+            if (status != Status.OK) {
+                /* the move has ended the game, the only way to end it is to win */
+                score = WIN - ply - 1;
+            } else if (i == 0) {
+                score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            board.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = packed;
+                if (ply == 0) {
+                    rootBest = packed;
+                }
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                addCutoff(packed, depth, ply);
+                break;
+            }
+        }
+        int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(hash, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Computes the ordering keys of the specified moves. The greater the key, the earlier the move is searched.
+     *
+     * @param moves  generated moves of the position
+     * @param side   color of the player to move
+     * @param ttMove packed best move stored in the transposition table or {@link TranspositionTable#NO_MOVE}
+     * @param ply    distance from the root position in plies
+     * @return the ordering keys indexed like the moves
+     */
+    private long[] orderMoves(MoveList moves, PlayerColor side, int ttMove, int ply) {
+        int count = moves.size();
+        if (keys[ply].length < count) {
+            keys[ply] = new long[2 * count];
+        }
+        long[] order = keys[ply];
+        for (int i = 0; i < count; ++i) {
+            int packed = moves.get(i);
+            if (packed == ttMove) {
+                order[i] = Long.MAX_VALUE;
+            } else if (packed == killers[ply][0]) {
+                order[i] = Long.MAX_VALUE - 1;
+            } else if (packed == killers[ply][1]) {
+                order[i] = Long.MAX_VALUE - 2;
+            } else {
+                order[i] = (long) board.altScore(moves.move(i), side) * HISTORY_LIMIT + history[historyIndex(packed)];
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Selects the move with the greatest key among the moves with the indices from i on, swaps it to the index i
+     * and returns it. Selecting the moves one at a time is cheaper than sorting, because most nodes are cut off early.
+     *
+     * @param moves generated moves of the position
+     * @param order ordering keys of the moves
+     * @param i     index of the move to select
+     * @return the selected packed move
+     */
+    private static int nextMove(MoveList moves, long[] order, int i) {
+        int bestIndex = i;
+        for (int j = i + 1; j < moves.size(); ++j) {
+            if (order[j] > order[bestIndex]) {
+                bestIndex = j;
+            }
+        }
+        if (bestIndex != i) {
+            long key = order[i];
+            order[i] = order[bestIndex];
+            order[bestIndex] = key;
+            moves.swap(i, bestIndex);
+        }
+        return moves.get(i);
+    }
+
+    /**
+     * Records that the specified move has caused a cutoff: it becomes the first killer move of the ply and its history score
+     * is increased by the square of the remaining depth.
+     *
+     * @param packed packed move which caused the cutoff
+     * @param depth  remaining depth in plies
+     * @param ply    distance from the root position in plies
+     */
+    private void addCutoff(int packed, int depth, int ply) {
+        if (killers[ply][0] != packed) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = packed;
+        }
+        int index = historyIndex(packed);
+        history[index] += depth * depth;
+        if (history[index] >= HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    /**
+     * Halves all history scores, so that recent cutoffs weigh more than old ones.
+     */
+    private void ageHistory() {
+        for (int i = 0; i < history.length; ++i) {
+            history[i] >>= 1;
+        }
+    }
+
+    /**
+     * Returns the index of the specified move in {@link #history}.
+     *
+     * @param packed packed move
+     * @return index of the move
+     */
+    private static int historyIndex(int packed) {
+        return Move.packedStart(packed) * Position.INDICES + Move.packedEnd(packed);
+    }
+
+    /**
+     * Converts a score relative to the current position into a score relative to the stored position.
+     * Win and loss scores count the plies from the root, the stored scores count them from the stored position.
+     *
+     * @param score score relative to the root
+     * @param ply   distance of the position from the root
+     * @return score to store
+     */
+    private static int toTable(int score, int ply) {
+        if (score > WIN - MAX_PLY) {
+            return score + ply;
+        } else if (score < -WIN + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a stored score back into a score relative to the root, see {@link #toTable(int, int)}.
+     *
+     * @param score stored score
+     * @param ply   distance of the position from the root
+     * @return score relative to the root
+     */
+    private static int fromTable(int score, int ply) {
+        if (score > WIN - MAX_PLY) {
+            return score - ply;
+        } else if (score < -WIN + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,162 @@
+package towerwarspp.player.alphabeta;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table of the {@link AlphaBeta} search. Every entry is addressed by the lower bits of the
+ * Zobrist hash of a position and stores the full hash, the best move found as a packed move (see
+ * {@link towerwarspp.preset.Move#pack()}), the score, the remaining depth the score has been computed with and the kind of
+ * bound the score represents. The entries are kept in parallel arrays, so the table does not create objects while searching.
+ * An entry is replaced if it belongs to another position, to an earlier search or has been computed with a smaller depth.
+ */
+class TranspositionTable {
+    /**
+     * Bound kind of an entry whose score is exact.
+     */
+    static final int EXACT = 0;
+    /**
+     * Bound kind of an entry whose score is a lower bound (the search failed high).
+     */
+    static final int LOWER = 1;
+    /**
+     * Bound kind of an entry whose score is an upper bound (the search failed low).
+     */
+    static final int UPPER = 2;
+    /**
+     * Packed move stored for entries without a best move.
+     */
+    static final int NO_MOVE = -1;
+
+    /**
+     * Mask selecting the index of an entry from a hash.
+     */
+    private final int mask;
+    /**
+     * Full hashes of the stored positions.
+     */
+    private final long[] keys;
+    /**
+     * Best moves of the stored positions as packed moves.
+     */
+    private final int[] moves;
+    /**
+     * Scores of the stored positions.
+     */
+    private final int[] scores;
+    /**
+     * Remaining depths the scores have been computed with.
+     */
+    private final byte[] depths;
+    /**
+     * Bound kinds of the scores.
+     */
+    private final byte[] bounds;
+    /**
+     * Search generation the entries have been stored in.
+     */
+    private final byte[] ages;
+    /**
+     * Current search generation. Entries of earlier generations are always replaced.
+     */
+    private byte age;
+
+    /**
+     * Creates a new empty table with 2^bits entries.
+     *
+     * @param bits binary logarithm of the number of entries
+     */
+    TranspositionTable(int bits) {
+        int size = 1 << bits;
+        mask = size - 1;
+        keys = new long[size];
+        moves = new int[size];
+        scores = new int[size];
+        depths = new byte[size];
+        bounds = new byte[size];
+        ages = new byte[size];
+        Arrays.fill(moves, NO_MOVE);
+    }
+
+    /**
+     * Starts a new search generation. Entries of earlier searches are kept for move ordering but may be replaced by any new entry.
+     */
+    void nextAge() {
+        ++age;
+    }
+
+    /**
+     * Returns the index of the entry of the position with the specified hash or -1 if the position is not stored.
+     *
+     * @param hash Zobrist hash of the position
+     * @return index of the entry or -1
+     */
+    int probe(long hash) {
+        int index = (int) hash & mask;
+        return keys[index] == hash && (moves[index] != NO_MOVE || depths[index] > 0) ? index : -1;
+    }
+
+    /**
+     * Returns the packed best move of the entry with the specified index.
+     *
+     * @param index index returned by {@link #probe(long)}
+     * @return packed best move or {@link #NO_MOVE}
+     */
+    int move(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Returns the score of the entry with the specified index.
+     *
+     * @param index index returned by {@link #probe(long)}
+     * @return score of the entry
+     */
+    int score(int index) {
+        return scores[index];
+    }
+
+    /**
+     * Returns the remaining depth the score of the entry with the specified index has been computed with.
+     *
+     * @param index index returned by {@link #probe(long)}
+     * @return remaining depth of the entry
+     */
+    int depth(int index) {
+        return depths[index];
+    }
+
+    /**
+     * Returns the bound kind of the entry with the specified index.
+     *
+     * @param index index returned by {@link #probe(long)}
+     * @return {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     */
+    int bound(int index) {
+        return bounds[index];
+    }
+
+    /**
+     * Stores the result of a search of the position with the specified hash.
+     *
+     * @param hash  Zobrist hash of the position
+     * @param move  packed best move or {@link #NO_MOVE}
+     * @param score score of the position
+     * @param depth remaining depth the score has been computed with
+     * @param bound bound kind of the score
+     */
+    void store(long hash, int move, int score, int depth, int bound) {
+        int index = (int) hash & mask;
+        if (keys[index] == hash || ages[index] != age || depth >= depths[index]) {
+            if (move == NO_MOVE && keys[index] == hash) {
+                /* keep the best move of an earlier search of the same position for move ordering */
+                move = moves[index];
+            }
+            keys[index] = hash;
+            moves[index] = move;
+            scores[index] = score;
+            depths[index] = (byte) Math.min(depth, Byte.MAX_VALUE);
+            bounds[index] = (byte) bound;
+            ages[index] = age;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * The alphabeta package which implements an iterative deepening alpha-beta search.
+ */
+package towerwarspp.player.alphabeta;
\ No newline at end of file
@@ -0,0 +1,226 @@
+package towerwarspp.player.book;
+
+import towerwarspp.board.Board;
+import towerwarspp.main.game.LoadParserException;
+import towerwarspp.main.game.Save;
+import towerwarspp.player.alphabeta.AlphaBeta;
+import towerwarspp.preset.Move;
+import towerwarspp.preset.PlayerColor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static towerwarspp.preset.Status.BLUE_WIN;
+import static towerwarspp.preset.Status.OK;
+import static towerwarspp.preset.Status.RED_WIN;
+
+/**
+ * Offline builder of {@link OpeningBook} files. It collects the moves of the first plies of games together with
+ * the result of the game, either from finished saved games (".aot" files, see {@link Save}) or from games the {@link AlphaBeta}
+ * search plays against itself. Self-play games which are not decided after {@link #MAX_GAME_PLIES} plies count as draws.
+ * To play different openings the first {@link #RANDOM_PLIES} plies of a self-play game are chosen at random.
+ * Since the book prefers the moves with the highest share of points, random moves which turn out badly
+ * are not played from the book.
+ */
+public final class BookBuilder {
+    /**
+     * Number of plies at the beginning of a self-play game which are chosen at random.
+     */
+    public static final int RANDOM_PLIES = 2;
+    /**
+     * Number of plies after which a self-play game is given up and collected as a draw.
+     */
+    private static final int MAX_GAME_PLIES = 300;
+    /**
+     * Binary logarithm of the number of entries of the transposition table of the self-play search.
+     */
+    private static final int TABLE_BITS = 20;
+    /**
+     * Size of the board.
+     */
+    private final int size;
+    /**
+     * Number of plies at the beginning of every game whose moves are collected.
+     */
+    private final int plies;
+    /**
+     * For every position hash the packed moves played in the position together with the number of games and the points
+     * of the player who made the move.
+     */
+    private final HashMap<Long, HashMap<Integer, int[]>> positions = new HashMap<Long, HashMap<Integer, int[]>>();
+    /**
+     * Number of games collected.
+     */
+    private int games;
+
+    /**
+     * Creates a new builder for the specified board size.
+     *
+     * @param size  size of the board
+     * @param plies number of plies at the beginning of every game whose moves are collected
+     */
+    public BookBuilder(int size, int plies) {
+        this.size = size;
+        this.plies = plies;
+    }
+
+    /**
+     * Builds an opening book and writes it to a file.
+     * Usage: BookBuilder size plies minGames file selfPlayGames timePerMove [savegame ...]
+     *
+     * @param args size of the board, number of plies collected per game, number of games a move must have been played in
+     *             to be written, name of the file, number of self-play games, time per move of the self-play search
+     *             in milliseconds and optionally names of saved games
+     * @throws IOException if the file can not be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 6) {
+            System.out.println("Usage: BookBuilder size plies minGames file selfPlayGames timePerMove [savegame ...]");
+            System.exit(1);
+        }
+        BookBuilder builder = new BookBuilder(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        for (int i = 6; i < args.length; ++i) {
+            try {
+                Save save = Save.load(new File(args[i]));
+                if (save.getSize() != builder.size || !builder.addGame(save)) {
+                    System.out.println("Book: skipped " + args[i] + ", it is not a finished game on a board of size " + builder.size);
+                }
+            } catch (LoadParserException e) {
+                System.out.println("Book: skipped " + args[i] + ", " + e.getMessage());
+            }
+        }
+        builder.addSelfPlay(Integer.parseInt(args[4]), Long.parseLong(args[5]), new Random());
+        builder.write(new File(args[3]), Integer.parseInt(args[2]));
+    }
+
+    /**
+     * Plays the specified number of games of the {@link AlphaBeta} search against itself and collects them.
+     *
+     * @param count       number of games
+     * @param timePerMove time per move of the search in milliseconds
+     * @param random      random number generator choosing the first plies
+     */
+    public void addSelfPlay(int count, long timePerMove, Random random) {
+        AlphaBeta search = new AlphaBeta(TABLE_BITS);
+        for (int game = 0; game < count; ++game) {
+            Board board = new Board(size);
+            ArrayList<Move> moves = new ArrayList<Move>();
+            while (board.getStatus() == OK && moves.size() < MAX_GAME_PLIES) {
+                Move move = moves.size() < RANDOM_PLIES
+                        ? board.randomMove(board.getTurn(), random)
+                        : search.findMove(board, timePerMove);
+                board.makeMove(move);
+                moves.add(move);
+            }
+            addGame(moves, true);
+            System.out.println("Book: self-play game " + (game + 1) + " of " + count + " ended after " + moves.size()
+                    + " plies with " + board.getStatus());
+        }
+    }
+
+    /**
+     * Replays the specified game and collects the moves of its first plies if the game is finished.
+     *
+     * @param moves the moves of the game, beginning with red
+     * @return true if the game has been collected, false if it contains an illegal move or is not finished
+     */
+    public boolean addGame(Iterable<Move> moves) {
+        return addGame(moves, false);
+    }
+
+    /**
+     * Replays the specified game and collects the moves of its first plies. A won game gives the player who won
+     * two points for each of the player's moves, a draw one point.
+     *
+     * @param moves            the moves of the game, beginning with red
+     * @param drawIfUnfinished true if a game which is not finished has to be collected as a draw
+     * @return true if the game has been collected, false if it contains an illegal move or is not finished and not
+     * to be collected as a draw
+     */
+    private boolean addGame(Iterable<Move> moves, boolean drawIfUnfinished) {
+        Board board = new Board(size);
+        ArrayList<long[]> collected = new ArrayList<long[]>();
+        for (Move move : moves) {
+            if (board.getStatus() != OK) {
+                return false;
+            }
+            if (board.getHistorySize() < plies) {
+                collected.add(new long[]{board.hash(), move.pack(), board.getTurn().ordinal()});
+            }
+            board.makeMove(move);
+        }
+        if (board.getStatus() != RED_WIN && board.getStatus() != BLUE_WIN && !(drawIfUnfinished && board.getStatus() == OK)) {
+            return false;
+        }
+        PlayerColor winner = board.getStatus() == OK ? null : board.getStatus() == RED_WIN ? PlayerColor.RED : PlayerColor.BLUE;
+        for (long[] entry : collected) {
+            HashMap<Integer, int[]> played = positions.get(entry[0]);
+            if (played == null) {
+                played = new HashMap<Integer, int[]>();
+                positions.put(entry[0], played);
+            }
+            int[] stats = played.get((int) entry[1]);
+            if (stats == null) {
+                stats = new int[2];
+                played.put((int) entry[1], stats);
+            }
+            ++stats[0];
+            if (winner == null) {
+                stats[1] += 1;
+            } else if (entry[2] == winner.ordinal()) {
+                stats[1] += 2;
+            }
+        }
+        ++games;
+        return true;
+    }
+
+    /**
+     * Writes all moves played in at least the specified number of games in the format read by {@link OpeningBook}.
+     *
+     * @param file     the file to write
+     * @param minGames the number of games a move must have been played in
+     * @throws IOException if the file can not be written
+     */
+    public void write(File file, int minGames) throws IOException {
+        ArrayList<long[]> entries = new ArrayList<long[]>();
+        for (Map.Entry<Long, HashMap<Integer, int[]>> position : positions.entrySet()) {
+            for (Map.Entry<Integer, int[]> played : position.getValue().entrySet()) {
+                int[] stats = played.getValue();
+                if (stats[0] >= minGames) {
+                    entries.add(new long[]{position.getKey(), played.getKey(), stats[0], stats[1]});
+                }
+            }
+        }
+        long[][] sorted = entries.toArray(new long[entries.size()][]);
+        Arrays.sort(sorted, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] a, long[] b) {
+                return a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]);
+            }
+        });
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(size);
+            out.writeLong(sorted.length);
+            for (long[] entry : sorted) {
+                out.writeLong(entry[0]);
+                out.writeInt((int) entry[1]);
+                out.writeInt((int) entry[2]);
+                out.writeInt((int) entry[3]);
+            }
+        }
+        System.out.println("Book: " + games + " games, " + positions.size() + " positions, " + sorted.length
+                + " moves written");
+    }
+}
@@ -0,0 +1,159 @@
+package towerwarspp.player.book;
+
+import towerwarspp.preset.Move;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only view of an opening book file written by {@link BookBuilder}. For the early positions of games on one board
+ * size the file contains the moves played in these positions together with the number of games and the points
+ * of the player who made the move, two for a won game and one for a draw. Positions are identified by their Zobrist hash
+ * (see {@link towerwarspp.board.Board#hash()}), which includes the player to move. The entries are sorted by hash, so the moves of a position are found by binary search.
+ * The file is mapped into memory with a {@link MappedByteBuffer} instead of being read, so a look-up only touches a few
+ * pages and takes microseconds.
+ * <p>
+ * Opening books are installed per board size with {@link #install(OpeningBook)}, so that all players of a game can
+ * use the same mapped file.
+ */
+public final class OpeningBook {
+    /**
+     * First four bytes of every opening book file.
+     */
+    static final int MAGIC = 0x54574f42;
+    /**
+     * Version of the file format.
+     */
+    static final int VERSION = 1;
+    /**
+     * Number of bytes of the file header: magic, version, board size and number of entries.
+     */
+    static final int HEADER_BYTES = 20;
+    /**
+     * Number of bytes of an entry: hash, packed move, games and points.
+     */
+    static final int ENTRY_BYTES = Long.BYTES + 3 * Integer.BYTES;
+    /**
+     * Installed opening books indexed by board size.
+     */
+    private static final OpeningBook[] INSTALLED = new OpeningBook[27];
+    /**
+     * Size of the board the positions belong to.
+     */
+    private final int size;
+    /**
+     * Number of entries in the file.
+     */
+    private final int count;
+    /**
+     * The entries sorted by hash.
+     */
+    private final MappedByteBuffer entries;
+
+    /**
+     * Maps the specified opening book file into memory.
+     *
+     * @param file the file written by {@link BookBuilder#write(File, int)}
+     * @throws IOException if the file can not be read or is no opening book file
+     */
+    public OpeningBook(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            if (in.length() < HEADER_BYTES || in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is no opening book file.");
+            }
+            size = in.readInt();
+            long entryCount = in.readLong();
+            if (size < 4 || size > 26 || entryCount < 0 || entryCount > Integer.MAX_VALUE / ENTRY_BYTES
+                    || in.length() != HEADER_BYTES + entryCount * ENTRY_BYTES) {
+                throw new IOException(file + " is damaged.");
+            }
+            count = (int) entryCount;
+            entries = in.getChannel().map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, (long) count * ENTRY_BYTES);
+        }
+    }
+
+    /**
+     * Makes the specified opening book available to all players through {@link #forSize(int)}. A book installed
+     * before for the same board size is replaced.
+     *
+     * @param book the opening book to install
+     */
+    public static synchronized void install(OpeningBook book) {
+        INSTALLED[book.size] = book;
+    }
+
+    /**
+     * Returns the opening book installed for the specified board size.
+     *
+     * @param size size of the board
+     * @return the installed opening book or null if there is none
+     */
+    public static synchronized OpeningBook forSize(int size) {
+        return size < INSTALLED.length ? INSTALLED[size] : null;
+    }
+
+    /**
+     * Returns the size of the board the positions belong to.
+     *
+     * @return the size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of entries of the book, one for every move played in a position.
+     *
+     * @return the number of entries
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the book move of the position with the specified hash: the move with the highest share of points,
+     * counting one won and one lost game in advance so that moves played in few games are not overrated.
+     *
+     * @param hash the Zobrist hash of the position
+     * @return the book move or null if the position is not in the book
+     */
+    public Move lookup(long hash) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (hash(mid) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        Move best = null;
+        long bestPoints = 0;
+        long bestMaximum = 1;
+        for (int i = low; i < count && hash(i) == hash; ++i) {
+            long maximum = 2L * (entries.getInt(i * ENTRY_BYTES + Long.BYTES + Integer.BYTES) + 2);
+            long points = entries.getInt(i * ENTRY_BYTES + Long.BYTES + 2 * Integer.BYTES) + 2;
+            /* points / maximum > bestPoints / bestMaximum */
+            if (best == null || points * bestMaximum > bestPoints * maximum) {
+                best = Move.unpack(entries.getInt(i * ENTRY_BYTES + Long.BYTES));
+                bestPoints = points;
+                bestMaximum = maximum;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the hash of the entry with the specified index.
+     *
+     * @param index the index of the entry
+     * @return the hash of the entry
+     */
+    private long hash(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * The book package which builds opening books from self-play and saved games and lets players look them up
+ * in a memory-mapped file.
+ */
+package towerwarspp.player.book;
@@ -0,0 +1,332 @@
+package towerwarspp.player.dfpn;
+
+import towerwarspp.board.Board;
+import towerwarspp.board.MoveList;
+import towerwarspp.preset.Move;
+import towerwarspp.preset.PlayerColor;
+import towerwarspp.preset.Status;
+import towerwarspp.util.debug.Debug;
+
+import java.util.ArrayList;
+
+import static towerwarspp.preset.PlayerColor.BLUE;
+import static towerwarspp.preset.PlayerColor.RED;
+import static towerwarspp.preset.Status.OK;
+import static towerwarspp.util.debug.DebugLevel.LEVEL_2;
+import static towerwarspp.util.debug.DebugSource.PLAYER;
+
+/**
+ * This class implements a depth-first proof-number search (df-pn) which tries to prove that the player to move can force
+ * a win, either by destroying the opponent's base or by leaving the opponent without possible moves.
+ *
+ * Every position gets a proof number (the number of positions which at least have to be proven to prove a win) and a
+ * disproof number (the same for disproving a win). In positions in which the attacker (the player to move at the root)
+ * is to move the proof number is the minimum and the disproof number the sum of the children's numbers, in positions in which
+ * the defender is to move it is the other way round. The search always descends into the most proving child and
+ * only returns to the parent once the numbers of the current position exceed the thresholds given by the parent.
+ * The numbers are kept in a {@link ProofTable} indexed by the Zobrist hash of the positions.
+ *
+ * Positions in which the attacker can destroy the defender's base with the next move are proven, positions in which the
+ * defender can destroy the attacker's base are disproven without further search (see {@link Board#canDestroyBase(PlayerColor)}).
+ * Positions beyond the maximum depth count as disproven, so the search never reports a win which has not been proven.
+ * The search is executed directly on the passed {@link Board} with make/unmake and is bounded by the number of visited positions,
+ * which counts every child of an expanded position, optionally by a time limit and by the size of the table.
+ */
+public class ProofSearch {
+    /**
+     * Maximum depth of the search in plies. Deeper positions count as disproven.
+     */
+    public static final int MAX_DEPTH = 48;
+    /**
+     * Proof or disproof number of a position which cannot be proven or disproven.
+     */
+    private static final int INF = Integer.MAX_VALUE;
+    /**
+     * Debug object to send debug messages.
+     */
+    private final Debug debug;
+    /**
+     * Table of the proof and disproof numbers.
+     */
+    private final ProofTable table;
+    /**
+     * Reusable list of the generated moves per ply.
+     */
+    private final MoveList[] moveLists = new MoveList[MAX_DEPTH];
+    /**
+     * Hashes of the children of the current position per ply, indexed like the generated moves.
+     */
+    private final long[][] childHashes = new long[MAX_DEPTH][];
+    /**
+     * Board the current search is executed on.
+     */
+    private Board board;
+    /**
+     * Color of the player whose win has to be proven.
+     */
+    private PlayerColor attacker;
+    /**
+     * Color of the attacker the entries of the {@link #table} belong to.
+     */
+    private PlayerColor tableAttacker;
+    /**
+     * Number of positions visited by the current search.
+     */
+    private long nodes;
+    /**
+     * Maximum number of positions the current search may visit.
+     */
+    private long maxNodes;
+    /**
+     * System time in milliseconds at which the current search stops.
+     */
+    private long deadline;
+    /**
+     * Packed proving move of the root position (see {@link Move#pack()}), recorded by {@link #mid(int, int, int)} when the
+     * root is proven, or -1. The line is not read back from the table for the first move, since the entries of the
+     * proven children can have been overwritten by other solved positions.
+     */
+    private int rootMove;
+
+    /**
+     * Creates a new search object with a table of 2^tableBits entries.
+     *
+     * @param tableBits binary logarithm of the number of entries of the table, which bounds the memory of the search
+     */
+    public ProofSearch(int tableBits) {
+        debug = Debug.getInstance();
+        table = new ProofTable(tableBits);
+        for (int ply = 0; ply < MAX_DEPTH; ++ply) {
+            moveLists[ply] = new MoveList();
+            childHashes[ply] = new long[64];
+        }
+    }
+
+    /**
+     * Tries to prove that the player to move on the specified board can force a win by visiting at most about the specified
+     * number of positions. The board is left unchanged. The status of the board has to be OK.
+     * Entries of earlier searches for the same player are reused.
+     *
+     * @param board    board to search on
+     * @param maxNodes maximum number of positions to visit
+     * @return a proven winning line beginning with the move of the player to move, or null if no win has been proven
+     */
+    public Move[] prove(Board board, long maxNodes) {
+        return prove(board, maxNodes, Long.MAX_VALUE);
+    }
+
+    /**
+     * Does the same as {@link #prove(Board, long)}, but also stops after about the specified time, so that the search can be
+     * used as pre-check within the think time of a player.
+     *
+     * @param board     board to search on
+     * @param maxNodes  maximum number of positions to visit
+     * @param maxMillis maximum time in milliseconds to search
+     * @return a proven winning line beginning with the move of the player to move, or null if no win has been proven
+     */
+    public Move[] prove(Board board, long maxNodes, long maxMillis) {
+        this.board = board;
+        this.maxNodes = maxNodes;
+        long now = System.currentTimeMillis();
+        deadline = maxMillis >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + maxMillis;
+        attacker = board.getTurn();
+        if (attacker != tableAttacker) {
+            table.clear();
+            tableAttacker = attacker;
+        }
+        nodes = 0;
+        rootMove = -1;
+        int historySize = board.getHistorySize();
+        Move[] line = null;
+        try {
+            mid(0, INF, INF);
+            if (rootMove >= 0) {
+                line = provenLine(Move.unpack(rootMove));
+            }
+        } finally {
+            board.unmakeMovesTo(historySize);
+            this.board = null;
+        }
+        debug.send(LEVEL_2, PLAYER, "ProofSearch: " + (line == null ? "no win proven" : "proven win in "
+                + line.length + " plies") + " after " + nodes + " positions");
+        return line;
+    }
+
+    /**
+     * Searches the current position until its proof number reaches proofThreshold or its disproof number reaches
+     * disproofThreshold or the maximum number of positions has been visited or the time is up. The numbers of the position are stored in the table.
+     *
+     * @param ply               distance from the root position in plies
+     * @param proofThreshold    threshold of the proof number
+     * @param disproofThreshold threshold of the disproof number
+     */
+    private void mid(int ply, int proofThreshold, int disproofThreshold) {
+        long hash = board.hash();
+        if (ply >= MAX_DEPTH - 1) {
+            storeSolved(hash, false);
+            return;
+        }
+        boolean attackerToMove = board.getTurn() == attacker;
+        MoveList moves = moveLists[ply];
+        board.generateMoves(board.getTurn(), moves);
+        int count = moves.size();
+        long[] hashes = expand(ply, moves, attackerToMove);
+        nodes += count;
+        while (true) {
+            /* the numbers of the position and the two best children */
+            int proof = attackerToMove ? INF : 0;
+            int disproof = attackerToMove ? 0 : INF;
+            int best = -1;
+            int bestValue = INF;
+            int secondValue = INF;
+            for (int i = 0; i < count; ++i) {
+                int entry = table.probe(hashes[i]);
+                int childProof = entry >= 0 ? table.proof(entry) : 1;
+                int childDisproof = entry >= 0 ? table.disproof(entry) : 1;
+                /* the attacker minimises the proof number, the defender the disproof number */
+                int value = attackerToMove ? childProof : childDisproof;
+                if (attackerToMove) {
+                    proof = Math.min(proof, childProof);
+                    disproof = add(disproof, childDisproof);
+                } else {
+                    proof = add(proof, childProof);
+                    disproof = Math.min(disproof, childDisproof);
+                }
+                if (value < bestValue) {
+                    secondValue = bestValue;
+                    bestValue = value;
+                    best = i;
+                } else if (value < secondValue) {
+                    secondValue = value;
+                }
+            }
+            table.store(hash, proof, disproof);
+            if (ply == 0 && proof == 0) {
+                /* the root is proven by the child with the proof number 0 */
+                rootMove = moves.get(best);
+            }
+            if (proof >= proofThreshold || disproof >= disproofThreshold || proof == 0 || disproof == 0
+                    || nodes >= maxNodes || System.currentTimeMillis() >= deadline) {
+                return;
+            }
+            int entry = table.probe(hashes[best]);
+            int childProof = entry >= 0 ? table.proof(entry) : 1;
+            int childDisproof = entry >= 0 ? table.disproof(entry) : 1;
+            int childProofThreshold;
+            int childDisproofThreshold;
+            if (attackerToMove) {
+                childProofThreshold = Math.min(proofThreshold, add(secondValue, 1));
+                childDisproofThreshold = disproofThreshold == INF ? INF : disproofThreshold - disproof + childDisproof;
+            } else {
+                childProofThreshold = proofThreshold == INF ? INF : proofThreshold - proof + childProof;
+                childDisproofThreshold = Math.min(disproofThreshold, add(secondValue, 1));
+            }
+            board.makeMove(moves.move(best));
+            mid(ply + 1, childProofThreshold, childDisproofThreshold);
+            board.unmakeMove();
+        }
+    }
+
+    /**
+     * Executes every move of the current position once to compute the hashes of the children.
+     * Children which end the game, which allow the player to move to destroy the opponent's base or which lay beyond
+     * the maximum depth are stored as proven or disproven.
+     *
+     * @param ply            distance from the root position in plies
+     * @param moves          generated moves of the position
+     * @param attackerToMove true if the attacker is to move in the position
+     * @return the hashes of the children indexed like the moves
+     */
+    private long[] expand(int ply, MoveList moves, boolean attackerToMove) {
+        int count = moves.size();
+        if (childHashes[ply].length < count) {
+            childHashes[ply] = new long[2 * count];
+        }
+        long[] hashes = childHashes[ply];
+        PlayerColor defender = (attacker == RED ? BLUE : RED);
+        for (int i = 0; i < count; ++i) {
+            Status status = board.makeMove(moves.move(i));
+            long hash = board.hash();
+            hashes[i] = hash;
+            if (table.probe(hash) < 0) {
+                if (status != OK) {
+                    /* the game can only be ended by a win of the player who has moved */
+                    storeSolved(hash, attackerToMove);
+                } else if (attackerToMove && board.canDestroyBase(defender)) {
+                    storeSolved(hash, false);
+                } else if (!attackerToMove && board.canDestroyBase(attacker)) {
+                    storeSolved(hash, true);
+                } else if (ply + 1 >= MAX_DEPTH - 1) {
+                    storeSolved(hash, false);
+                }
+            }
+            board.unmakeMove();
+        }
+        return hashes;
+    }
+
+    /**
+     * Stores the position with the specified hash as proven or disproven.
+     *
+     * @param hash   Zobrist hash of the position
+     * @param proven true if the position is proven, false if it is disproven
+     */
+    private void storeSolved(long hash, boolean proven) {
+        table.store(hash, proven ? 0 : INF, proven ? INF : 0);
+    }
+
+    /**
+     * Reads the proven line from the table after the root position has been proven, starting with the passed proving move
+     * of the root. Then the attacker plays an immediately winning move if there is one and a proven move otherwise, the
+     * defender plays its first move, since all of them are proven.
+     * The line ends with the winning move or where the table does not contain the continuation anymore.
+     *
+     * @param first proving move of the root position
+     * @return the proven line, at least the first move
+     */
+    private Move[] provenLine(Move first) {
+        ArrayList<Move> line = new ArrayList<>();
+        MoveList moves = new MoveList();
+        line.add(first);
+        board.makeMove(first);
+        while (board.getStatus() == OK && line.size() < MAX_DEPTH) {
+            boolean attackerToMove = board.getTurn() == attacker;
+            board.generateMoves(board.getTurn(), moves);
+            Move next = null;
+            for (int i = 0; i < moves.size(); ++i) {
+                Status status = board.makeMove(moves.move(i));
+                int entry = table.probe(board.hash());
+                boolean proven = status != OK ? attackerToMove : entry >= 0 && table.proof(entry) == 0;
+                board.unmakeMove();
+                if (!attackerToMove) {
+                    /* all moves of the defender lead to proven positions, the first one is as good as any other */
+                    next = proven ? moves.move(i) : null;
+                    break;
+                }
+                if (proven && (next == null || status != OK)) {
+                    next = moves.move(i);
+                    if (status != OK) {
+                        break;
+                    }
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            line.add(next);
+            board.makeMove(next);
+        }
+        return line.toArray(new Move[0]);
+    }
+
+    /**
+     * Adds two proof or disproof numbers. The sum saturates at {@link #INF}.
+     *
+     * @param a first number
+     * @param b second number
+     * @return the sum of both numbers or {@link #INF}
+     */
+    private static int add(int a, int b) {
+        return (a >= INF - b) ? INF : a + b;
+    }
+}
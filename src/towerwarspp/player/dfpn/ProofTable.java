@@ -0,0 +1,99 @@
+package towerwarspp.player.dfpn;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size table of the proof and disproof numbers of the {@link ProofSearch}. Every entry is addressed by the lower bits
+ * of the Zobrist hash of a position and stores the full hash together with both numbers in parallel arrays, so the table
+ * does not create objects while searching. Its size bounds the memory used by the search.
+ * An entry of a solved position (proof or disproof number 0) is only replaced by another solved position,
+ * so that a proven line can be read back from the table after the search.
+ */
+class ProofTable {
+    /**
+     * Mask selecting the index of an entry from a hash.
+     */
+    private final int mask;
+    /**
+     * Full hashes of the stored positions.
+     */
+    private final long[] keys;
+    /**
+     * Proof numbers of the stored positions. A negative value marks an empty entry.
+     */
+    private final int[] proofs;
+    /**
+     * Disproof numbers of the stored positions.
+     */
+    private final int[] disproofs;
+
+    /**
+     * Creates a new empty table with 2^bits entries.
+     *
+     * @param bits binary logarithm of the number of entries
+     */
+    ProofTable(int bits) {
+        int size = 1 << bits;
+        mask = size - 1;
+        keys = new long[size];
+        proofs = new int[size];
+        disproofs = new int[size];
+        clear();
+    }
+
+    /**
+     * Removes all entries.
+     */
+    void clear() {
+        Arrays.fill(proofs, -1);
+    }
+
+    /**
+     * Returns the index of the entry of the position with the specified hash or -1 if the position is not stored.
+     *
+     * @param hash Zobrist hash of the position
+     * @return index of the entry or -1
+     */
+    int probe(long hash) {
+        int index = (int) hash & mask;
+        return proofs[index] >= 0 && keys[index] == hash ? index : -1;
+    }
+
+    /**
+     * Returns the proof number of the entry with the specified index.
+     *
+     * @param index index returned by {@link #probe(long)}
+     * @return proof number of the entry
+     */
+    int proof(int index) {
+        return proofs[index];
+    }
+
+    /**
+     * Returns the disproof number of the entry with the specified index.
+     *
+     * @param index index returned by {@link #probe(long)}
+     * @return disproof number of the entry
+     */
+    int disproof(int index) {
+        return disproofs[index];
+    }
+
+    /**
+     * Stores the proof and disproof number of the position with the specified hash.
+     *
+     * @param hash     Zobrist hash of the position
+     * @param proof    proof number of the position
+     * @param disproof disproof number of the position
+     */
+    void store(long hash, int proof, int disproof) {
+        int index = (int) hash & mask;
+        if (proofs[index] >= 0 && keys[index] != hash && (proofs[index] == 0 || disproofs[index] == 0)
+                && proof != 0 && disproof != 0) {
+            return;
+        }
+        keys[index] = hash;
+        proofs[index] = proof;
+        disproofs[index] = disproof;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * The dfpn package which implements a depth-first proof-number search for forced wins.
+ */
+package towerwarspp.player.dfpn;
\ No newline at end of file
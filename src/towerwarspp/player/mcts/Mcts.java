@@ -1,6 +1,8 @@
 package towerwarspp.player.mcts;
 
 import towerwarspp.board.Board;
+import towerwarspp.board.BoardEngine;
+import towerwarspp.board.EngineType;
 import towerwarspp.player.Adv2Player;
 import towerwarspp.player.PlayStrategy;
 import towerwarspp.preset.Move;
@@ -8,10 +10,17 @@ import towerwarspp.preset.PlayerColor;
 import towerwarspp.util.debug.Debug;
 
 import java.util.ArrayDeque;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static towerwarspp.player.mcts.Task.*;
 import static towerwarspp.preset.Status.OK;
@@ -42,7 +51,24 @@ import static towerwarspp.util.debug.DebugSource.PLAYER;
  * {@link PlayStrategy#heavyPlay(Board)} is used to get this move.
  *
  * Backpropagation: After each Simulation the result of the playout is propagated up through the tree by calling the
- * {@link Node#backPropagateScore(double, PlayerColor)} method on the Node where the simulation was run.
+ * {@link NodeStore#backPropagateScore(int, int, PlayerColor)} method on the Node where the simulation was run.
+ *
+ * The iterations running in parallel share one tree (tree parallelization). Its Nodes are updated without locks, and each
+ * iteration adds a virtual loss to the Nodes it selected until its result is backpropagated, so that the other iterations
+ * explore different branches instead of all descending into the currently best one. The Nodes are kept in a
+ * {@link NodeStore} of fixed capacity, so the tree does not grow without bound over a long game: Nodes cut off by a
+ * root change are reused, and the least visited subtrees are pruned when the root changes or the store runs out of room
+ * during a search. Optionally the Nodes of
+ * positions reached by different move orders share their statistics through a {@link TranspositionTable}, and the
+ * selection can blend in all-moves-as-first statistics (RAVE) collected from the simulated games. With progressive
+ * widening the children of a Node are explored one after another in the order of a heuristic prior.
+ *
+ * The Thread executing {@link #run()} only administrates the search: it blocks on a queue of {@link Task}s and handles
+ * them one after another, while {@link #parallelizationFactor} {@link UpdateTree} workers run iterations continuously
+ * until the time for a requested move has run out or they are cancelled because the root of the tree has to be changed.
+ * Once the game is over no worker is running, so an idle player does not use any processing power.
+ * With {@link ParallelizationMode#ROOT} every worker builds its own tree instead (root parallelization), and the
+ * statistics of the root children of all trees are merged when a move is requested.
  *
  * By concurrent it's meant that the algorithm (the select - expand - simulate - backpropagate loop) is executed all the
  * time, even if it's the opponents turn. By specifying the {@link #parallelizationFactor} variable during object
@@ -61,14 +87,35 @@ import static towerwarspp.util.debug.DebugSource.PLAYER;
  */
 public class Mcts implements Runnable {
     /**
-     * Default Bias that is used as a constant in the calculation of the UCB1 in formulae during {@link Node#bestUCBChild()}.
+     * Default Bias that is used as a constant in the calculation of the UCB1 in formulae during {@link NodeStore#bestUCBChild(int)}.
      */
     public static final double DEF_BIAS = 2;
+    /**
+     * Default maximal number of Nodes kept in memory, see {@link NodeStore}.
+     */
+    public static final int DEF_NODE_CAP = 1 << 20;
+    /**
+     * Minimal number of Nodes of every tree, so that a root and all its children fit even on the largest board.
+     * Smaller caps are raised to it.
+     */
+    public static final int MIN_NODES_PER_TREE = 1 << 10;
+    /**
+     * Default RAVE equivalence parameter. RAVE is not used by default.
+     */
+    public static final double DEF_RAVE_EQUIVALENCE = 0;
+    /**
+     * Default factor of the progressive widening. All children of a Node are explored by default.
+     */
+    public static final double DEF_WIDENING = 0;
+    /**
+     * Default maximal number of moves of a simulation. Simulations are played to the end of the game by default.
+     */
+    public static final int DEF_PLAYOUT_DEPTH = 0;
     /**
      * The default score that is backpropagated through the tree at the end of a simulation or when a terminal node is
-     * reached.
+     * reached. A simulation cut off by the playout depth backpropagates a fraction of it, so it is a multiple of 1.
      */
-    static final int DEF_SCORE = 1;
+    static final int DEF_SCORE = 1000;
     /**
      * Reference to Debug object that is used to send debug messages.
      */
@@ -78,27 +125,106 @@ public class Mcts implements Runnable {
      * loop of the algorithm. Is used to run instance of the Runnable {@link UpdateTree}.
      */
     private final ExecutorService updatePool;
-    private final ArrayDeque<Task> tasks;
     /**
-     * Bias that is used as a constant in the calculation of the UCB1 in formulae during {@link Node#bestUCBChild()}.
+     * Queue of the {@link Task}s the Thread executing {@link #run()} has to handle.
+     */
+    private final BlockingQueue<Task> tasks;
+    /**
+     * Number of {@link UpdateTree} workers of the current search that are still running.
+     */
+    private final AtomicInteger runningWorkers = new AtomicInteger();
+    /**
+     * Set to true to make the {@link UpdateTree} workers stop after their current iteration, see {@link #stopSearch()}.
+     */
+    private volatile boolean cancelled;
+    /**
+     * The time in milliseconds at which the {@link UpdateTree} workers stop on their own. {@link Long#MAX_VALUE} as long as
+     * no move has been requested.
+     */
+    private volatile long deadline = Long.MAX_VALUE;
+    /**
+     * True while a {@link Task#PRUNE} is queued and not handled yet, so that the workers running out of room add it only
+     * once.
+     */
+    private final AtomicBoolean pruneRequested = new AtomicBoolean();
+    /**
+     * Set to true if {@link #pruneTrees()} could not free any room. Further {@link Task#PRUNE}s are then ignored until the
+     * root changes.
+     */
+    private volatile boolean pruningExhausted;
+    /**
+     * True if a move has been requested by {@link #getMove()} and not been returned yet.
+     */
+    private boolean moveRequested;
+    /**
+     * True once the {@link #currentBestMove} for the pending {@link #getMove()} call has been set. Guarded by the
+     * monitor of this object, so {@link #getMove()} keeps waiting on spurious wake ups.
+     */
+    private boolean moveReady;
+    /**
+     * Bias that is used as a constant in the calculation of the UCB1 in formulae during {@link NodeStore#bestUCBChild(int)}.
      */
     private double bias = DEF_BIAS;
     /**
      * Array of Futures that is used to store the Futures returned by the {@link ExecutorService#submit(Runnable)} method.
      */
-    private Future[] futures;
+    private final Future[] futures;
     /**
      * Specifies the number of Threads that is at most used to concurrently execute {@link UpdateTree} instances.
      */
     private int parallelizationFactor = 1;
     /**
-     * The current root of the search tree.
+     * The stores of the search trees. Holds the one tree shared by all workers in {@link ParallelizationMode#TREE}
+     * and one tree per worker in {@link ParallelizationMode#ROOT}.
+     */
+    private NodeStore[] trees;
+    /**
+     * The current roots of the {@link #trees}. All roots represent the same game state.
+     */
+    private int[] roots;
+    /**
+     * Maximal number of Nodes of all {@link #trees} together.
+     */
+    private int nodeCap = DEF_NODE_CAP;
+    /**
+     * If set to true, every tree shares the counts of Nodes representing the same position through a
+     * {@link TranspositionTable} with as many entries as the tree has Nodes.
+     */
+    private boolean transpositions;
+    /**
+     * Number of games for which the all-moves-as-first win ratio of a Node weighs as much as its own win ratio during the
+     * selection. RAVE is not used if it is 0.
+     */
+    private double raveEquivalence = DEF_RAVE_EQUIVALENCE;
+    /**
+     * Factor of the progressive widening: a Node with n games explores at most 1 + widening * sqrt(n) of its children,
+     * ordered by their {@link Board#altScore(Move, PlayerColor)}. All children are explored in random order if it is 0.
+     */
+    private double widening = DEF_WIDENING;
+    /**
+     * Maximal number of moves of a simulation. A simulation reaching it is cut off and its result estimated from the
+     * static evaluation of the board, see {@link PlayoutEngine#evaluate(BoardEngine)}. No limit if it is 0.
+     */
+    private int playoutDepth = DEF_PLAYOUT_DEPTH;
+    /**
+     * One {@link PlayoutEngine} for every {@link UpdateTree} slot, playing on the matching copy in {@link #workerBoards}
+     * with its own random number generator, so that the workers do not share one.
+     */
+    private PlayoutEngine[] workerEngines;
+    /**
+     * {@link PlayoutEngine} playing on the {@link #board}, used for the playouts of {@link #rootPlayout(int, Map)}.
      */
-    private Node root;
+    private PlayoutEngine rootEngine;
     /**
      * The current board that is always at the state represented by the root of the tree.
      */
-    private Board board;
+    private BoardEngine board;
+    /**
+     * One copy of {@link #board} for every {@link UpdateTree} slot. The copies are always kept at the state represented
+     * by the root of the tree. An {@link UpdateTree} executes its moves on its copy and takes them back when it is done,
+     * so the copies only have to be created once per game instead of once per iteration.
+     */
+    private BoardEngine[] workerBoards;
     /**
      * This variable can be set from outside this Thread. If a {@link Task#INIT} is at the front of the queue, the main loop in
      * {@link #run()} will register the change and reinitialize the tree.
@@ -110,9 +236,15 @@ public class Mcts implements Runnable {
      */
     private Move currentBestMove;
     /**
-     * Holds the last Move the enemy made.
+     * Holds the moves the enemy made which have not been played on the tree yet. More than one move can be pending if
+     * the own moves are decided without the tree, see {@link #feedOwnMove(Move)}.
      */
-    private Move enemyMove;
+    private final ArrayDeque<Move> enemyMoves = new ArrayDeque<>();
+    /**
+     * Holds the own moves which have been decided on without the tree and have not been played on the tree yet,
+     * see {@link #feedOwnMove(Move)}.
+     */
+    private final ArrayDeque<Move> decidedMoves = new ArrayDeque<>();
     /**
      * If fairPlay is set to true, the algorithm will spend as much time calculating the next move as the enemy player
      * took to decide on his last move.
@@ -139,10 +271,20 @@ public class Mcts implements Runnable {
     /**
      * The  {@link TreeSelectionStrategy} used  for this instance of the MCTS algorithm. If set to
      * {@link TreeSelectionStrategy#MAX} upon request of a move, the move of the child  that has the highest win / games ratio
-     * returned by {@link Node#getWeight()} will be returned.
+     * returned by {@link NodeStore#getWeight(int)} will be returned.
      * If set to {@link TreeSelectionStrategy#ROBUST} the move of the child with most played out games will be returned.
      */
     private TreeSelectionStrategy treeSelectionStrategy = TreeSelectionStrategy.MAX;
+    /**
+     * The {@link EngineType} used for this instance of the MCTS algorithm. The board passed via {@link #setInit(Board)}
+     * is converted to a {@link BoardEngine} of this type on which the whole search is executed.
+     */
+    private EngineType engineType = EngineType.ENTITY;
+    /**
+     * The {@link ParallelizationMode} used for this instance of the MCTS algorithm. If set to {@link ParallelizationMode#TREE}
+     * all workers share one tree, if set to {@link ParallelizationMode#ROOT} every worker has its own tree.
+     */
+    private ParallelizationMode parallelizationMode = ParallelizationMode.TREE;
 
 
     /**
@@ -158,7 +300,7 @@ public class Mcts implements Runnable {
         debug = Debug.getInstance();
         updatePool = Executors.newFixedThreadPool(parallelizationFactor);
         futures = new Future[parallelizationFactor];
-        tasks = new ArrayDeque<>();
+        tasks = new LinkedBlockingQueue<>();
         debug.send(LEVEL_1, PLAYER, "Mcts: Created new mcts object.");
     }
 
@@ -173,14 +315,23 @@ public class Mcts implements Runnable {
      * @param fairPlay              if set to true, the algorithm will spend approximately as much time deciding on it's next move,
      *                              as the enemy took for his last move, the passed timPerMove will only be considered at his first move
      *                              if the player is red.
+     * @param bias                  bias used for the UCB1 formulae.
+     * @param settings              further options of the search, see {@link SearchSettings}.
      */
     public Mcts(long timePerMove, int parallelizationFactor, PlayStrategy playStrategy, TreeSelectionStrategy treeSelectionStrategy,
-                boolean fairPlay, double bias) {
+                boolean fairPlay, double bias, SearchSettings settings) {
         this(timePerMove, parallelizationFactor);
         this.playStrategy = playStrategy;
         this.treeSelectionStrategy = treeSelectionStrategy;
         this.fairPlay = fairPlay;
         this.bias = bias;
+        this.engineType = settings.getEngineType();
+        this.parallelizationMode = settings.getParallelizationMode();
+        this.nodeCap = settings.getNodeCap();
+        this.transpositions = settings.isTranspositions();
+        this.raveEquivalence = settings.getRaveEquivalence();
+        this.widening = settings.getWidening();
+        this.playoutDepth = settings.getPlayoutDepth();
     }
 
 
@@ -224,16 +375,30 @@ public class Mcts implements Runnable {
 
     /**
      * This method is always called fro outside this Thread. It will set {@link #startTime} to the current System time.
-     * Then add a {@link Task#MOVE_REQUESTED} to the queue and set the callers Thread to wait(). If the Thread is woke up, it
-     * will return the Move currently store in {@link #currentBestMove}.
+     * Then add a {@link Task#MOVE_REQUESTED} to the queue and set the callers Thread to wait() until {@link #moveReady} is
+     * set by {@link #wakeUp()}. Then it will return the Move currently store in {@link #currentBestMove}.
      *
      * @return the {@link #currentBestMove} after the sspecified {@link #timePerMove}
      */
-    public synchronized Move getMove() {
-        startTime = System.currentTimeMillis();
+    public Move getMove() {
+        return getMove(System.currentTimeMillis());
+    }
+
+    /**
+     * Works like {@link #getMove()}, but counts the {@link #timePerMove} from the passed time instead of the time of the
+     * call, so that the time a player has already spent on the move, e.g. on a tactical pre-check, is charged against the
+     * search.
+     *
+     * @param requestTime System time in milliseconds at which the player was asked for its move
+     * @return the {@link #currentBestMove} at {@link #timePerMove} after the passed time
+     */
+    public synchronized Move getMove(long requestTime) {
+        startTime = requestTime;
+        moveReady = false;
         addTask(MOVE_REQUESTED);
         try {
-            wait();
+            while (!moveReady)
+                wait();
         } catch (InterruptedException e) {
             debug.send(LEVEL_1, PLAYER, "Mcts: Thread interrupted during Mcts.bestMove()");
         }
@@ -255,7 +420,7 @@ public class Mcts implements Runnable {
     /**
      * Use to update the state of the tree after the enemy has made a move.
      * If {@link #fairPlay} is set to true, {@link #timePerMove} is set to the time the enemy spend deciding on his move.
-     * {@link #enemyMove} is set to the passed Move and a {@link Task#MOVE_RECEIVED} is added to the queue, to notify the algorithm
+     * The passed Move is added to {@link #enemyMoves} and a {@link Task#MOVE_RECEIVED} is added to the queue, to notify the algorithm
      * Thread that the enemy has made a move.
      *
      * @param move that the enemy made.
@@ -267,30 +432,106 @@ public class Mcts implements Runnable {
             else
                 timePerMove = Adv2Player.DEF_TIME_PER_MOVE;
         }
-        enemyMove = move;
+        synchronized (enemyMoves) {
+            enemyMoves.add(move);
+        }
         addTask(MOVE_RECEIVED);
     }
 
+    /**
+     * Use to update the state of the tree after the player has decided on its own move without calling {@link #getMove()},
+     * e.g. because a forced win has been proven. The move is stored and a {@link Task#MOVE_DECIDED} is added to the queue,
+     * to notify the algorithm Thread that the move has been made.
+     *
+     * @param move that the player made.
+     */
+    public void feedOwnMove(Move move) {
+        synchronized (decidedMoves) {
+            decidedMoves.add(move);
+        }
+        endTime = System.currentTimeMillis();
+        addTask(MOVE_DECIDED);
+    }
+
     /**
      * This method is called if the Thread has used it's available timePerMove to decide on the final Move that should
      * be played. Depending on the setting of {@link #treeSelectionStrategy} either the Move with the highest win ratio
-     * represented by the Node returned by calling {@link Node#maxChild()} on the root, is selected or the move that has been
-     * played the most often represented by the Node returned from {@link Node#robustChild()}.
+     * represented by the Node returned by calling {@link NodeStore#maxChild(int)} on the root, is selected or the move that
+     * has been played the most often represented by the Node returned from {@link NodeStore#robustChild(int)}. With more
+     * than one tree the move is selected the same way from the statistics merged by {@link #mergedBestMove()}. The roots
+     * are not updated with the move, see {@link #answerMoveRequest()}.
      *
      * @return the Move of the best root child Node depending on the Tree Selection strategy
      */
     private Move bestMove() {
         debug.send(LEVEL_2, PLAYER, "Mcts: Completed tree iterations, calculating best move...");
-        Node selectedChild;
+        if (trees.length > 1)
+            return mergedBestMove();
+        NodeStore tree = trees[0];
+        int selectedChild;
         if (treeSelectionStrategy == TreeSelectionStrategy.MAX)
-            selectedChild = root.maxChild();
+            selectedChild = tree.maxChild(roots[0]);
         else
-            selectedChild = root.robustChild();
-        debug.send(LEVEL_2, PLAYER, "Mcts: Returning move " + selectedChild + " of max child, with weight: "
-                + selectedChild.getWeight());
-        updateRoot(selectedChild);
-        checkPlayoutStrategy(selectedChild.getWeight());
-        return selectedChild.getMove();
+            selectedChild = tree.robustChild(roots[0]);
+        Move move = tree.getMove(selectedChild);
+        double weight = tree.getWeight(selectedChild);
+        debug.send(LEVEL_2, PLAYER, "Mcts: Returning move " + tree.describe(selectedChild) + " of max child, with weight: "
+                + weight);
+        checkPlayoutStrategy(weight);
+        return move;
+    }
+
+    /**
+     * Sums the wins and games of the root children of all trees per move and selects the move with the highest summed
+     * win ratio for {@link TreeSelectionStrategy#MAX} or with the most summed games for {@link TreeSelectionStrategy#ROBUST}.
+     *
+     * @return the selected Move
+     */
+    private Move mergedBestMove() {
+        HashMap<Move, long[]> merged = new HashMap<>();
+        for (int i = 0; i < trees.length; i++) {
+            NodeStore tree = trees[i];
+            int end = tree.firstUnclaimed(roots[i]);
+            for (int child = tree.firstChild(roots[i]); child != end && child != NodeStore.NONE; child = tree.nextSibling(child)) {
+                long[] stats = merged.get(tree.getMove(child));
+                if (stats == null) {
+                    stats = new long[2];
+                    merged.put(tree.getMove(child), stats);
+                }
+                stats[0] += tree.getWins(child);
+                stats[1] += tree.getGames(child);
+            }
+        }
+        Move bestMove = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        double bestWeight = 0;
+        for (Map.Entry<Move, long[]> entry : merged.entrySet()) {
+            long[] stats = entry.getValue();
+            double weight = (double) stats[0] / (stats[1] * (long) DEF_SCORE);
+            double value = treeSelectionStrategy == TreeSelectionStrategy.MAX ? weight : stats[1];
+            if (value > bestValue) {
+                bestMove = entry.getKey();
+                bestValue = value;
+                bestWeight = weight;
+            }
+        }
+        debug.send(LEVEL_2, PLAYER, "Mcts: Returning move " + bestMove + " merged from " + trees.length
+                + " trees, with weight: " + bestWeight);
+        checkPlayoutStrategy(bestWeight);
+        return bestMove;
+    }
+
+    /**
+     * Returns the move to a terminal child of one of the roots.
+     *
+     * @return a winning move or null if no terminal child has been found
+     */
+    private Move terminalMove() {
+        for (int i = 0; i < trees.length; i++) {
+            if (trees[i].hasTerminalChild(roots[i]))
+                return trees[i].getMove(trees[i].getTerminalChild(roots[i]));
+        }
+        return null;
     }
 
     /**
@@ -298,53 +539,178 @@ public class Mcts implements Runnable {
      *
      * @param task task to add to end of queue
      */
-    synchronized private void addTask(Task task) {
+    private void addTask(Task task) {
         tasks.add(task);
     }
 
     /**
-     * Removes a {@link Task} from the task queue
+     * Returns whether the {@link UpdateTree} workers should run another iteration: as long as the search has not been
+     * cancelled, the time for a requested move has not run out and no terminal child of a root has been found.
+     *
+     * @return true if the workers should continue
      */
-    synchronized private void removeTask() {
-        tasks.removeFirst();
+    boolean continueSearch() {
+        return !cancelled && System.currentTimeMillis() < deadline && terminalMove() == null;
     }
 
     /**
-     * Returns and removes a {@link Task} from the Tsk queue
-     *
-     * @return task from head of queue
+     * Called by every {@link UpdateTree} worker when it stops. If the last worker stops on its own, a
+     * {@link Task#SEARCH_STOPPED} is added to the queue.
      */
-    synchronized private Task pollTask() {
-        return tasks.poll();
+    void workerStopped() {
+        if (runningWorkers.decrementAndGet() == 0 && !cancelled)
+            addTask(SEARCH_STOPPED);
+    }
+
+    /**
+     * Called by an {@link UpdateTree} worker that found no room in its {@link NodeStore} for the children of a Node.
+     * Adds a {@link Task#PRUNE} to the queue unless one is already queued or pruning has not helped since the last root
+     * change. The worker continues with a simulation from the Node in the meantime.
+     */
+    void requestPrune() {
+        if (!pruningExhausted && pruneRequested.compareAndSet(false, true))
+            addTask(PRUNE);
+    }
+
+    /**
+     * Prunes every tree filled beyond {@link NodeStore#PRUNE_LOAD} of its capacity. Must only be called while no worker is
+     * running. If no tree has been brought below it, e.g. because the children of the root alone fill the tree,
+     * {@link #pruningExhausted} is set.
+     */
+    private void pruneTrees() {
+        boolean freed = false;
+        for (int i = 0; i < trees.length; i++) {
+            if (trees[i].needsPruning()) {
+                trees[i].prune(roots[i]);
+                if (!trees[i].needsPruning())
+                    freed = true;
+            }
+        }
+        if (!freed)
+            pruningExhausted = true;
+    }
+
+    /**
+     * Starts {@link #parallelizationFactor} {@link UpdateTree} workers on the current roots if the game is not over.
+     */
+    private void startSearch() {
+        if (board.getStatus() != OK || trees[0].isTerminal(roots[0]))
+            return;
+        cancelled = false;
+        runningWorkers.set(parallelizationFactor);
+        for (int i = 0; i < parallelizationFactor; i++) {
+            int tree = i % trees.length;
+            futures[i] = updatePool.submit(new UpdateTree(trees[tree], roots[tree], playStrategy, this,
+                    workerEngines[i]));
+        }
+    }
+
+    /**
+     * Cancels the {@link UpdateTree} workers and blocks until all of them have stopped, so that the tree and the
+     * {@link #workerBoards} can be changed.
+     */
+    private void stopSearch() {
+        cancelled = true;
+        for (int i = 0; i < parallelizationFactor; i++) {
+            if (futures[i] == null)
+                continue;
+            try {
+                futures[i].get();
+            } catch (InterruptedException e) {
+                debug.send(LEVEL_1, PLAYER, "Mcts: Thread interrupted while stopping the search.");
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                debug.send(LEVEL_1, PLAYER, "Mcts: UpdateTree worker failed: " + e.getCause());
+            }
+            futures[i] = null;
+        }
+    }
+
+    /**
+     * Answers the requested move if the workers have stopped: with the move to the terminal child of a root if there
+     * is one, otherwise with the result of {@link #bestMove()}. If the root has no children because the tree had no
+     * room left for them, the move is chosen by {@link #fallbackMove()} instead. Then wakes up the Thread that requested
+     * the move, and only afterwards updates the roots with a move chosen by {@link #bestMove()}.
+     */
+    private void answerMoveRequest() {
+        if (!moveRequested || runningWorkers.get() != 0)
+            return;
+        Move terminalMove = terminalMove();
+        boolean searched = false;
+        if (terminalMove != null) {
+            currentBestMove = terminalMove;
+            makeMove(currentBestMove);
+        } else if (trees[0].childCount(roots[0]) > 0 && !trees[0].isTerminal(roots[0])) {
+            currentBestMove = bestMove();
+            searched = true;
+        } else {
+            currentBestMove = fallbackMove();
+        }
+        debug.send(LEVEL_2, PLAYER, "Decided on move " + currentBestMove + " in "
+                + (System.currentTimeMillis() - startTime) + " ms.");
+        endTime = System.currentTimeMillis();
+        moveRequested = false;
+        deadline = Long.MAX_VALUE;
+        /* wake up the Thread that requested the Move*/
+        wakeUp();
+        /* the root playouts of the new roots are not charged against the time of the requested move */
+        if (searched)
+            updateRoot(currentBestMove);
     }
 
     /**
-     * Returns but does not remove the Task at the head of the queue
+     * Chooses a move with {@link PlayStrategy#heavyPlay(BoardEngine)} on the {@link #board} and updates the roots with it.
+     * Used if no move can be taken from the trees, so that a requested move is always answered.
      *
-     * @return head of the {@link #tasks} queue
+     * @return the chosen move or null if the game is over
      */
-    private Task peekTask() {
-        return tasks.peek();
+    private Move fallbackMove() {
+        if (board.getStatus() != OK)
+            return null;
+        Move move = PlayStrategy.heavyPlay(board);
+        debug.send(LEVEL_1, PLAYER, "Mcts: No root children stored, playing move " + move + " of the heavy policy.");
+        if (move != null)
+            updateRoot(move);
+        return move;
     }
 
     /**
      * Reinitialize this Mcts object by setting the board to the new Board passed via {@link #newBoard}.
-     * A new {@link #root} is constructed and {@link #rootPlayout()} is called to fully expand the root and do a
-     * playout on all the new children.
+     * New {@link #trees} are constructed and {@link #rootPlayouts()} is called to fully expand every root and do a
+     * playout on all the new children. The {@link #nodeCap} is divided between the trees, but every tree gets at least
+     * {@link #MIN_NODES_PER_TREE} Nodes.
      */
     private void init() {
-        board = newBoard;
-        root = new Node(board, bias);
+        board = engineType.create(newBoard);
+        board.clearHistory();
+        workerBoards = new BoardEngine[parallelizationFactor];
+        workerEngines = new PlayoutEngine[parallelizationFactor];
+        for (int i = 0; i < parallelizationFactor; i++) {
+            workerBoards[i] = board.clone();
+            workerEngines[i] = new PlayoutEngine(workerBoards[i], ThreadLocalRandom.current().nextLong(), playoutDepth);
+        }
+        rootEngine = new PlayoutEngine(board, ThreadLocalRandom.current().nextLong(), playoutDepth);
         if (playStrategy == PlayStrategy.DYNAMIC)
             playStrategy = PlayStrategy.HEAVY;
-        rootPlayout();
+        int treeCount = parallelizationMode == ParallelizationMode.ROOT ? parallelizationFactor : 1;
+        trees = new NodeStore[treeCount];
+        roots = new int[treeCount];
+        for (int i = 0; i < treeCount; i++) {
+            int capacity = Math.max(MIN_NODES_PER_TREE, nodeCap / treeCount);
+            trees[i] = new NodeStore(capacity, bias, transpositions ? new TranspositionTable(capacity) : null,
+                    raveEquivalence, widening);
+            roots[i] = trees[i].newRoot(board);
+        }
+        pruningExhausted = false;
+        rootPlayouts();
         debug.send(LEVEL_1, PLAYER, "Mcts: Initialized adv2 player and expanded root.");
     }
 
     /**
-     * Wakes up the Thread that has requested a Move by calling notify().
+     * Wakes up the Thread that has requested a Move by setting {@link #moveReady} and calling notify().
      */
     private synchronized void wakeUp() {
+        moveReady = true;
         notify();
     }
 
@@ -364,163 +730,181 @@ public class Mcts implements Runnable {
     }
 
     /**
-     * Used to update the {@link #root} of the tree after the enemy has made a move. First the passed Move is compared
-     * against the moves of the child {@link Node}'s of the current root. If a match is found, the child is set as new root,
-     * the move is played on the {@link #board} and a {@link #rootPlayout()} is executed.
-     * Also memory is made available to be cleared up by the Garbage Collector by deleting references to the now unused
-     * subtree.
+     * Used to update the {@link #roots} of the trees after a move has been made. First the passed Move is compared
+     * against the moves of the children of every current root. If a match is found, the child is set as new root and
+     * all other Nodes of the tree are put back on the free list of its {@link NodeStore}. A tree which does not contain
+     * the move is started anew from the new game state. Then the move is played on the {@link #board}, trees filled
+     * beyond {@link NodeStore#PRUNE_LOAD} of their capacity are pruned and {@link #rootPlayouts()} are executed on
+     * every root.
      *
-     * @param move the enemy move.
+     * @param move the move that has been made.
      */
     private void updateRoot(Move move) {
-        for (Node node : root.getChildren()) {
-            debug.send(LEVEL_3, PLAYER, "MCTS: Root has child " + node);
-            if (node.getMove().equals(move)) {
-                root = node;
-                freeAncestorMemory(root);
-                debug.send(LEVEL_2, PLAYER, "Mcts: New root " + root);
-                board.makeMove(root.getMove());
-                if (board.getStatus() != OK)
-                    root.setTerminalTrue();
-                else
-                    rootPlayout();
-                break;
+        int[] newRoots = new int[trees.length];
+        for (int i = 0; i < trees.length; i++) {
+            NodeStore tree = trees[i];
+            newRoots[i] = NodeStore.NONE;
+            for (int child = tree.firstChild(roots[i]); child != NodeStore.NONE; child = tree.nextSibling(child)) {
+                if (move.equals(tree.getMove(child))) {
+                    newRoots[i] = child;
+                    break;
+                }
             }
+            tree.reclaim(roots[i], newRoots[i]);
+            tree.ageTranspositions();
         }
+        makeMove(move);
+        for (int i = 0; i < trees.length; i++) {
+            NodeStore tree = trees[i];
+            roots[i] = newRoots[i] != NodeStore.NONE ? newRoots[i] : tree.newRoot(board);
+            if (debug.isCollecting())
+                debug.send(LEVEL_2, PLAYER, "Mcts: New root " + tree.describe(roots[i]));
+            if (board.getStatus() != OK) {
+                tree.setTerminal(roots[i]);
+            } else if (tree.needsPruning()) {
+                tree.prune(roots[i]);
+            }
+        }
+        pruningExhausted = false;
+        if (board.getStatus() == OK)
+            rootPlayouts();
     }
 
     /**
-     * Used to update the root of the tree after the algorithm has decided on a move to play. First the {@link #root} is
-     * set to the passed Node, the move represented by the new root is played on the board and depending on the state of
-     * the game a {@link #rootPlayout()} is executed.
+     * Plays the passed Move on the {@link #board} as well as on all {@link #workerBoards}, so that they stay at the
+     * state represented by the root of the tree. The history of the boards is cleared since these moves are never
+     * taken back.
      *
-     * @param node node to set as new root
-     */
-    private void updateRoot(Node node) {
-        root = node;
-        freeAncestorMemory(root);
-        board.makeMove(root.getMove());
-        if (board.getStatus() != OK)
-            root.setTerminalTrue();
-        else
-            rootPlayout();
+     * @param move move to play
+     */
+    private void makeMove(Move move) {
+        board.makeMove(move);
+        board.clearHistory();
+        for (BoardEngine workerBoard : workerBoards) {
+            workerBoard.makeMove(move);
+            workerBoard.clearHistory();
+        }
     }
 
     /**
-     * This method should always be called after a new root has been set.
-     * First {@link Node#fullExpand(Board)} is called on the root to fully expand it and get a List containing all
-     * so far unexplored children of that Node. Then for every unexplored child a playout with the current {@link PlayStrategy}
-     * is executed and the result backpropagated up the tree.
-     */
-    private void rootPlayout() {
-        ArrayList<Node> unexploredNodes = root.fullExpand(board);
-        for (Node unexplNode : unexploredNodes) {
-            Board tempBoard = board.clone();
-            tempBoard.makeMove(unexplNode.getMove());
-            if (tempBoard.getStatus() != OK) {
-                unexplNode.setTerminalTrue();
-            } else {
-                unexplNode.backPropagateScore(DEF_SCORE, UpdateTree.playout(tempBoard, playStrategy));
-            }
-        }
+     * Executes {@link #rootPlayout(int, Map)} on the roots of all {@link #trees}. All roots represent the same game state,
+     * so every move is played out only once: the trees of {@link ParallelizationMode#ROOT} reuse the results of the
+     * playouts already executed for the same move in another tree, and the time to expand the roots does not grow with
+     * the number of trees.
+     */
+    private void rootPlayouts() {
+        Map<Move, Integer> results = new HashMap<>();
+        for (int i = 0; i < trees.length; i++)
+            rootPlayout(i, results);
     }
 
     /**
-     * Method to make a part of the search tree that is of no use anymore available to be cleared by the Garbage Collector
-     * by iteratively setting the parent references of all the ancestors of the passed Node to null.
+     * This method should always be called after a new root has been set.
+     * First {@link NodeStore#fullExpand(int, BoardEngine)} is called on the root of the tree to fully expand it and get
+     * all so far unexplored children of that Node (with progressive widening as many as the widening allows). Then for
+     * every unexplored child the result of a playout with the current {@link PlayStrategy} is backpropagated up the tree.
+     * The result is taken from the passed map if the move has already been played out for another tree, otherwise the
+     * playout is executed by the {@link #rootEngine} and its result added to the map. The playouts are executed directly
+     * on the {@link #board} and taken back afterwards.
      *
-     * @param node node to start freeing memory from
-     */
-    private void freeAncestorMemory(Node node) {
-        if (node.getParent() != null) {
-            Node parent = node.getParent();
-            node.setParent(null);
-            freeAncestorMemory(parent);
+     * @param treeIndex index of the tree in {@link #trees}
+     * @param results   score of the blue player in the playout of every move already played out from the current root
+     */
+    private void rootPlayout(int treeIndex, Map<Move, Integer> results) {
+        NodeStore tree = trees[treeIndex];
+        int rootHistory = board.getHistorySize();
+        int child = tree.fullExpand(roots[treeIndex], board);
+        for (int end = tree.firstUnclaimed(roots[treeIndex]); child != end; child = tree.nextSibling(child)) {
+            Move move = tree.getMove(child);
+            board.makeMove(move);
+            tree.setPosition(child, board);
+            if (board.getStatus() != OK) {
+                tree.setTerminal(child);
+            } else {
+                Integer blueScore = results.get(move);
+                if (blueScore == null) {
+                    blueScore = rootEngine.playout(playStrategy, null);
+                    results.put(move, blueScore);
+                }
+                tree.backPropagateScore(child, PlayoutEngine.winnerScore(blueScore), PlayoutEngine.winner(blueScore));
+            }
+            board.unmakeMovesTo(rootHistory);
         }
-
     }
 
     /**
      * Main loop of the Monte Carlo tree search. As long as the Game is running the run method is executed.
-     * Each iteration it is checked if the {@link #tasks} queue contains any submitted {@link Task}'s, if  that is the case
-     * {@link #peekTask()} is called to get the task at the front of the queue. In the case of {@link Task#INIT} and
-     * {@link Task#MOVE_RECEIVED} the tasks will be executed by calling the necessary functions and the completed task
-     * is deleted from the queue by calling {@link #removeTask()}. If the Task at the front of the queue is
-     * {@link Task#MOVE_REQUESTED} it will be ignored as long the algorithm {@link #timePerMove} hasn't run out or
-     * the root of the tree has a terminal
-     * causing the board and tree to be reinitialized, a best Move to be chosen or the root to be reset respectively.
-     *
-     * If none of the flags is set and the board status is OK {@link #parallelizationFactor} many {@link UpdateTree}
-     * instances will be created per iteration and submitted to the {@link #updatePool}. After submitting those
-     * runnable's it's waited until all returned {@link #futures} are done. Then the loop is executed again.
-     *
-     * In case the status of the Game is != OK the Thread will sleep for some amount of time per loop iteration to not
-     * waste processing power.
+     * Each iteration the Thread blocks until a {@link Task} is available in the {@link #tasks} queue and handles it.
+     * In the case of {@link Task#INIT}, {@link Task#MOVE_RECEIVED} and {@link Task#MOVE_DECIDED} the running
+     * {@link UpdateTree} workers are stopped, the board and tree are reinitialized or the root is reset respectively,
+     * and the workers are started again on the new root.
+     * A {@link Task#MOVE_REQUESTED} sets the {@link #deadline} of the workers to {@link #timePerMove} after the request.
+     * When all workers have stopped because of the deadline or because the root has a terminal child, a
+     * {@link Task#SEARCH_STOPPED} is received and the requested move is returned. Afterwards the workers are started again
+     * to continue the search while the opponent is thinking.
+     * A {@link Task#PRUNE} stops the workers, prunes the trees with {@link #pruneTrees()} and starts the workers again; a
+     * pending move request keeps its deadline.
      */
     @Override
     public void run() {
-
-
         while (true) {
-
-            if (!tasks.isEmpty()) {
-                Task task = peekTask();
-                switch (task) {
-                    case INIT:
-                        init();
-                        removeTask();
-                        break;
-                    case MOVE_RECEIVED:
-                        updateRoot(enemyMove);
-                        removeTask();
-                        break;
-                    case MOVE_REQUESTED:
-                        if (System.currentTimeMillis() > startTime + timePerMove) {
-                            if (root.childCount() > 0 && !root.isTerminal()) {
-                                currentBestMove = bestMove();
-                                debug.send(LEVEL_2, PLAYER, "Decided on move " + currentBestMove + " in "
-                                        + (System.currentTimeMillis() - startTime) + " ms.");
-                                endTime = System.currentTimeMillis();
-                            /* wake up the Thread that requested the Move*/
-                                removeTask();
-                                wakeUp();
-                            }
-                        } else if (root.hasTerminalChild()) {
-                            currentBestMove = root.getTerminalChild().getMove();
-                            board.makeMove(currentBestMove);
-                            endTime = System.currentTimeMillis();
-                            removeTask();
-                            wakeUp();
-                        }
-                        break;
-                }
+            Task task;
+            try {
+                task = tasks.take();
+            } catch (InterruptedException e) {
+                debug.send(LEVEL_1, PLAYER, "Mcts: Thread interrupted while waiting for a task.");
+                stopSearch();
+                return;
             }
-
-            if (board.getStatus() == OK) {
-                /* ExecutorService is used to compute iterations of the selecet - expand - simulate - backpropagate
-                in parallel. It's waited until all futures returned by updatePool.submit() are done working.
-                */
-                for (int i = 0; i < parallelizationFactor; i++) {
-                    futures[i] = updatePool.submit(new UpdateTree(board.clone(), root, playStrategy, i));
-                }
-                boolean updating = true;
-                while (updating) {
-                    boolean threadWorking = false;
-                    for (Future future : futures) {
-                        if (future.isDone())
-                            updating = false;
-                        else
-                            threadWorking = true;
+            switch (task) {
+                case INIT:
+                    stopSearch();
+                    init();
+                    startSearch();
+                    break;
+                case MOVE_RECEIVED:
+                    Move enemyMove;
+                    synchronized (enemyMoves) {
+                        enemyMove = enemyMoves.poll();
                     }
-                    if (threadWorking)
-                        updating = true;
-                }
-            } else {
-                try {
-                    Thread.sleep(20);
-                } catch (InterruptedException e) {
-                    debug.send(LEVEL_2, PLAYER, "Thread has been interrupted during sleep at end of game.");
-                }
+                    stopSearch();
+                    updateRoot(enemyMove);
+                    startSearch();
+                    break;
+                case MOVE_DECIDED:
+                    Move decidedMove;
+                    synchronized (decidedMoves) {
+                        decidedMove = decidedMoves.poll();
+                    }
+                    stopSearch();
+                    updateRoot(decidedMove);
+                    startSearch();
+                    break;
+                case MOVE_REQUESTED:
+                    moveRequested = true;
+                    if (terminalMove() != null || runningWorkers.get() == 0) {
+                        stopSearch();
+                        answerMoveRequest();
+                        if (!moveRequested)
+                            startSearch();
+                    } else {
+                        deadline = startTime + timePerMove;
+                    }
+                    break;
+                case SEARCH_STOPPED:
+                    if (moveRequested) {
+                        stopSearch();
+                        answerMoveRequest();
+                        if (!moveRequested)
+                            startSearch();
+                    }
+                    break;
+                case PRUNE:
+                    stopSearch();
+                    pruneTrees();
+                    pruneRequested.set(false);
+                    startSearch();
+                    break;
             }
         }
     }
@@ -0,0 +1,1092 @@
+package towerwarspp.player.mcts;
+
+import towerwarspp.board.BoardEngine;
+import towerwarspp.board.MoveList;
+import towerwarspp.preset.Move;
+import towerwarspp.preset.PlayerColor;
+import towerwarspp.preset.Position;
+import towerwarspp.util.debug.Debug;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static towerwarspp.preset.PlayerColor.BLUE;
+import static towerwarspp.preset.PlayerColor.RED;
+import static towerwarspp.util.debug.DebugLevel.*;
+import static towerwarspp.util.debug.DebugSource.PLAYER;
+
+/**
+ * Store of the Nodes of one game tree the Monte Carlo tree search algorithm implemented in {@link Mcts} operates with.
+ * A Node is an index into parallel primitive arrays holding the packed move it represents (see {@link Move#pack()}),
+ * the index of its parent, its first child and its next sibling, and its win and game counts. The store is allocated
+ * once with a fixed capacity, so growing the tree does not create objects, and the Nodes of subtrees cut off by a
+ * root change are put back on a free list by {@link #reclaim(int, int)}. If the store is filled beyond
+ * {@link #PRUNE_LOAD} of its capacity, {@link #prune(int)} removes the subtrees below the least visited Nodes.
+ *
+ * The Nodes are shared by all {@link UpdateTree} workers of a tree without locks: the win and game counts are updated
+ * atomically, the children of a Node are created by the one worker that wins a compare-and-set on the Node's flags,
+ * taken from the free list with a single compare-and-set and published by setting the Node's first child. They are then
+ * claimed one after another by advancing the Node's next unclaimed child with a compare-and-set. Nodes are only put back
+ * on the free list while no worker is running, so taking them from it never races with returning them.
+ * While a worker is descending through a Node it adds a virtual loss to it (see {@link #addVirtualLoss(int)}), which
+ * lowers the UCB1 score of the Node until the worker's result is backpropagated, so that concurrent workers spread over
+ * different branches.
+ *
+ * If a {@link TranspositionTable} is passed, every Node also stores the hash of its position. The results backpropagated
+ * through a Node are then added to the position's entry as well and {@link #bestUCBChild(int)} uses the counts of the
+ * entry, which include the games of all other Nodes of the same position, whenever they are based on more games than the
+ * Node's own counts.
+ *
+ * With a positive RAVE equivalence parameter every Node also keeps all-moves-as-first (AMAF) counts: a result is added
+ * to them whenever the Node's move has been played by the same player anywhere later in the simulated game, see
+ * {@link #updateAmaf(int, int[], int, int, PlayerColor)}. The selection blends the AMAF win ratio with the Node's own, so
+ * that the many rarely visited children of a Node get a useful estimate after few games.
+ *
+ * With a positive widening factor the children are ordered by a prior computed from
+ * {@link BoardEngine#altScore(Move, PlayerColor)} instead of randomly, and only as many of them are explored as the
+ * widening allows for the Node's number of games (see {@link #isSaturated(int)}), so that the search goes deeper on
+ * boards with many possible moves. The prior of a child also seeds its value in the selection.
+ */
+class NodeStore {
+    /**
+     * Index used for a missing Node, e.g. the parent of the root.
+     */
+    static final int NONE = -1;
+    /**
+     * Number of games a worker descending through a Node counts as lost for the Node until its result is backpropagated.
+     */
+    static final int VIRTUAL_LOSS = 1;
+    /**
+     * Share of the capacity above which the tree should be pruned.
+     */
+    static final double PRUNE_LOAD = 0.75;
+    /**
+     * Share of the capacity the tree is pruned to.
+     */
+    static final double PRUNE_TARGET = 0.5;
+    /**
+     * Size of the arrays passed to {@link #updateAmaf(int, int[], int, int, PlayerColor)}, see {@link #moveIndex(int)}.
+     */
+    static final int MOVE_INDICES = Position.INDICES * Position.INDICES;
+    /**
+     * Number of games the prior of a Node counts as in the selection if progressive widening is used.
+     */
+    static final int PRIOR_GAMES = 4;
+    /**
+     * Prior of the child with the best {@link BoardEngine#altScore(Move, PlayerColor)}.
+     */
+    static final float PRIOR_BEST = 0.75f;
+    /**
+     * Prior of the child with the worst {@link BoardEngine#altScore(Move, PlayerColor)}.
+     */
+    static final float PRIOR_WORST = 0.25f;
+    /**
+     * Flag set as soon as a worker has started to create the children of a Node.
+     */
+    private static final int CREATED = 1;
+    /**
+     * Flag set if all children of a Node have been claimed for a simulation.
+     */
+    private static final int EXPANDED = 2;
+    /**
+     * Flag set if the move of a Node leads to the end of the game.
+     */
+    private static final int TERMINAL = 4;
+    /**
+     * Flag set if the move of a Node is made by the blue player.
+     */
+    private static final int BLUE_MOVE = 8;
+    /**
+     * {@link Debug} instance that is used to send Debug messages.
+     */
+    private final Debug debug;
+    /**
+     * Bias that is used as a constant in the calculation of the UCB1 in formulae during {@link #bestUCBChild(int)}.
+     */
+    private final double bias;
+    /**
+     * Maximal number of Nodes in the store.
+     */
+    private final int capacity;
+    /**
+     * Packed move represented by each Node.
+     */
+    private final int[] move;
+    /**
+     * Parent of each Node or {@link #NONE} for the root.
+     */
+    private final int[] parent;
+    /**
+     * Next sibling of each Node or {@link #NONE} for the last child.
+     */
+    private final int[] nextSibling;
+    /**
+     * First child of each Node or {@link #NONE} as long as its children have not been created.
+     */
+    private final AtomicIntegerArray firstChild;
+    /**
+     * First child of each Node that has not been claimed yet or {@link #NONE} if all children have been claimed.
+     * The claimed children are the ones from the first child up to this one.
+     */
+    private final AtomicIntegerArray nextUnclaimed;
+    /**
+     * Child of each Node whose move leads to the end of the game or {@link #NONE}.
+     */
+    private final AtomicIntegerArray terminalChild;
+    /**
+     * Combination of {@link #CREATED}, {@link #EXPANDED}, {@link #TERMINAL} and {@link #BLUE_MOVE} of each Node.
+     */
+    private final AtomicIntegerArray flags;
+    /**
+     * Number of workers currently descending through each Node, see {@link #addVirtualLoss(int)}.
+     */
+    private final AtomicIntegerArray virtualLosses;
+    /**
+     * Score won in the subtree of each Node by the player who made the Node's move, {@link Mcts#DEF_SCORE} per won game.
+     */
+    private final AtomicLongArray wins;
+    /**
+     * Number of games played in the subtree of each Node.
+     */
+    private final AtomicLongArray games;
+    /**
+     * Stack of the indices of the free Nodes. The first {@link #freeCount} entries are used.
+     */
+    private final int[] free;
+    /**
+     * Number of free Nodes.
+     */
+    private final AtomicInteger freeCount;
+    /**
+     * Table of the counts of positions shared by transposed Nodes or null if transpositions are not detected.
+     */
+    private final TranspositionTable table;
+    /**
+     * Zobrist hash of the position of each Node, 0 as long as it is unknown. Null if there is no {@link #table}.
+     */
+    private final AtomicLongArray positionHash;
+    /**
+     * Number of games for which the AMAF win ratio weighs as much as the Node's own win ratio. 0 if RAVE is not used.
+     */
+    private final double raveEquivalence;
+    /**
+     * AMAF wins of each Node for the player who made the Node's move. Null if RAVE is not used.
+     */
+    private final AtomicLongArray amafWins;
+    /**
+     * AMAF games of each Node. Null if RAVE is not used.
+     */
+    private final AtomicLongArray amafGames;
+    /**
+     * Factor of the progressive widening, see {@link #isSaturated(int)}. 0 if all children of a Node are explored.
+     */
+    private final double widening;
+    /**
+     * Prior win ratio of each Node derived from the rank of its move among its siblings. Null without widening.
+     */
+    private final float[] priors;
+    /**
+     * Number of explored children of each Node. Null without widening.
+     */
+    private final AtomicIntegerArray claimed;
+
+    /**
+     * Creates a new store for at most the specified number of Nodes.
+     *
+     * @param capacity        maximal number of Nodes
+     * @param bias            bias used in the UCB1 formulae
+     * @param table           table shared by the Nodes of equal positions or null to treat all Nodes separately
+     * @param raveEquivalence RAVE equivalence parameter or 0 to not use RAVE
+     * @param widening        factor of the progressive widening or 0 to explore all children of a Node
+     */
+    NodeStore(int capacity, double bias, TranspositionTable table, double raveEquivalence, double widening) {
+        debug = Debug.getInstance();
+        this.bias = bias;
+        this.capacity = capacity;
+        move = new int[capacity];
+        parent = new int[capacity];
+        nextSibling = new int[capacity];
+        firstChild = new AtomicIntegerArray(capacity);
+        nextUnclaimed = new AtomicIntegerArray(capacity);
+        terminalChild = new AtomicIntegerArray(capacity);
+        flags = new AtomicIntegerArray(capacity);
+        virtualLosses = new AtomicIntegerArray(capacity);
+        wins = new AtomicLongArray(capacity);
+        games = new AtomicLongArray(capacity);
+        free = new int[capacity];
+        /* hand out the lowest indices first */
+        for (int i = 0; i < capacity; ++i) {
+            free[i] = capacity - 1 - i;
+        }
+        freeCount = new AtomicInteger(capacity);
+        this.table = table;
+        positionHash = table == null ? null : new AtomicLongArray(capacity);
+        this.raveEquivalence = raveEquivalence;
+        amafWins = raveEquivalence > 0 ? new AtomicLongArray(capacity) : null;
+        amafGames = raveEquivalence > 0 ? new AtomicLongArray(capacity) : null;
+        this.widening = widening;
+        priors = widening > 0 ? new float[capacity] : null;
+        claimed = widening > 0 ? new AtomicIntegerArray(capacity) : null;
+    }
+
+    /**
+     * Creates the root of a new tree for the game state of the passed board. Its children are created by
+     * {@link #fullExpand(int, BoardEngine)}.
+     *
+     * @param board board with the game state of the root (board will not be modified)
+     * @return the new root or {@link #NONE} if the store is full
+     */
+    int newRoot(BoardEngine board) {
+        int first = allocate(1);
+        if (first == NONE)
+            return NONE;
+        int root = free[first];
+        init(root, NONE, NONE, board.getTurn() == RED ? BLUE : RED);
+        setPosition(root, board);
+        return root;
+    }
+
+    /**
+     * Returns the maximal number of Nodes of this store.
+     *
+     * @return the capacity
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of Nodes in use.
+     *
+     * @return number of used Nodes
+     */
+    int size() {
+        return capacity - freeCount.get();
+    }
+
+    /**
+     * Returns whether the tree uses more than {@link #PRUNE_LOAD} of the capacity and should be pruned.
+     *
+     * @return true if {@link #prune(int)} should be called
+     */
+    boolean needsPruning() {
+        return size() > capacity * PRUNE_LOAD;
+    }
+
+    /**
+     * Returns the move represented by the passed Node.
+     *
+     * @param node a Node
+     * @return the move of the Node or null for a root created by {@link #newRoot(BoardEngine)}
+     */
+    Move getMove(int node) {
+        return move[node] == NONE ? null : Move.unpack(move[node]);
+    }
+
+    /**
+     * Returns the player who made the move of the passed Node.
+     *
+     * @param node a Node
+     * @return the player of the Node
+     */
+    PlayerColor getPlayer(int node) {
+        return (flags.get(node) & BLUE_MOVE) != 0 ? BLUE : RED;
+    }
+
+    /**
+     * Returns the parent of the passed Node.
+     *
+     * @param node a Node
+     * @return the parent or {@link #NONE} for the root
+     */
+    int getParent(int node) {
+        return parent[node];
+    }
+
+    /**
+     * Score won in the subtree of the passed Node by the player who made its move, {@link Mcts#DEF_SCORE} per won game.
+     *
+     * @param node a Node
+     * @return the wins of the Node
+     */
+    long getWins(int node) {
+        return wins.get(node);
+    }
+
+    /**
+     * Games played in the subtree of the passed Node.
+     *
+     * @param node a Node
+     * @return the games of the Node
+     */
+    long getGames(int node) {
+        return games.get(node);
+    }
+
+    /**
+     * Returns the weight (wins / games ratio) of the passed Node, between 0 and 1.
+     *
+     * @param node a Node
+     * @return the weight of the Node
+     */
+    double getWeight(int node) {
+        return (double) wins.get(node) / (games.get(node) * (long) Mcts.DEF_SCORE);
+    }
+
+    /**
+     * Returns whether all children of the passed Node have been claimed for a simulation.
+     *
+     * @param node a Node
+     * @return whether the Node is fully expanded
+     */
+    boolean isExpanded(int node) {
+        return (flags.get(node) & EXPANDED) != 0;
+    }
+
+    /**
+     * Returns whether the selection should descend into the children of the passed Node instead of exploring a new child.
+     * This is the case if all its children have been claimed for a simulation, or with progressive widening, if at least
+     * 1 + w * sqrt(n) children have been claimed, where w is the {@link #widening} factor and n the Node's games.
+     *
+     * @param node a Node
+     * @return whether no further child of the Node should be explored
+     */
+    boolean isSaturated(int node) {
+        int state = flags.get(node);
+        if ((state & EXPANDED) != 0)
+            return true;
+        return claimed != null && (state & CREATED) != 0 && firstChild.get(node) != NONE
+                && claimed.get(node) >= width(node);
+    }
+
+    /**
+     * Returns whether the move of the passed Node leads to the end of the game.
+     *
+     * @param node a Node
+     * @return whether the Node represents a terminal game state
+     */
+    boolean isTerminal(int node) {
+        return (flags.get(node) & TERMINAL) != 0;
+    }
+
+    /**
+     * Returns whether the passed Node has a terminal child (representing a terminal game state).
+     *
+     * @param node a Node
+     * @return whether the Node has a terminal child
+     */
+    boolean hasTerminalChild(int node) {
+        return terminalChild.get(node) != NONE;
+    }
+
+    /**
+     * Returns the terminal child of the passed Node, check first with {@link #hasTerminalChild(int)} if there is one.
+     *
+     * @param node a Node
+     * @return the terminal child or {@link #NONE}
+     */
+    int getTerminalChild(int node) {
+        return terminalChild.get(node);
+    }
+
+    /**
+     * Records the position of the passed Node for the {@link TranspositionTable}. Must be called with the Node's move
+     * made on the board before its first result is backpropagated. Does nothing if transpositions are not detected.
+     *
+     * @param node  a Node
+     * @param board board representing the game state of the Node (board will not be modified)
+     */
+    void setPosition(int node, BoardEngine board) {
+        if (positionHash != null)
+            positionHash.set(node, board.hash());
+    }
+
+    /**
+     * Halves the counts of the {@link TranspositionTable}, see {@link TranspositionTable#age()}. Must only be called while
+     * no worker is running.
+     */
+    void ageTranspositions() {
+        if (table != null)
+            table.age();
+    }
+
+    /**
+     * Returns the first child of the passed Node. The children are linked by {@link #nextSibling(int)}.
+     *
+     * @param node a Node
+     * @return the first child or {@link #NONE}
+     */
+    int firstChild(int node) {
+        return firstChild.get(node);
+    }
+
+    /**
+     * Returns the next sibling of the passed Node.
+     *
+     * @param node a Node
+     * @return the next sibling or {@link #NONE}
+     */
+    int nextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    /**
+     * Returns the first child of the passed Node that has not been claimed yet. The explored children are the children
+     * from {@link #firstChild(int)} up to this one.
+     *
+     * @param node a Node
+     * @return the first unclaimed child or {@link #NONE} if all children have been claimed
+     */
+    int firstUnclaimed(int node) {
+        return nextUnclaimed.get(node);
+    }
+
+    /**
+     * Returns the number of explored children of the passed Node.
+     *
+     * @param node a Node
+     * @return number of explored children
+     */
+    int childCount(int node) {
+        int count = 0;
+        int end = nextUnclaimed.get(node);
+        for (int child = firstChild.get(node); child != end && child != NONE; child = nextSibling[child]) {
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Sets the {@link #TERMINAL} and {@link #EXPANDED} flags of the passed Node, registers it as terminal child of its
+     * parent and backpropagates {@link Mcts#DEF_SCORE} for its player (a terminal Node can only represent a winning move).
+     *
+     * @param node a Node
+     */
+    void setTerminal(int node) {
+        setFlags(node, TERMINAL | EXPANDED);
+        if (parent[node] != NONE)
+            terminalChild.set(parent[node], node);
+        backPropagateScore(node, Mcts.DEF_SCORE, getPlayer(node));
+    }
+
+    /**
+     * Used to expand a Node by claiming the next of it's unexplored children. The children are generated and shuffled
+     * by the first worker expanding the Node, so no lock is needed.
+     * Returns {@link #NONE} in case there are no next possible game states, all children have already been claimed or
+     * another worker is still creating the children. In the first case {@link #setTerminal(int)} is also called on the Node.
+     * Returns the Node itself if the store has no room for its children.
+     *
+     * @param node  the Node to expand
+     * @param board board representing the game state of the Node (board will not be modified)
+     * @return the newly explored leaf Node
+     */
+    int expand(int node, BoardEngine board) {
+        int state = flags.get(node);
+        if ((state & EXPANDED) != 0) {
+            debug.send(LEVEL_4, PLAYER, "NodeStore: expand() called on already expanded Node from " + Thread.currentThread());
+            return NONE;
+        }
+        if ((state & CREATED) == 0 && flags.compareAndSet(node, state, state | CREATED)) {
+            int created = createChildren(node, board);
+            if (created == 0) {
+                setTerminal(node);
+                return NONE;
+            }
+            if (created < 0) {
+                /* no room left, let the next iteration try again after pruning */
+                clearFlags(node, CREATED);
+                return node;
+            }
+        }
+        if (firstChild.get(node) == NONE)
+            return NONE;
+
+        int child;
+        int next;
+        do {
+            child = nextUnclaimed.get(node);
+            if (child == NONE)
+                return NONE;
+            next = nextSibling[child];
+        } while (!nextUnclaimed.compareAndSet(node, child, next));
+        if (claimed != null)
+            claimed.incrementAndGet(node);
+        if (next == NONE)
+            setFlags(node, EXPANDED);
+        if (debug.isCollecting())
+            debug.send(LEVEL_7, PLAYER, "NodeStore: Expanded Node " + describe(node) + " by adding " + describe(child));
+        return child;
+    }
+
+    /**
+     * Use this function to fully expand a node. Should be used when updating the root of the tree and only while no
+     * worker is running. Calling this function will cause the {@link #EXPANDED} flag to be set. With progressive widening
+     * only as many children are claimed as {@link #isSaturated(int)} allows, and the flag is only set if these are all.
+     *
+     * @param node  the Node to expand
+     * @param board board representing the game state of the Node (board will not be modified)
+     * @return the first of the newly claimed children, linked by {@link #nextSibling(int)} up to
+     * {@link #firstUnclaimed(int)}, or {@link #NONE}
+     */
+    int fullExpand(int node, BoardEngine board) {
+        if ((flags.get(node) & CREATED) == 0) {
+            setFlags(node, CREATED);
+            if (createChildren(node, board) < 0) {
+                /* no room left, the workers will simulate from the Node itself */
+                clearFlags(node, CREATED);
+                return NONE;
+            }
+        }
+        debug.send(LEVEL_4, PLAYER, "NodeStore: Full expand on Node: " + describe(node));
+        int first = nextUnclaimed.get(node);
+        if (claimed == null) {
+            setFlags(node, EXPANDED);
+            nextUnclaimed.set(node, NONE);
+            return first;
+        }
+        int next = first;
+        while (next != NONE && claimed.get(node) < width(node)) {
+            next = nextSibling[next];
+            claimed.incrementAndGet(node);
+        }
+        nextUnclaimed.set(node, next);
+        if (next == NONE)
+            setFlags(node, EXPANDED);
+        return first;
+    }
+
+    /**
+     * Method to calculate the UCB1 score via {@link #upperConfBound(int, long, long, long)} and return the explored child that
+     * has the highest value. Is used to determine the Node in the Selection phase of the MCTS algorithm from which the
+     * expansion should start. With a {@link TranspositionTable} the counts of each child are taken from
+     * {@link #transposedGames(int)} and {@link #transposedWins(int)} and the parent's games are the sum of the
+     * children's games.
+     *
+     * @param node an expanded Node
+     * @return child that has the highest UCB1 value or {@link #NONE}
+     */
+    int bestUCBChild(int node) {
+        int end = nextUnclaimed.get(node);
+        long parentGames;
+        if (table == null) {
+            parentGames = games.get(node) + VIRTUAL_LOSS * virtualLosses.get(node);
+        } else {
+            parentGames = 0;
+            for (int child = firstChild.get(node); child != end && child != NONE; child = nextSibling[child]) {
+                parentGames += transposedGames(child) + VIRTUAL_LOSS * virtualLosses.get(child);
+            }
+        }
+        int bestChild = NONE;
+        double highestBound = Double.NEGATIVE_INFINITY;
+        for (int child = firstChild.get(node); child != end && child != NONE; child = nextSibling[child]) {
+            double bound;
+            if (table == null)
+                bound = upperConfBound(child, wins.get(child), games.get(child) + VIRTUAL_LOSS * virtualLosses.get(child),
+                        parentGames);
+            else
+                bound = upperConfBound(child, transposedWins(child),
+                        transposedGames(child) + VIRTUAL_LOSS * virtualLosses.get(child), parentGames);
+            if (Double.isNaN(bound))
+                bound = Double.POSITIVE_INFINITY;
+            if (bound > highestBound) {
+                bestChild = child;
+                highestBound = bound;
+            }
+        }
+        return bestChild;
+    }
+
+    /**
+     * Returns the Upper Confidence Bound 1 (UCB1) value for a Node. The value is calculated like this:
+     * q + c * sqrt( ln(t) / n )
+     * where:
+     * q: v, without RAVE, otherwise (1 - b) * v + b * wa / na with b = sqrt( k / (3 * n + k) )
+     * v: w / n, with progressive widening (w + g * p) / (n + g)
+     * w: number of won games for the Node (its wins divided by {@link Mcts#DEF_SCORE})
+     * n: number of games played for the Node plus its virtual losses
+     * p, g: the prior of the Node and {@link #PRIOR_GAMES}
+     * wa, na: AMAF wins and games of the Node
+     * k: the {@link #raveEquivalence}
+     * t: number of games played for the parent plus its virtual losses
+     * c: the {@link #bias}
+     *
+     * @param node        the Node
+     * @param nodeWins    wins of the Node
+     * @param nodeGames   games of the Node plus its virtual losses
+     * @param parentGames games of the parent of the Node plus its virtual losses
+     * @return UCB1 score calculated
+     */
+    private double upperConfBound(int node, long nodeWins, long nodeGames, long parentGames) {
+        double n = nodeGames;
+        double w = (double) nodeWins / Mcts.DEF_SCORE;
+        double q = priors == null ? w / n : (w + PRIOR_GAMES * priors[node]) / (n + PRIOR_GAMES);
+        if (amafGames != null && amafGames.get(node) > 0) {
+            double beta = Math.sqrt(raveEquivalence / (3 * n + raveEquivalence));
+            q = (1 - beta) * q + beta * amafWins.get(node) / ((double) amafGames.get(node) * Mcts.DEF_SCORE);
+        }
+        return q + bias * Math.sqrt(Math.log(parentGames) / n);
+    }
+
+    /**
+     * Returns the games of the passed Node used by the selection with a {@link TranspositionTable}: the games of the
+     * Node's position in the table if they exceed the Node's own games, otherwise the Node's own games.
+     *
+     * @param node a Node
+     * @return games of the Node or its position
+     */
+    private long transposedGames(int node) {
+        int entry = entry(node);
+        return entry >= 0 && table.getGames(entry) > games.get(node) ? table.getGames(entry) : games.get(node);
+    }
+
+    /**
+     * Returns the wins belonging to {@link #transposedGames(int)}.
+     *
+     * @param node a Node
+     * @return wins of the Node or its position
+     */
+    private long transposedWins(int node) {
+        int entry = entry(node);
+        return entry >= 0 && table.getGames(entry) > games.get(node) ? table.getWins(entry) : wins.get(node);
+    }
+
+    /**
+     * Returns the entry of the position of the passed Node in the {@link #table}.
+     *
+     * @param node a Node
+     * @return index of the entry or -1 if the position is unknown or not stored
+     */
+    private int entry(int node) {
+        long hash = positionHash.get(node);
+        return hash == 0 ? -1 : table.probe(hash);
+    }
+
+    /**
+     * Method to select the explored child of the passed Node which has the highest weight (wins / games ratio).
+     *
+     * @param node a Node
+     * @return child with the highest weight or {@link #NONE}
+     */
+    int maxChild(int node) {
+        int maxChild = NONE;
+        double maxWeight = Double.NEGATIVE_INFINITY;
+        debug.send(LEVEL_3, PLAYER, "NodeStore: Selecting best Move from: ");
+        int end = nextUnclaimed.get(node);
+        for (int child = firstChild.get(node); child != end && child != NONE; child = nextSibling[child]) {
+            double weight = getWeight(child);
+            debug.send(LEVEL_3, PLAYER, describe(child));
+            if (weight > maxWeight) {
+                maxChild = child;
+                maxWeight = weight;
+            }
+        }
+        return maxChild;
+    }
+
+    /**
+     * Method to select the explored child of the passed Node which has the most games.
+     *
+     * @param node a Node
+     * @return child with the most games or {@link #NONE}
+     */
+    int robustChild(int node) {
+        int robustChild = NONE;
+        long maxGames = 0;
+        debug.send(LEVEL_3, PLAYER, "NodeStore: Selecting best Move from: ");
+        int end = nextUnclaimed.get(node);
+        for (int child = firstChild.get(node); child != end && child != NONE; child = nextSibling[child]) {
+            debug.send(LEVEL_3, PLAYER, describe(child));
+            if (games.get(child) > maxGames) {
+                robustChild = child;
+                maxGames = games.get(child);
+            }
+        }
+        return robustChild;
+    }
+
+    /**
+     * Adds a virtual loss to the passed Node: until {@link #removeVirtualLoss(int)} is called, the Node is treated by
+     * {@link #bestUCBChild(int)} as if {@link #VIRTUAL_LOSS} more games had been played and lost in its subtree.
+     *
+     * @param node a Node
+     */
+    void addVirtualLoss(int node) {
+        virtualLosses.incrementAndGet(node);
+    }
+
+    /**
+     * Removes a virtual loss added by {@link #addVirtualLoss(int)} after the worker's result has been backpropagated.
+     *
+     * @param node a Node
+     */
+    void removeVirtualLoss(int node) {
+        virtualLosses.decrementAndGet(node);
+    }
+
+    /**
+     * Method to backpropagate a win score (at most {@link Mcts#DEF_SCORE}) and a winner from the passed Node up to the
+     * root. The Nodes of the winner get the score and the Nodes of the loser {@link Mcts#DEF_SCORE} minus the score, so a
+     * game decided on the board is backpropagated with the full {@link Mcts#DEF_SCORE} and an estimated result with the
+     * estimated winning probability of its more likely winner. The counts are updated atomically, so several workers can
+     * backpropagate through the same Nodes at the same time. With a {@link TranspositionTable} the result is also added
+     * to the position of every Node.
+     *
+     * @param node   the Node the simulation has been run from
+     * @param score  score of the winner that is backpropagated
+     * @param winner Player who won the game or is more likely to win it
+     */
+    void backPropagateScore(int node, int score, PlayerColor winner) {
+        int winnerFlag = winner == BLUE ? BLUE_MOVE : 0;
+        for (; node != NONE; node = parent[node]) {
+            games.incrementAndGet(node);
+            int nodeScore = (flags.get(node) & BLUE_MOVE) == winnerFlag ? score : Mcts.DEF_SCORE - score;
+            if (nodeScore != 0)
+                wins.addAndGet(node, nodeScore);
+            if (table != null)
+                table.add(positionHash.get(node), nodeScore);
+        }
+    }
+
+    /**
+     * Returns whether this store keeps AMAF counts, i.e. whether {@link #updateAmaf(int, int[], int, int, PlayerColor)} has
+     * to be called.
+     *
+     * @return true if RAVE is used
+     */
+    boolean usesRave() {
+        return amafGames != null;
+    }
+
+    /**
+     * Adds the result of a simulated game to the AMAF counts of the explored children of the passed Node whose move has
+     * been played in the game by the player to move at the Node, at the Node or later. The caller records the game in
+     * the passed array: for every move played by that player (indexed by {@link #moveIndex(int)}) the number of the
+     * last ply in which it has been played, counted from any offset. Must be called for every Node on the selected path.
+     *
+     * @param node       a Node on the selected path
+     * @param lastPlayed number of the last ply each move has been played in by the player to move at the Node
+     * @param nodePly    number of the ply in which the move following the Node has been played
+     * @param score      score of the winner, see {@link #backPropagateScore(int, int, PlayerColor)}
+     * @param winner     the winner of the game
+     */
+    void updateAmaf(int node, int[] lastPlayed, int nodePly, int score, PlayerColor winner) {
+        int end = nextUnclaimed.get(node);
+        for (int child = firstChild.get(node); child != end && child != NONE; child = nextSibling[child]) {
+            if (lastPlayed[moveIndex(move[child])] < nodePly)
+                continue;
+            amafGames.incrementAndGet(child);
+            amafWins.addAndGet(child, getPlayer(child) == winner ? score : Mcts.DEF_SCORE - score);
+        }
+    }
+
+    /**
+     * Maps a packed move to an index smaller than {@link #MOVE_INDICES}.
+     *
+     * @param packedMove a move packed by {@link Move#pack()}
+     * @return index of the move
+     */
+    static int moveIndex(int packedMove) {
+        return Move.packedStart(packedMove) * Position.INDICES + Move.packedEnd(packedMove);
+    }
+
+    /**
+     * Makes the passed child of the old root the new root and puts all other Nodes of the old tree back on the free list.
+     * Must only be called while no worker is running.
+     *
+     * @param oldRoot the old root
+     * @param newRoot a child of the old root, or {@link #NONE} to free the whole tree
+     */
+    void reclaim(int oldRoot, int newRoot) {
+        if (newRoot != NONE)
+            parent[newRoot] = NONE;
+        freeSubtree(oldRoot, newRoot);
+    }
+
+    /**
+     * Prunes the tree below the passed root to at most {@link #PRUNE_TARGET} of the capacity. Since a Node never has
+     * more games than its parent, the Nodes with at least some number of games form the top of the tree. The smallest
+     * such number is searched for which keeping these Nodes together with their children fits the target. The children
+     * of all other Nodes are put back on the free list and the Nodes become unexpanded leaves again, keeping their
+     * statistics. Must only be called while no worker is running.
+     *
+     * @param root the root of the tree
+     */
+    void prune(int root) {
+        int before = size();
+        long target = (long) (capacity * PRUNE_TARGET);
+        long low = 1;
+        long high = Math.max(1, games.get(root) + 1);
+        /* smallest threshold whose kept tree fits the target */
+        while (low < high) {
+            long mid = low + (high - low) / 2;
+            if (keptNodes(root, mid) <= target)
+                high = mid;
+            else
+                low = mid + 1;
+        }
+        collapse(root, low);
+        debug.send(LEVEL_2, PLAYER, "NodeStore: Pruned tree from " + before + " to " + size() + " Nodes, keeping the children "
+                + "of Nodes with at least " + low + " games.");
+    }
+
+    /**
+     * Returns a string representation of the passed Node consisting of the move, the player, the flags and the number of
+     * wins and games.
+     *
+     * @param node a Node
+     * @return String representation of the Node
+     */
+    String describe(int node) {
+        return (move[node] == NONE ? "root of tree" : getMove(node).toString()) + " " + getPlayer(node) + " expanded: "
+                + isExpanded(node) + " terminal: " + isTerminal(node) + " wins: " + wins.get(node) + " games " + games.get(node);
+    }
+
+    /**
+     * Initializes a Node taken from the free list.
+     *
+     * @param node       the Node
+     * @param packedMove packed move of the Node or {@link #NONE}
+     * @param parentNode parent of the Node or {@link #NONE}
+     * @param player     player who made the move
+     */
+    private void init(int node, int packedMove, int parentNode, PlayerColor player) {
+        move[node] = packedMove;
+        parent[node] = parentNode;
+        nextSibling[node] = NONE;
+        firstChild.set(node, NONE);
+        nextUnclaimed.set(node, NONE);
+        terminalChild.set(node, NONE);
+        virtualLosses.set(node, 0);
+        wins.set(node, 0);
+        games.set(node, 0);
+        flags.set(node, player == BLUE ? BLUE_MOVE : 0);
+        if (positionHash != null)
+            positionHash.set(node, 0);
+        if (amafGames != null) {
+            amafWins.set(node, 0);
+            amafGames.set(node, 0);
+        }
+        if (claimed != null) {
+            claimed.set(node, 0);
+            priors[node] = 0;
+        }
+    }
+
+    /**
+     * Creates a child for every possible move of the player to move on the passed board, links them in random order
+     * and publishes them as children of the passed Node. With progressive widening the children are linked in the order
+     * of {@link #orderByPrior(MoveList, BoardEngine, PlayerColor)} instead and get priors by their rank, falling linearly
+     * from {@link #PRIOR_BEST} to {@link #PRIOR_WORST}.
+     *
+     * @param node  the Node whose children are created
+     * @param board board representing the game state of the Node (board will not be modified)
+     * @return the number of children or -1 if there is no room for them
+     */
+    private int createChildren(int node, BoardEngine board) {
+        MoveList moves = new MoveList();
+        board.generateMoves(board.getTurn(), moves);
+        int count = moves.size();
+        if (count == 0)
+            return 0;
+        int first = allocate(count);
+        if (first == NONE)
+            return -1;
+        PlayerColor player = board.getTurn();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        /* Fisher-Yates shuffle of the moves, which also breaks the ties of the prior order randomly */
+        for (int i = count - 1; i > 0; --i) {
+            moves.swap(i, random.nextInt(i + 1));
+        }
+        if (priors != null)
+            orderByPrior(moves, board, player);
+        /* the allocated Nodes are free[first .. first + count - 1] */
+        int previous = NONE;
+        for (int i = count - 1; i >= 0; --i) {
+            int child = free[first + i];
+            init(child, moves.get(i), node, player);
+            if (priors != null)
+                priors[child] = count == 1 ? PRIOR_BEST : PRIOR_BEST - (PRIOR_BEST - PRIOR_WORST) * i / (count - 1);
+            nextSibling[child] = previous;
+            previous = child;
+        }
+        nextUnclaimed.set(node, previous);
+        firstChild.set(node, previous);
+        return count;
+    }
+
+    /**
+     * Sorts the passed moves by descending {@link BoardEngine#altScore(Move, PlayerColor)}. Moves with equal scores keep
+     * their order.
+     *
+     * @param moves  the moves to sort
+     * @param board  board on which the moves are possible (board will not be modified)
+     * @param player player making the moves
+     */
+    private void orderByPrior(MoveList moves, BoardEngine board, PlayerColor player) {
+        int count = moves.size();
+        /* the negated score in the upper half and the position in the lower half of each key */
+        long[] keys = new long[count];
+        for (int i = 0; i < count; ++i) {
+            keys[i] = ((long) -board.altScore(Move.unpack(moves.get(i)), player) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] packed = new int[count];
+        for (int i = 0; i < count; ++i) {
+            packed[i] = moves.get((int) keys[i]);
+        }
+        moves.clear();
+        for (int i = 0; i < count; ++i) {
+            moves.add(packed[i]);
+        }
+    }
+
+    /**
+     * Returns the number of children of the passed Node that may be explored with progressive widening.
+     *
+     * @param node a Node
+     * @return 1 + w * sqrt(n), see {@link #isSaturated(int)}
+     */
+    private int width(int node) {
+        return 1 + (int) (widening * Math.sqrt(games.get(node)));
+    }
+
+    /**
+     * Takes the passed number of Nodes from the free list with one compare-and-set.
+     *
+     * @param count number of Nodes
+     * @return the index into {@link #free} of the first taken Node or {@link #NONE} if there are not enough free Nodes
+     */
+    private int allocate(int count) {
+        int available;
+        do {
+            available = freeCount.get();
+            if (available < count)
+                return NONE;
+        } while (!freeCount.compareAndSet(available, available - count));
+        return available - count;
+    }
+
+    /**
+     * Puts the passed Node back on the free list.
+     *
+     * @param node the Node to free
+     */
+    private void release(int node) {
+        free[freeCount.getAndIncrement()] = node;
+    }
+
+    /**
+     * Frees the passed Node and all its descendants except for the subtree of the passed Node to keep.
+     *
+     * @param node the root of the subtree to free
+     * @param keep a Node whose subtree is kept or {@link #NONE}
+     */
+    private void freeSubtree(int node, int keep) {
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0) {
+            int current = stack[--top];
+            for (int child = firstChild.get(current); child != NONE; child = nextSibling[child]) {
+                if (child == keep)
+                    continue;
+                if (top == stack.length)
+                    stack = Arrays.copyOf(stack, 2 * top);
+                stack[top++] = child;
+            }
+            release(current);
+        }
+    }
+
+    /**
+     * Returns the number of Nodes that {@link #collapse(int, long)} keeps for the passed threshold.
+     *
+     * @param root      the root of the tree
+     * @param threshold minimal number of games of a Node whose children are kept
+     * @return the number of kept Nodes
+     */
+    private long keptNodes(int root, long threshold) {
+        long kept = 1;
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int current = stack[--top];
+            if (games.get(current) < threshold && current != root)
+                continue;
+            for (int child = firstChild.get(current); child != NONE; child = nextSibling[child]) {
+                ++kept;
+                if (top == stack.length)
+                    stack = Arrays.copyOf(stack, 2 * top);
+                stack[top++] = child;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Frees the children of every Node below the passed root that has fewer games than the threshold and makes the Node
+     * an unexpanded leaf again. The children of the root are always kept.
+     *
+     * @param root      the root of the tree
+     * @param threshold minimal number of games of a Node whose children are kept
+     */
+    private void collapse(int root, long threshold) {
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int current = stack[--top];
+            if (games.get(current) < threshold && current != root) {
+                if (firstChild.get(current) != NONE) {
+                    for (int child = firstChild.get(current); child != NONE; ) {
+                        int next = nextSibling[child];
+                        freeSubtree(child, NONE);
+                        child = next;
+                    }
+                    firstChild.set(current, NONE);
+                    nextUnclaimed.set(current, NONE);
+                    terminalChild.set(current, NONE);
+                    if (claimed != null)
+                        claimed.set(current, 0);
+                    clearFlags(current, CREATED | EXPANDED);
+                }
+                continue;
+            }
+            for (int child = firstChild.get(current); child != NONE; child = nextSibling[child]) {
+                if (top == stack.length)
+                    stack = Arrays.copyOf(stack, 2 * top);
+                stack[top++] = child;
+            }
+        }
+    }
+
+    /**
+     * Sets the passed flags of a Node.
+     *
+     * @param node a Node
+     * @param set  the flags to set
+     */
+    private void setFlags(int node, int set) {
+        int state;
+        do {
+            state = flags.get(node);
+        } while (!flags.compareAndSet(node, state, state | set));
+    }
+
+    /**
+     * Clears the passed flags of a Node.
+     *
+     * @param node  a Node
+     * @param clear the flags to clear
+     */
+    private void clearFlags(int node, int clear) {
+        int state;
+        do {
+            state = flags.get(node);
+        } while (!flags.compareAndSet(node, state, state & ~clear));
+    }
+}
@@ -0,0 +1,19 @@
+package towerwarspp.player.mcts;
+
+/**
+ * Enum class to differentiate between the ways the {@link Mcts} algorithm distributes its iterations over the
+ * {@link UpdateTree} workers.
+ */
+public enum ParallelizationMode {
+    /**
+     * Tree parallelization means, that all workers run their iterations on one shared tree. Virtual losses spread
+     * the workers over different branches of the tree.
+     */
+    TREE,
+    /**
+     * Root parallelization means, that every worker builds its own tree on its own board copy, so the workers never
+     * touch the same Nodes. When a move is requested the win and game counts of the children of all roots are summed
+     * per move and the move is chosen from these merged statistics according to the {@link TreeSelectionStrategy}.
+     */
+    ROOT
+}
@@ -0,0 +1,158 @@
+package towerwarspp.player.mcts;
+
+import towerwarspp.board.Board;
+import towerwarspp.board.BoardEngine;
+import towerwarspp.board.MoveList;
+import towerwarspp.player.PlayStrategy;
+import towerwarspp.preset.Move;
+import towerwarspp.preset.PlayerColor;
+
+import java.util.Random;
+
+import static towerwarspp.player.mcts.Mcts.DEF_SCORE;
+import static towerwarspp.preset.PlayerColor.BLUE;
+import static towerwarspp.preset.PlayerColor.RED;
+import static towerwarspp.preset.Status.OK;
+
+/**
+ * Plays the simulated games of the Monte Carlo tree search on one scratch board. Every worker of {@link Mcts} owns one
+ * engine with a private {@link XorShiftRandom} and a preallocated {@link MoveList}, so that a simulation neither creates
+ * objects nor shares state with other workers. The board is never copied during the search: it is kept at the game
+ * state of the root, the moves of a simulation are played on it and afterwards taken back to the root by the caller
+ * with {@link BoardEngine#unmakeMovesTo(int)}.
+ *
+ * The heavy policy scores the moves in their packed form (see {@link BoardEngine#altScore(int, PlayerColor)}) and ends
+ * the simulation as soon as it chooses a move to the opponent's base, so that the base does not have to be checked for
+ * threats on every move.
+ */
+class PlayoutEngine {
+    /**
+     * Difference of the static evaluation at which a position cut off by the playout depth counts as won by the player to
+     * move with a probability of 1 / (1 + e^-1), about 73%.
+     */
+    static final int EVAL_SCALE = 400;
+    /**
+     * Amount the static evaluation of a position cut off by the playout depth is lowered for the player to move if the
+     * opponent threatens to destroy the player's base with the next move.
+     */
+    static final int BASE_THREAT = 300;
+    /**
+     * Scratch board the simulations are played on.
+     */
+    private final BoardEngine board;
+    /**
+     * Random number generator of this engine.
+     */
+    private final Random random;
+    /**
+     * List the possible moves are collected in by the heavy policy, reused for every move.
+     */
+    private final MoveList moves = new MoveList();
+    /**
+     * Maximal number of moves of a simulation, 0 for no limit.
+     */
+    private final int depth;
+
+    /**
+     * Creates a new engine playing on the passed board.
+     *
+     * @param board scratch board the simulations are played on, must only be used by the owner of this engine
+     * @param seed  seed of the random number generator
+     * @param depth maximal number of moves of a simulation, 0 for no limit
+     */
+    PlayoutEngine(BoardEngine board, long seed, int depth) {
+        this.board = board;
+        this.random = new XorShiftRandom(seed);
+        this.depth = depth;
+    }
+
+    /**
+     * Returns the scratch board of this engine.
+     *
+     * @return the board the simulations are played on
+     */
+    BoardEngine getBoard() {
+        return board;
+    }
+
+    /**
+     * Plays the game on the scratch board according to the passed {@link PlayStrategy} to the end or until the
+     * playout depth has been reached and returns the score of the blue player: {@link Mcts#DEF_SCORE} if blue has won,
+     * 0 if red has won, and for a game that has been cut off the winning probability of blue estimated by
+     * {@link #evaluate(BoardEngine)} multiplied with {@link Mcts#DEF_SCORE}. The moves are not taken back.
+     *
+     * @param playStrategy strategy choosing the moves, {@link PlayStrategy#LIGHT} or {@link PlayStrategy#HEAVY}
+     * @param played       list the packed moves of the game are added to or null
+     * @return the score of the blue player
+     */
+    int playout(PlayStrategy playStrategy, MoveList played) {
+        for (int ply = 0; board.getStatus() == OK; ++ply) {
+            if (depth > 0 && ply == depth)
+                return evaluate(board);
+            PlayerColor turn = board.getTurn();
+            Move move;
+            if (playStrategy == PlayStrategy.LIGHT) {
+                move = PlayStrategy.lightPlay(board, random);
+            } else {
+                move = PlayStrategy.heavyPlay(board, moves, random);
+                /* heavyPlay chooses a move to the opponent's base whenever there is one, so the winner is known */
+                if (board.altScore(move.pack(), turn) == Board.WIN)
+                    return turn == BLUE ? DEF_SCORE : 0;
+            }
+            if (played != null)
+                played.add(move.pack());
+            board.makeMove(move);
+        }
+
+        switch (board.getStatus()) {
+            case BLUE_WIN:
+                return DEF_SCORE;
+            case RED_WIN:
+                return 0;
+            default:
+                throw new IllegalStateException("PlayoutEngine.playout. Board status can not be illegal.");
+        }
+    }
+
+    /**
+     * Estimates the score of the blue player in the game state of the passed board, which has to be not finished.
+     * If the player to move can destroy the opponent's base, the player wins. Otherwise the static evaluation of
+     * {@link BoardEngine#evaluate(PlayerColor)} (material including the tower heights, mobility and progress towards the
+     * opponent's base), lowered by {@link #BASE_THREAT} if the own base is threatened, is converted into the winning
+     * probability p = 1 / (1 + e^(-evaluation / {@link #EVAL_SCALE})) of the player to move.
+     *
+     * @param board board with the game state to evaluate (board will not be modified)
+     * @return the estimated score of the blue player between 0 and {@link Mcts#DEF_SCORE}
+     */
+    static int evaluate(BoardEngine board) {
+        PlayerColor turn = board.getTurn();
+        if (board.canDestroyBase(turn))
+            return turn == BLUE ? DEF_SCORE : 0;
+        int evaluation = board.evaluate(turn);
+        if (board.canDestroyBase(turn == RED ? BLUE : RED))
+            evaluation -= BASE_THREAT;
+        int score = (int) Math.round(DEF_SCORE / (1 + Math.exp(-(double) evaluation / EVAL_SCALE)));
+        return turn == BLUE ? score : DEF_SCORE - score;
+    }
+
+    /**
+     * Returns the winner of a game with the passed score of the blue player, see {@link #playout(PlayStrategy, MoveList)}.
+     * An even game counts as won by blue.
+     *
+     * @param blueScore the score of the blue player
+     * @return the player who has won the game or is more likely to win it
+     */
+    static PlayerColor winner(int blueScore) {
+        return 2 * blueScore >= DEF_SCORE ? BLUE : RED;
+    }
+
+    /**
+     * Returns the score of the {@link #winner(int)} of a game with the passed score of the blue player.
+     *
+     * @param blueScore the score of the blue player
+     * @return the score of the winner
+     */
+    static int winnerScore(int blueScore) {
+        return 2 * blueScore >= DEF_SCORE ? blueScore : DEF_SCORE - blueScore;
+    }
+}
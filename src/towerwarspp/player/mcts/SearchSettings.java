@@ -0,0 +1,184 @@
+package towerwarspp.player.mcts;
+
+import towerwarspp.board.EngineType;
+
+/**
+ * Options of the {@link Mcts} search beyond the time per move, the strategies, fair play and the bias. An object starts
+ * with the default of every option, the setters return the object itself, so that only the options differing from the
+ * defaults have to be named:
+ * <pre>
+ *     new SearchSettings().setRaveEquivalence(300).setPlayoutDepth(20)
+ * </pre>
+ * The settings are copied by the {@link Mcts} constructor, so changing them afterwards has no effect on the search.
+ */
+public class SearchSettings {
+    /**
+     * {@link EngineType} of the board the search is executed on.
+     */
+    private EngineType engineType = EngineType.ENTITY;
+    /**
+     * {@link ParallelizationMode} deciding whether the workers share one tree.
+     */
+    private ParallelizationMode parallelizationMode = ParallelizationMode.TREE;
+    /**
+     * Maximal number of Nodes of all search trees together.
+     */
+    private int nodeCap = Mcts.DEF_NODE_CAP;
+    /**
+     * If set to true, Nodes reached by different move orders share their counts.
+     */
+    private boolean transpositions;
+    /**
+     * RAVE equivalence parameter, 0 to not use RAVE.
+     */
+    private double raveEquivalence = Mcts.DEF_RAVE_EQUIVALENCE;
+    /**
+     * Factor of the progressive widening, 0 to explore all children of every Node.
+     */
+    private double widening = Mcts.DEF_WIDENING;
+    /**
+     * Maximal number of moves of a simulation, 0 for no limit.
+     */
+    private int playoutDepth = Mcts.DEF_PLAYOUT_DEPTH;
+
+    /**
+     * Returns the {@link EngineType} of the board the search is executed on.
+     *
+     * @return the engine type
+     */
+    public EngineType getEngineType() {
+        return engineType;
+    }
+
+    /**
+     * Sets the {@link EngineType} of the board the search is executed on.
+     *
+     * @param engineType the engine type
+     * @return these settings
+     */
+    public SearchSettings setEngineType(EngineType engineType) {
+        this.engineType = engineType;
+        return this;
+    }
+
+    /**
+     * Returns the {@link ParallelizationMode} of the search.
+     *
+     * @return the parallelization mode
+     */
+    public ParallelizationMode getParallelizationMode() {
+        return parallelizationMode;
+    }
+
+    /**
+     * Sets the {@link ParallelizationMode} of the search.
+     *
+     * @param parallelizationMode the parallelization mode
+     * @return these settings
+     */
+    public SearchSettings setParallelizationMode(ParallelizationMode parallelizationMode) {
+        this.parallelizationMode = parallelizationMode;
+        return this;
+    }
+
+    /**
+     * Returns the maximal number of Nodes of all search trees together.
+     *
+     * @return the node cap
+     */
+    public int getNodeCap() {
+        return nodeCap;
+    }
+
+    /**
+     * Sets the maximal number of Nodes of all search trees together. Every tree gets at least
+     * {@link Mcts#MIN_NODES_PER_TREE} Nodes.
+     *
+     * @param nodeCap the node cap
+     * @return these settings
+     */
+    public SearchSettings setNodeCap(int nodeCap) {
+        this.nodeCap = nodeCap;
+        return this;
+    }
+
+    /**
+     * Returns whether Nodes reached by different move orders share their counts.
+     *
+     * @return true if transpositions are shared
+     */
+    public boolean isTranspositions() {
+        return transpositions;
+    }
+
+    /**
+     * Sets whether Nodes reached by different move orders share their counts through a {@link TranspositionTable}.
+     *
+     * @param transpositions true to share the counts of transpositions
+     * @return these settings
+     */
+    public SearchSettings setTranspositions(boolean transpositions) {
+        this.transpositions = transpositions;
+        return this;
+    }
+
+    /**
+     * Returns the RAVE equivalence parameter.
+     *
+     * @return the RAVE equivalence parameter, 0 if RAVE is not used
+     */
+    public double getRaveEquivalence() {
+        return raveEquivalence;
+    }
+
+    /**
+     * Sets the RAVE equivalence parameter.
+     *
+     * @param raveEquivalence the RAVE equivalence parameter, 0 to not use RAVE
+     * @return these settings
+     */
+    public SearchSettings setRaveEquivalence(double raveEquivalence) {
+        this.raveEquivalence = raveEquivalence;
+        return this;
+    }
+
+    /**
+     * Returns the factor of the progressive widening.
+     *
+     * @return the widening factor, 0 if all children of every Node are explored
+     */
+    public double getWidening() {
+        return widening;
+    }
+
+    /**
+     * Sets the factor of the progressive widening.
+     *
+     * @param widening the widening factor, 0 to explore all children of every Node
+     * @return these settings
+     */
+    public SearchSettings setWidening(double widening) {
+        this.widening = widening;
+        return this;
+    }
+
+    /**
+     * Returns the maximal number of moves of a simulation.
+     *
+     * @return the playout depth, 0 for no limit
+     */
+    public int getPlayoutDepth() {
+        return playoutDepth;
+    }
+
+    /**
+     * Sets the maximal number of moves of a simulation. A simulation reaching it is evaluated statically.
+     *
+     * @param playoutDepth the playout depth, 0 for no limit
+     * @return these settings
+     */
+    public SearchSettings setPlayoutDepth(int playoutDepth) {
+        this.playoutDepth = playoutDepth;
+        return this;
+    }
+}
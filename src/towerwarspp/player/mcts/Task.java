@@ -17,5 +17,20 @@ public enum Task {
     /**
      * Represents the state that a move has been requested.
      */
-    MOVE_REQUESTED
+    MOVE_REQUESTED,
+    /**
+     * Represents the state that the player has decided on its own move without the tree, e.g. because a forced win has been
+     * proven, and the algorithm should from now on only consider the subtree of this move.
+     */
+    MOVE_DECIDED,
+    /**
+     * Represents the state that all {@link UpdateTree} workers have stopped on their own, because the time for the
+     * requested move has run out or the root has a terminal child.
+     */
+    SEARCH_STOPPED,
+    /**
+     * Represents the state that an {@link UpdateTree} worker found no room left in its {@link NodeStore} and the trees
+     * should be pruned before the search goes on.
+     */
+    PRUNE
 }
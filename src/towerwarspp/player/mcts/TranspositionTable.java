@@ -0,0 +1,168 @@
+package towerwarspp.player.mcts;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded table of the win and game counts of positions, shared by all workers of one search tree in the transposition
+ * mode of {@link Mcts}. Different move orders often reach the same position, e.g. two stones moving into a tower in
+ * either order. The {@link NodeStore} keeps a separate Node for every path, but all these Nodes add their results to the
+ * same entry of this table, keyed by the Zobrist hash of the position, and the selection reads the shared counts. This
+ * way the search tree is used like a directed acyclic graph of positions without changing its structure.
+ *
+ * The entries are kept in buckets of {@link #WAYS} entries addressed by the lower bits of the hash, in parallel atomic
+ * arrays, so that the table does not create objects and is updated without locks. If a bucket is full, the entry with
+ * the fewest games is replaced. Replacing an entry races with workers still adding to the old position, which can add a
+ * few results to the new one. This is accepted, the counts are only used to guide the selection.
+ */
+class TranspositionTable {
+    /**
+     * Number of entries per bucket.
+     */
+    static final int WAYS = 4;
+    /**
+     * Key of an empty entry. A position with the hash 0 is never stored.
+     */
+    private static final long EMPTY = 0;
+    /**
+     * Mask selecting the bucket from a hash.
+     */
+    private final int mask;
+    /**
+     * Zobrist hashes of the stored positions.
+     */
+    private final AtomicLongArray keys;
+    /**
+     * Score won in the stored positions by the player who made the move leading to the position.
+     */
+    private final AtomicLongArray wins;
+    /**
+     * Number of games played through the stored positions.
+     */
+    private final AtomicLongArray games;
+
+    /**
+     * Creates a new empty table with at most the specified number of entries, rounded down to a power of two.
+     *
+     * @param entries maximal number of entries
+     */
+    TranspositionTable(int entries) {
+        int buckets = Math.max(1, Integer.highestOneBit(entries / WAYS));
+        mask = buckets - 1;
+        keys = new AtomicLongArray(buckets * WAYS);
+        wins = new AtomicLongArray(buckets * WAYS);
+        games = new AtomicLongArray(buckets * WAYS);
+    }
+
+    /**
+     * Returns the entry of the position with the specified hash or -1 if the position is not stored.
+     *
+     * @param hash Zobrist hash of the position
+     * @return index of the entry or -1
+     */
+    int probe(long hash) {
+        int base = bucket(hash);
+        for (int i = base; i < base + WAYS; ++i) {
+            if (keys.get(i) == hash)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the wins of the entry with the specified index.
+     *
+     * @param entry index returned by {@link #probe(long)}
+     * @return wins of the entry
+     */
+    long getWins(int entry) {
+        return wins.get(entry);
+    }
+
+    /**
+     * Returns the games of the entry with the specified index.
+     *
+     * @param entry index returned by {@link #probe(long)}
+     * @return games of the entry
+     */
+    long getGames(int entry) {
+        return games.get(entry);
+    }
+
+    /**
+     * Adds the result of one game to the position with the specified hash. The position is inserted if it is not stored.
+     *
+     * @param hash  Zobrist hash of the position
+     * @param score score of the player who made the move leading to the position
+     */
+    void add(long hash, int score) {
+        if (hash == EMPTY)
+            return;
+        int entry = probe(hash);
+        if (entry < 0)
+            entry = insert(hash);
+        if (entry < 0)
+            return;
+        games.incrementAndGet(entry);
+        if (score != 0)
+            wins.addAndGet(entry, score);
+    }
+
+    /**
+     * Halves the counts of all entries and removes the entries without games left, so that positions which are no longer
+     * reached by the search make room for new ones. Must only be called while no worker is running.
+     */
+    void age() {
+        for (int i = 0; i < keys.length(); ++i) {
+            if (keys.get(i) == EMPTY)
+                continue;
+            wins.set(i, wins.get(i) / 2);
+            games.set(i, games.get(i) / 2);
+            if (games.get(i) == 0)
+                keys.set(i, EMPTY);
+        }
+    }
+
+    /**
+     * Inserts the position with the specified hash into an empty entry of its bucket or replaces the entry with the
+     * fewest games.
+     *
+     * @param hash Zobrist hash of the position
+     * @return index of the entry or -1 if another worker has taken the entry at the same time
+     */
+    private int insert(long hash) {
+        int base = bucket(hash);
+        int victim = base;
+        long fewestGames = Long.MAX_VALUE;
+        for (int i = base; i < base + WAYS; ++i) {
+            long key = keys.get(i);
+            if (key == hash)
+                return i;
+            if (key == EMPTY) {
+                victim = i;
+                break;
+            }
+            if (games.get(i) < fewestGames) {
+                victim = i;
+                fewestGames = games.get(i);
+            }
+        }
+        long old = keys.get(victim);
+        if (old == hash)
+            return victim;
+        if (!keys.compareAndSet(victim, old, hash))
+            return probe(hash);
+        wins.set(victim, 0);
+        games.set(victim, 0);
+        return victim;
+    }
+
+    /**
+     * Returns the index of the first entry of the bucket of the specified hash.
+     *
+     * @param hash Zobrist hash of a position
+     * @return index of the first entry of the bucket
+     */
+    private int bucket(long hash) {
+        return ((int) hash & mask) * WAYS;
+    }
+}
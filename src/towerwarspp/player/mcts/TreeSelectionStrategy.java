@@ -8,12 +8,12 @@ package towerwarspp.player.mcts;
 public enum TreeSelectionStrategy {
     /**
      * Robust strategy means, that when deciding on a move to return, the MCTS algorithm will return the move of the child
-     * that has the highest {@link Node#getGames()} value.
+     * that has the highest {@link NodeStore#getGames(int)} value.
      */
     ROBUST,
     /**
      * Max strategy means, that when deciding on a move to return, the MCTS algorithm will return the move of the child
-     * that has the highest {@link Node#getWeight()} value (wins / games ratio)
+     * that has the highest {@link NodeStore#getWeight(int)} value (wins / games ratio)
      */
     MAX
 }
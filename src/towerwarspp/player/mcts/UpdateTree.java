@@ -1,22 +1,27 @@
 package towerwarspp.player.mcts;
 
 
-import towerwarspp.board.Board;
+import towerwarspp.board.BoardEngine;
+import towerwarspp.board.MoveList;
 import towerwarspp.player.PlayStrategy;
 import towerwarspp.preset.Move;
 import towerwarspp.preset.PlayerColor;
 import towerwarspp.util.debug.Debug;
 
+import java.util.Arrays;
+
 import static towerwarspp.player.mcts.Mcts.DEF_SCORE;
-import static towerwarspp.preset.PlayerColor.BLUE;
-import static towerwarspp.preset.PlayerColor.RED;
 import static towerwarspp.preset.Status.BLUE_WIN;
 import static towerwarspp.preset.Status.OK;
 import static towerwarspp.util.debug.DebugLevel.*;
 import static towerwarspp.util.debug.DebugSource.PLAYER;
 
 /**
- * Runnable class that provides the option of parallelization of the Monte Carlo tree search algorithm.
+ * Runnable class that provides the option of parallelization of the Monte Carlo tree search algorithm. All UpdateTree
+ * objects of a tree share one {@link NodeStore} whose Nodes are updated without locks. Every Node on the selected path
+ * gets a virtual loss while the iteration is running, so concurrent iterations are steered into different branches.
+ * A worker runs iterations continuously as long as {@link Mcts#continueSearch()} allows it. If the tree uses RAVE, the
+ * worker records the moves of every simulated game and updates the AMAF counts of the selected path with its result.
  *
  * @author Robin Hundt
  */
@@ -28,121 +33,209 @@ class UpdateTree implements Runnable {
     /**
      * Board that the algorithm is executed on.
      */
-    private final Board board;
+    private final BoardEngine board;
+    /**
+     * Store of the Nodes of the search tree.
+     */
+    private final NodeStore tree;
     /**
      * Root of the search tree.
      */
-    private final Node root;
+    private final int root;
     /**
      * The play strategy employed in the simulation phase of the algorithm
      */
     private final PlayStrategy playStrategy;
     /**
-     * Variable specifying which subtree of the current root to explore. For example if set to 3, in the first selection
-     * step the Node with the third highest UCB1 score is selected. From there on only Nodes that have a maximal
-     * UCB1 score are selected.
+     * The search this worker belongs to, which decides how long the worker runs.
+     */
+    private final Mcts search;
+    /**
+     * Engine of this worker playing the simulations on the {@link #board}.
+     */
+    private final PlayoutEngine engine;
+    /**
+     * Packed moves of the current iteration if the tree uses RAVE, otherwise null: first the moves of the selected path
+     * starting at the root, then the moves of the simulation.
+     */
+    private final MoveList played;
+    /**
+     * For the player making the even and the odd plies of {@link #played} the number of the last ply every move has been
+     * played in, indexed by {@link NodeStore#moveIndex(int)}. Null if the tree does not use RAVE.
      */
-    private final int nthSubtree;
+    private final int[][] lastPlayed;
+    /**
+     * Number the first ply of the current iteration has in {@link #lastPlayed}. It is increased after every iteration, so
+     * entries of earlier iterations are always smaller and the arrays do not have to be cleared.
+     */
+    private int plyOffset = 1;
 
     /**
-     * Constructor to construct a new UpdateTree object. As {@link Board} only copies of the actual board the game is
-     * played on should be passed to this object.
+     * Constructor to construct a new UpdateTree object. The simulations are played by the passed {@link PlayoutEngine} on
+     * its board, which must be a copy of the actual board the game is played on. All moves made by {@link #run()} are
+     * taken back after every iteration, so the same engine can be passed to the next UpdateTree object.
      *
-     * @param board        the {@link Board} object used to to run simulation of the game on. Only copies of Boards should be passsed
-     *                     since they'll be changed by the {@link #playStrategy} and {@link #run()} methods.
+     * @param tree         store of the Nodes of the search tree
      * @param root         Node representing the game state from which the algorithm should be executed.
      * @param playStrategy {@link PlayStrategy} to employ during the simulation phase
-     * @param nthSubtree   which subtree from the root to continue the selection phase on
+     * @param search       the search this worker belongs to
+     * @param engine       engine playing the simulations that is only used by this worker
      */
-    UpdateTree(Board board, Node root, PlayStrategy playStrategy, int nthSubtree) {
+    UpdateTree(NodeStore tree, int root, PlayStrategy playStrategy, Mcts search, PlayoutEngine engine) {
         this.debug = Debug.getInstance();
-        this.board = board;
+        this.board = engine.getBoard();
+        this.tree = tree;
         this.root = root;
         this.playStrategy = playStrategy;
-        this.nthSubtree = nthSubtree;
+        this.search = search;
+        this.engine = engine;
+        played = tree.usesRave() ? new MoveList() : null;
+        lastPlayed = tree.usesRave() ? new int[2][NodeStore.MOVE_INDICES] : null;
     }
 
-    static PlayerColor playout(Board board, PlayStrategy playStrategy) {
-        while (board.getStatus() == OK) {
-            Move move;
-            if (playStrategy == PlayStrategy.LIGHT)
-                move = PlayStrategy.lightPlay(board);
-            else
-                move = PlayStrategy.heavyPlay(board);
-            board.makeMove(move);
+    /**
+     * Running this method in a parallel Thread by passing on instance of this class to a Thread and executing it will
+     * will enable the {@link Mcts} algorithm to do multiple iterations of the select - expand - simulate - backpropagate
+     * loop concurrently. Iterations are run by {@link #iteration()} until {@link Mcts#continueSearch()} returns false,
+     * then {@link Mcts#workerStopped()} is called.
+     */
+    @Override
+    public void run() {
+        try {
+            while (search.continueSearch()) {
+                iteration();
+            }
+        } finally {
+            search.workerStopped();
         }
+    }
 
-        switch (board.getStatus()) {
-            case BLUE_WIN:
-                return BLUE;
-            case RED_WIN:
-                return RED;
-            default:
-                throw new IllegalStateException("Mcts.playout. Board status can not be illegal.");
+    /**
+     * Executes one iteration of the algorithm.
+     * In this method from the root at each depth the child with the highest UCB score is selected
+     * until a child is reached for which {@link NodeStore#isSaturated(int)} returns false. Then this Child is expanded and
+     * a simulation according to the specified {@link #playStrategy} is executed. The result of that simulation is
+     * backpropagated up the tree. Finally the virtual losses are removed from the selected Nodes and all moves are taken
+     * back from the {@link #board}.
+     */
+    private void iteration() {
+        int rootHistory = board.getHistorySize();
+        if (played != null)
+            played.clear();
+        tree.addVirtualLoss(root);
+        int last = root;
+        try {
+            last = iterate();
+        } finally {
+            for (int node = last; node != NodeStore.NONE; node = tree.getParent(node)) {
+                tree.removeVirtualLoss(node);
+                if (node == root)
+                    break;
+            }
+            board.unmakeMovesTo(rootHistory);
         }
     }
 
     /**
-     * Running this method in a parallel Thread by passing on instance of this class to a Thread and executing it will
-     * will enable the {@link Mcts} algorithm to do multiple iterations of the select - expand - simulate - backpropagate
-     * loop concurrently.
+     * Executes one iteration of the select - expand - simulate - backpropagate loop as described in {@link #iteration()}.
+     * A virtual loss is added to every Node before the Node is descended into. If the {@link NodeStore} has no room for
+     * the children of the selected Node, the simulation is run from the selected Node itself.
      *
-     * In this method first from the root the Child that has the {@link #nthSubtree} highest USB1 score is selected.
-     * From there on at each depth the child with the highest UCB score is selected
-     * until a child is reached whose {@link Node#isExpanded()} returns false. Then this Child is expanded and
-     * a simulation according to the specified {@link #playStrategy} is executed. The result of that simulation is
-     * backpropagated up the tree.
+     * @return the last Node a virtual loss has been added to
      */
-    @Override
-    public void run() {
-        Node selectedChild = root;
-        debug.send(LEVEL_3, PLAYER, "Mcts: Select on " + root);
-        debug.send(LEVEL_4, PLAYER, "Roots children: " + root.getChildren().toString());
+    private int iterate() {
+        int selectedChild = root;
+        if (debug.isCollecting())
+            debug.send(LEVEL_3, PLAYER, "Mcts: Select on " + tree.describe(root));
 
         /* Selection phase of the algorithm:
-        * From the root first select the Child that has the nth highest UCB1 score specified during object construction.
-        */
-        if (selectedChild.isExpanded() && !selectedChild.isTerminal()) {
-            selectedChild = selectedChild.nthBestUCBChild(nthSubtree % selectedChild.childCount());
-            board.makeMove(selectedChild.getMove());
-            if (board.getStatus() != OK) {
-                selectedChild.setTerminalTrue();
-                debug.send(LEVEL_5, PLAYER, "Mcts: Found terminal Node " + selectedChild);
-            }
-        }
-        /* From there on at each depth select the child with the highest UCB1 score as long as the selected Child
+        * At each depth select the child with the highest UCB1 score as long as the selected Child
         * is expanded and not terminal*/
-        Node expNode;
-        while (selectedChild.isExpanded() && !selectedChild.isTerminal()) {
-            selectedChild = selectedChild.bestUCBChild();
-            debug.send(LEVEL_5, PLAYER, "Mcts: selected child " + selectedChild);
+        while (tree.isSaturated(selectedChild) && !tree.isTerminal(selectedChild)) {
+            int bestChild = tree.bestUCBChild(selectedChild);
+            if (bestChild == NodeStore.NONE)
+                return selectedChild;
+            selectedChild = bestChild;
+            tree.addVirtualLoss(selectedChild);
+            if (debug.isCollecting())
+                debug.send(LEVEL_5, PLAYER, "Mcts: selected child " + tree.describe(selectedChild));
 
-            board.makeMove(selectedChild.getMove());
+            makeMove(selectedChild);
             if (board.getStatus() != OK) {
-                selectedChild.setTerminalTrue();
-                debug.send(LEVEL_5, PLAYER, "Mcts: Found terminal Node " + selectedChild);
+                tree.setTerminal(selectedChild);
+                debug.send(LEVEL_5, PLAYER, "Mcts: Found terminal Node");
             }
         }
 
-        debug.send(LEVEL_3, PLAYER, "Mcts: Found best child " + selectedChild);
-
-        if (selectedChild.isTerminal()) {
-            selectedChild.backPropagateScore(DEF_SCORE, board.getStatus() == BLUE_WIN ? BLUE : RED);
-        } else if (!selectedChild.isExpanded()) {
+        if (tree.isTerminal(selectedChild)) {
+            backPropagate(selectedChild, board.getStatus() == BLUE_WIN ? DEF_SCORE : 0);
+        } else if (!tree.isSaturated(selectedChild)) {
                 /* if the selected Child is neither terminal nor expanded expand the Node and do a playout, then backpropagate
                 * the result */
-            expNode = selectedChild.expand(board);
-            if (expNode != null) {
-
-                board.makeMove(expNode.getMove());
+            int expNode = tree.expand(selectedChild, board);
+            if (expNode == selectedChild) {
+                /* no room for the children, the Node is played out itself until the trees have been pruned */
+                search.requestPrune();
+                backPropagate(selectedChild, engine.playout(playStrategy, played));
+            } else if (expNode != NodeStore.NONE) {
+                tree.addVirtualLoss(expNode);
+                makeMove(expNode);
+                tree.setPosition(expNode, board);
 
                 if (board.getStatus() != OK) {
-//                        System.out.println("Setting terminal");
-                    expNode.setTerminalTrue();
+                    tree.setTerminal(expNode);
                 } else {
-                    expNode.backPropagateScore(DEF_SCORE, playout(board, playStrategy));
+                    backPropagate(expNode, engine.playout(playStrategy, played));
                 }
+                return expNode;
             }
         }
+        return selectedChild;
+    }
+
+    /**
+     * Makes the move of the passed Node on the {@link #board} and records it in {@link #played}.
+     *
+     * @param node a Node
+     */
+    private void makeMove(int node) {
+        Move move = tree.getMove(node);
+        if (played != null)
+            played.add(move.pack());
+        board.makeMove(move);
+    }
+
+    /**
+     * Backpropagates the result of the simulated game from the passed Node up the tree, and if the tree uses RAVE,
+     * updates the AMAF counts of the children of all Nodes from the passed Node up to the {@link #root} with the moves
+     * recorded in {@link #played}.
+     *
+     * @param node      the Node the simulation has been run from
+     * @param blueScore the score of the blue player in the game
+     */
+    private void backPropagate(int node, int blueScore) {
+        PlayerColor winner = PlayoutEngine.winner(blueScore);
+        int score = PlayoutEngine.winnerScore(blueScore);
+        tree.backPropagateScore(node, score, winner);
+        if (played == null)
+            return;
+        if (plyOffset > Integer.MAX_VALUE / 2) {
+            Arrays.fill(lastPlayed[0], 0);
+            Arrays.fill(lastPlayed[1], 0);
+            plyOffset = 1;
+        }
+        for (int ply = 0; ply < played.size(); ++ply) {
+            lastPlayed[ply & 1][NodeStore.moveIndex(played.get(ply))] = plyOffset + ply;
+        }
+        int depth = 0;
+        for (int current = node; current != root; current = tree.getParent(current)) {
+            ++depth;
+        }
+        for (int current = node; ; current = tree.getParent(current), --depth) {
+            tree.updateAmaf(current, lastPlayed[depth & 1], plyOffset + depth, score, winner);
+            if (current == root)
+                break;
+        }
+        plyOffset += played.size() + 1;
     }
 }
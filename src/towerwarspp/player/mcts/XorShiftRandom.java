@@ -0,0 +1,53 @@
+package towerwarspp.player.mcts;
+
+import java.util.Random;
+
+/**
+ * Fast random number generator for the simulations of one {@link PlayoutEngine}. {@link Random} keeps its seed in an
+ * {@link java.util.concurrent.atomic.AtomicLong} and updates it with a compare-and-set on every number, which is wasted
+ * work for a generator that is only used by one Thread. This generator keeps its state in a plain long and advances it
+ * with a xorshift64* step instead. It is a subclass of {@link Random}, so it can be passed to all methods drawing from
+ * one, but it must not be shared between Threads.
+ */
+class XorShiftRandom extends Random {
+    private static final long serialVersionUID = 1L;
+    /**
+     * Multiplier of the output of the xorshift64* generator.
+     */
+    private static final long MULTIPLIER = 0x2545F4914F6CDD1DL;
+    /**
+     * Current state of the generator, never 0.
+     */
+    private long state;
+
+    /**
+     * Creates a new generator with the specified seed.
+     *
+     * @param seed the initial seed, any value is allowed
+     */
+    XorShiftRandom(long seed) {
+        super(0);
+        /* spread the seed over all bits, so that similar seeds give different sequences */
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        state = (z ^ (z >>> 31)) | 1;
+    }
+
+    /**
+     * Advances the state and returns the specified number of its highest random bits. All other methods of
+     * {@link Random} draw from this one.
+     *
+     * @param bits number of random bits
+     * @return the random bits
+     */
+    @Override
+    protected int next(int bits) {
+        long x = state;
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        state = x;
+        return (int) ((x * MULTIPLIER) >>> (64 - bits));
+    }
+}
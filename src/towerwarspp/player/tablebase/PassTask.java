@@ -0,0 +1,62 @@
+package towerwarspp.player.tablebase;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * One pass of the {@link TablebaseGenerator} over a range of items, for example positions or stone configurations.
+ * A range which is larger than the leaf size is split into halves, which are processed in parallel.
+ * A range which is not larger than the leaf size is handed to {@link TablebaseGenerator#run(TablebaseGenerator.Pass, int, int)}.
+ */
+final class PassTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    /**
+     * The generator that processes the items.
+     */
+    private final TablebaseGenerator generator;
+    /**
+     * The pass to run.
+     */
+    private final TablebaseGenerator.Pass pass;
+    /**
+     * The first item of the range.
+     */
+    private final int from;
+    /**
+     * The item after the last one of the range.
+     */
+    private final int to;
+    /**
+     * The largest number of items which are processed without splitting the range.
+     */
+    private final int leafSize;
+
+    /**
+     * Creates a new task running the specified pass over the specified range of items.
+     *
+     * @param generator the generator that processes the items
+     * @param pass      the pass to run
+     * @param from      the first item of the range
+     * @param to        the item after the last one of the range
+     * @param leafSize  the largest number of items which are processed without splitting the range
+     */
+    PassTask(TablebaseGenerator generator, TablebaseGenerator.Pass pass, int from, int to, int leafSize) {
+        this.generator = generator;
+        this.pass = pass;
+        this.from = from;
+        this.to = to;
+        this.leafSize = leafSize;
+    }
+
+    /**
+     * Processes the range or splits it into halves which are processed in parallel.
+     */
+    @Override
+    protected void compute() {
+        if (to - from <= leafSize) {
+            generator.run(pass, from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        invokeAll(new PassTask(generator, pass, from, mid, leafSize), new PassTask(generator, pass, mid, to, leafSize));
+    }
+}
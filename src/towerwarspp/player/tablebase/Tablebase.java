@@ -0,0 +1,233 @@
+package towerwarspp.player.tablebase;
+
+import towerwarspp.board.MoveList;
+import towerwarspp.board.PackedBoard;
+import towerwarspp.preset.Move;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static towerwarspp.preset.Status.OK;
+
+/**
+ * Read-only view of a tablebase file written by {@link TablebaseGenerator}. The file contains the exact game theoretic value
+ * of every position of one board size in which no player has more than a certain number of stones, a tower counting
+ * as two stones. The positions are identified by their {@link PackedBoard#positionKey()} and stored sorted by key,
+ * so a position is looked up by binary search. The file is mapped into memory with {@link MappedByteBuffer}s
+ * instead of being read, so opening it is cheap and only the pages touched by the searches are loaded.
+ * <p>
+ * The value of a position is seen from the player to move: a positive value n means that this player wins in n plies,
+ * a negative value -n that the player loses in n plies, and {@link #DRAW} that neither player can force a win.
+ * <p>
+ * Tablebases are installed per board size with {@link #install(Tablebase)}, so that all players of a game can probe
+ * the same mapped file.
+ */
+public final class Tablebase {
+    /**
+     * Value of a position in which neither player can force a win.
+     */
+    public static final int DRAW = 0;
+    /**
+     * Returned by {@link #probe(long)} for positions which are not covered by the tablebase.
+     */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+    /**
+     * First four bytes of every tablebase file.
+     */
+    static final int MAGIC = 0x54575442;
+    /**
+     * Version of the file format.
+     */
+    static final int VERSION = 1;
+    /**
+     * Number of bytes of the file header: magic, version, board size, stone limit and number of positions.
+     */
+    static final int HEADER_BYTES = 24;
+    /**
+     * Number of positions covered by one mapped buffer. A single buffer can not be larger than 2 GB.
+     */
+    private static final int SEGMENT_POSITIONS = 1 << 27;
+    /**
+     * Installed tablebases indexed by board size.
+     */
+    private static final Tablebase[] INSTALLED = new Tablebase[27];
+    /**
+     * Size of the board the positions belong to.
+     */
+    private final int size;
+    /**
+     * Largest number of stones a player may have in a covered position.
+     */
+    private final int maxStones;
+    /**
+     * Number of positions in the file.
+     */
+    private final long count;
+    /**
+     * The sorted position keys, {@link #SEGMENT_POSITIONS} keys per buffer.
+     */
+    private final MappedByteBuffer[] keys;
+    /**
+     * The values of the positions as shorts in the order of the keys, {@link #SEGMENT_POSITIONS} values per buffer.
+     */
+    private final MappedByteBuffer[] values;
+
+    /**
+     * Maps the specified tablebase file into memory.
+     *
+     * @param file the file written by {@link TablebaseGenerator#write(File)}
+     * @throws IOException if the file can not be read or is no tablebase file
+     */
+    public Tablebase(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            if (in.length() < HEADER_BYTES || in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + " is no tablebase file.");
+            }
+            size = in.readInt();
+            maxStones = in.readInt();
+            count = in.readLong();
+            if (!PackedBoard.hasPositionKey(size) || count < 0
+                    || in.length() != HEADER_BYTES + count * (Long.BYTES + Short.BYTES)) {
+                throw new IOException(file + " is damaged.");
+            }
+            FileChannel channel = in.getChannel();
+            int segments = (int) ((count + SEGMENT_POSITIONS - 1) / SEGMENT_POSITIONS);
+            keys = new MappedByteBuffer[segments];
+            values = new MappedByteBuffer[segments];
+            long valueStart = HEADER_BYTES + count * Long.BYTES;
+            for (int i = 0; i < segments; ++i) {
+                long first = (long) i * SEGMENT_POSITIONS;
+                long length = Math.min(SEGMENT_POSITIONS, count - first);
+                keys[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * Long.BYTES, length * Long.BYTES);
+                values[i] = channel.map(FileChannel.MapMode.READ_ONLY, valueStart + first * Short.BYTES, length * Short.BYTES);
+            }
+        }
+    }
+
+    /**
+     * Makes the specified tablebase available to all players through {@link #forSize(int)}. A tablebase installed
+     * before for the same board size is replaced.
+     *
+     * @param tablebase the tablebase to install
+     */
+    public static synchronized void install(Tablebase tablebase) {
+        INSTALLED[tablebase.size] = tablebase;
+    }
+
+    /**
+     * Returns the tablebase installed for the specified board size.
+     *
+     * @param size size of the board
+     * @return the installed tablebase or null if there is none
+     */
+    public static synchronized Tablebase forSize(int size) {
+        return size < INSTALLED.length ? INSTALLED[size] : null;
+    }
+
+    /**
+     * Returns the size of the board the positions belong to.
+     *
+     * @return the size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the largest number of stones a player may have in a covered position.
+     *
+     * @return the stone limit of the tablebase
+     */
+    public int getMaxStones() {
+        return maxStones;
+    }
+
+    /**
+     * Returns the number of positions stored in the tablebase.
+     *
+     * @return the number of positions
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the value of the position with the specified key for the player to move.
+     *
+     * @param key the {@link PackedBoard#positionKey()} of the position
+     * @return the value of the position or {@link #UNKNOWN} if it is not covered
+     */
+    public int probe(long key) {
+        long low = 0;
+        long high = count - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            long midKey = keys[(int) (mid / SEGMENT_POSITIONS)].getLong((int) (mid % SEGMENT_POSITIONS) * Long.BYTES);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return values[(int) (mid / SEGMENT_POSITIONS)].getShort((int) (mid % SEGMENT_POSITIONS) * Short.BYTES);
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Returns the value of the current position of the specified board for the player to move.
+     *
+     * @param board the board, which must have the size of this tablebase and must not be finished
+     * @return the value of the position or {@link #UNKNOWN} if it is not covered
+     */
+    public int probe(PackedBoard board) {
+        return probe(board.positionKey());
+    }
+
+    /**
+     * Returns a move of perfect play for the player to move: the move which wins fastest, or keeps the draw,
+     * or loses as late as possible. The board is left unchanged.
+     *
+     * @param board the board, which must have the size of this tablebase and must not be finished
+     * @return a perfect move or null if the position is not covered
+     */
+    public Move bestMove(PackedBoard board) {
+        if (probe(board) == UNKNOWN) {
+            return null;
+        }
+        MoveList moves = new MoveList();
+        board.generateMoves(board.getTurn(), moves);
+        int bestMove = -1;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); ++i) {
+            board.makeMove(moves.move(i));
+            int rank = board.getStatus() == OK ? rank(probe(board)) : Integer.MAX_VALUE;
+            board.unmakeMove();
+            if (rank > bestRank) {
+                bestRank = rank;
+                bestMove = i;
+            }
+        }
+        return bestMove < 0 ? null : moves.move(bestMove);
+    }
+
+    /**
+     * Ranks a move by the value of the position it leads to, which is seen from the opponent. Faster wins are ranked
+     * higher than slower ones, wins higher than draws and draws higher than losses, slower losses higher than faster ones.
+     *
+     * @param childValue the value of the position after the move for the opponent
+     * @return the rank of the move for the player making it
+     */
+    private static int rank(int childValue) {
+        if (childValue == UNKNOWN) {
+            throw new IllegalStateException("Tablebase: position after a move is not covered.");
+        }
+        if (childValue < 0) {
+            return Short.MAX_VALUE + 1 + childValue;
+        }
+        return childValue == DRAW ? 0 : childValue - Short.MAX_VALUE - 1;
+    }
+}
@@ -0,0 +1,447 @@
+package towerwarspp.player.tablebase;
+
+import towerwarspp.board.MoveList;
+import towerwarspp.board.PackedBoard;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static towerwarspp.preset.Status.OK;
+
+/**
+ * Offline generator of {@link Tablebase} files. It solves every position of one board size in which no player has more
+ * than a given number of stones, a tower counting as two stones. No move increases the number of stones of a player,
+ * so the moves of these positions only lead to finished games or to positions which are solved as well.
+ * <p>
+ * The generator works in three steps, each of which is split over all cores with a {@link ForkJoinPool}:
+ * <ol>
+ * <li>All placements of the stones of both players are enumerated as {@link PackedBoard#positionKey()}s. Positions in which
+ * the player to move has no move are left out, since the game ends before such a position is reached. The keys are
+ * sorted, so every position is identified by its index.</li>
+ * <li>The moves of every position are executed once. A position with a move that ends the game is won in one ply,
+ * for all other positions the indices of the following positions are stored.</li>
+ * <li>Retrograde analysis: sweep n solves all positions that are won or lost in exactly n plies. A position is won in
+ * n plies if a following position is lost in n - 1 plies, and lost in n plies if every following position is won in
+ * less than n plies. Only positions solved by earlier sweeps are taken into account, so the result does not depend on
+ * the order in which the cores process the positions. Positions left over when a sweep solves nothing are draws.</li>
+ * </ol>
+ * All keys, all values and the following positions of all positions are held in memory, which limits the stones
+ * that can be solved on one machine.
+ */
+public final class TablebaseGenerator {
+    /**
+     * Passes of the generator which are run in parallel by {@link PassTask}s.
+     */
+    enum Pass {
+        /**
+         * Enumerates the positions for a range of placements of the red stones.
+         */
+        ENUMERATE,
+        /**
+         * Counts the following positions of a range of positions and finds the positions won in one ply.
+         */
+        COUNT,
+        /**
+         * Stores the indices of the following positions of a range of positions.
+         */
+        LINK,
+        /**
+         * Solves the positions of a range which are won or lost in the number of plies of the current sweep.
+         */
+        SWEEP
+    }
+
+    /**
+     * Number of placements of the red stones enumerated without splitting the range.
+     */
+    private static final int ENUMERATE_LEAF_SIZE = 16;
+    /**
+     * Number of positions processed without splitting the range.
+     */
+    private static final int POSITION_LEAF_SIZE = 4096;
+    /**
+     * Size of the board.
+     */
+    private final int size;
+    /**
+     * Largest number of stones a player may have.
+     */
+    private final int maxStones;
+    /**
+     * Number of fields which are no bases. These are the fields described by a position key.
+     */
+    private final int fieldCount;
+    /**
+     * Pool running the passes.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Occupied fields of all placements of the stones of one player, one bit per field.
+     */
+    private int[] placementFields = new int[64];
+    /**
+     * Tokens of all placements of the stones of one player, two bits per field: 0 for a stone, 1 for a tower
+     * and 3 for a blocked tower.
+     */
+    private long[] placementTokens = new long[64];
+    /**
+     * Number of placements.
+     */
+    private int placementCount;
+    /**
+     * Keys collected by the {@link Pass#ENUMERATE} tasks.
+     */
+    private final List<long[]> enumerated = new ArrayList<long[]>();
+    /**
+     * Sorted keys of all positions.
+     */
+    private long[] keys;
+    /**
+     * Values of all positions as described in {@link Tablebase}, 0 as long as a position is not solved.
+     */
+    private short[] values;
+    /**
+     * The following positions of position i are stored in {@link #links} from index offsets[i] to offsets[i + 1].
+     */
+    private int[] offsets;
+    /**
+     * Indices of the following positions of all positions.
+     */
+    private int[] links;
+    /**
+     * Number of plies of the positions solved by the current sweep.
+     */
+    private int plies;
+    /**
+     * Number of positions solved by the current sweep.
+     */
+    private final AtomicLong solved = new AtomicLong();
+
+    /**
+     * Creates a new generator for the specified board size and stone limit.
+     *
+     * @param size        size of the board
+     * @param maxStones   largest number of stones a player may have
+     * @param parallelism number of cores to use
+     * @throws IllegalArgumentException if positions on boards of the specified size have no position keys or
+     *                                  the stone limit is larger than the number of stones of a player at the beginning
+     */
+    public TablebaseGenerator(int size, int maxStones, int parallelism) {
+        if (!PackedBoard.hasPositionKey(size)) {
+            throw new IllegalArgumentException("Positions on boards of size " + size + " can not be stored in a tablebase.");
+        }
+        int d = size / 2;
+        if (maxStones < 1 || maxStones > (d + 1) * (d + 2) / 2 - 1) {
+            throw new IllegalArgumentException("A player can not have " + maxStones + " stones on a board of size " + size + ".");
+        }
+        this.size = size;
+        this.maxStones = maxStones;
+        this.fieldCount = size * size - 2;
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    /**
+     * Generates a tablebase and writes it to a file.
+     * Usage: TablebaseGenerator size maxStones file [parallelism]
+     *
+     * @param args size of the board, largest number of stones a player may have, name of the file and optionally
+     *             the number of cores to use
+     * @throws IOException if the file can not be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: TablebaseGenerator size maxStones file [parallelism]");
+            System.exit(1);
+        }
+        int parallelism = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        TablebaseGenerator generator = new TablebaseGenerator(Integer.parseInt(args[0]), Integer.parseInt(args[1]), parallelism);
+        generator.generate();
+        generator.write(new File(args[2]));
+    }
+
+    /**
+     * Enumerates and solves all positions.
+     */
+    public void generate() {
+        long start = System.currentTimeMillis();
+        addPlacements(0, maxStones, 0, 0);
+        pool.invoke(new PassTask(this, Pass.ENUMERATE, 0, placementCount, ENUMERATE_LEAF_SIZE));
+        int count = 0;
+        for (long[] chunk : enumerated) {
+            count += chunk.length;
+        }
+        keys = new long[count];
+        int next = 0;
+        for (long[] chunk : enumerated) {
+            System.arraycopy(chunk, 0, keys, next, chunk.length);
+            next += chunk.length;
+        }
+        enumerated.clear();
+        Arrays.parallelSort(keys);
+        System.out.println("Tablebase: " + count + " positions");
+
+        values = new short[count];
+        offsets = new int[count + 1];
+        pool.invoke(new PassTask(this, Pass.COUNT, 0, count, POSITION_LEAF_SIZE));
+        for (int i = 0; i < count; ++i) {
+            if ((long) offsets[i] + offsets[i + 1] > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Too many moves for one tablebase, lower the stone limit.");
+            }
+            offsets[i + 1] += offsets[i];
+        }
+        int total = offsets[count];
+        links = new int[total];
+        pool.invoke(new PassTask(this, Pass.LINK, 0, count, POSITION_LEAF_SIZE));
+        System.out.println("Tablebase: " + total + " moves");
+
+        for (plies = 2; ; ++plies) {
+            if (plies > Short.MAX_VALUE) {
+                throw new IllegalStateException("Game lengths do not fit into the tablebase.");
+            }
+            solved.set(0);
+            pool.invoke(new PassTask(this, Pass.SWEEP, 0, count, POSITION_LEAF_SIZE));
+            if (solved.get() == 0) {
+                break;
+            }
+        }
+        links = null;
+        offsets = null;
+        long won = 0;
+        long lost = 0;
+        for (short value : values) {
+            won += value > 0 ? 1 : 0;
+            lost += value < 0 ? 1 : 0;
+        }
+        System.out.println("Tablebase: " + won + " won, " + lost + " lost, " + (count - won - lost) + " drawn, longest forced line "
+                + (plies - 1) + " plies, " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Writes the solved positions in the format read by {@link Tablebase}.
+     *
+     * @param file the file to write
+     * @throws IOException if the file can not be written
+     */
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeInt(Tablebase.VERSION);
+            out.writeInt(size);
+            out.writeInt(maxStones);
+            out.writeLong(keys.length);
+            for (long key : keys) {
+                out.writeLong(key);
+            }
+            for (short value : values) {
+                out.writeShort(value);
+            }
+        }
+    }
+
+    /**
+     * Runs the specified pass over a range of items. Called by {@link PassTask}.
+     *
+     * @param pass the pass to run
+     * @param from the first item of the range
+     * @param to   the item after the last one of the range
+     */
+    void run(Pass pass, int from, int to) {
+        switch (pass) {
+            case ENUMERATE:
+                enumerate(from, to);
+                break;
+            case COUNT:
+                count(from, to);
+                break;
+            case LINK:
+                link(from, to);
+                break;
+            case SWEEP:
+                sweep(from, to);
+                break;
+        }
+    }
+
+    /**
+     * Adds all placements of at most the specified number of stones on the fields from the specified index on.
+     *
+     * @param field  index of the next field
+     * @param stones number of stones left
+     * @param fields occupied fields so far
+     * @param tokens tokens so far
+     */
+    private void addPlacements(int field, int stones, int fields, long tokens) {
+        if (field == fieldCount) {
+            if (placementCount == placementFields.length) {
+                placementFields = Arrays.copyOf(placementFields, 2 * placementCount);
+                placementTokens = Arrays.copyOf(placementTokens, 2 * placementCount);
+            }
+            placementFields[placementCount] = fields;
+            placementTokens[placementCount++] = tokens;
+            return;
+        }
+        addPlacements(field + 1, stones, fields, tokens);
+        if (stones >= 1) {
+            addPlacements(field + 1, stones - 1, fields | 1 << field, tokens);
+        }
+        if (stones >= 2) {
+            addPlacements(field + 1, stones - 2, fields | 1 << field, tokens | 1L << 2 * field);
+            addPlacements(field + 1, stones - 2, fields | 1 << field, tokens | 3L << 2 * field);
+        }
+    }
+
+    /**
+     * Enumerates the positions of the specified placements of the red stones combined with all placements of the blue
+     * stones on the remaining fields and both players to move.
+     *
+     * @param from the first red placement
+     * @param to   the red placement after the last one
+     */
+    private void enumerate(int from, int to) {
+        long[] found = new long[1024];
+        int count = 0;
+        MoveList moves = new MoveList();
+        for (int red = from; red < to; ++red) {
+            for (int blue = 0; blue < placementCount; ++blue) {
+                if ((placementFields[red] & placementFields[blue]) != 0) {
+                    continue;
+                }
+                long key = key(red, blue);
+                for (int turn = 0; turn < 2; ++turn) {
+                    PackedBoard board = new PackedBoard(size, key | turn);
+                    board.generateMoves(board.getTurn(), moves);
+                    if (moves.isEmpty()) {
+                        continue;
+                    }
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, 2 * count);
+                    }
+                    found[count++] = key | turn;
+                }
+            }
+        }
+        synchronized (enumerated) {
+            enumerated.add(Arrays.copyOf(found, count));
+        }
+    }
+
+    /**
+     * Returns the position key of the specified placements of both players with red to move.
+     *
+     * @param red  the placement of the red stones
+     * @param blue the placement of the blue stones
+     * @return the position key
+     */
+    private long key(int red, int blue) {
+        int fields = placementFields[red] | placementFields[blue];
+        long key = (long) fields << 1;
+        int shift = 1 + fieldCount;
+        for (int rest = fields; rest != 0; rest &= rest - 1) {
+            int field = Integer.numberOfTrailingZeros(rest);
+            boolean isBlue = (placementFields[blue] >>> field & 1) != 0;
+            int token = (int) ((isBlue ? placementTokens[blue] : placementTokens[red]) >>> 2 * field) & 3;
+            long kind = (isBlue ? 1 : 0) | (token & 1) << 1 | (token & 2) << 1;
+            key |= kind << shift;
+            shift += PackedBoard.KEY_KIND_BITS;
+        }
+        return key;
+    }
+
+    /**
+     * Counts the following positions of the specified positions into {@link #offsets} and marks positions with a move
+     * that ends the game as won in one ply.
+     *
+     * @param from the first position
+     * @param to   the position after the last one
+     */
+    private void count(int from, int to) {
+        MoveList moves = new MoveList();
+        for (int i = from; i < to; ++i) {
+            PackedBoard board = new PackedBoard(size, keys[i]);
+            board.generateMoves(board.getTurn(), moves);
+            int degree = 0;
+            for (int m = 0; m < moves.size(); ++m) {
+                board.makeMove(moves.move(m));
+                boolean finished = board.getStatus() != OK;
+                board.unmakeMove();
+                if (finished) {
+                    values[i] = 1;
+                    degree = 0;
+                    break;
+                }
+                ++degree;
+            }
+            offsets[i + 1] = degree;
+        }
+    }
+
+    /**
+     * Stores the indices of the following positions of the specified positions in {@link #links}.
+     *
+     * @param from the first position
+     * @param to   the position after the last one
+     */
+    private void link(int from, int to) {
+        MoveList moves = new MoveList();
+        for (int i = from; i < to; ++i) {
+            if (values[i] != 0) {
+                continue;
+            }
+            PackedBoard board = new PackedBoard(size, keys[i]);
+            board.generateMoves(board.getTurn(), moves);
+            int next = offsets[i];
+            for (int m = 0; m < moves.size(); ++m) {
+                board.makeMove(moves.move(m));
+                int index = Arrays.binarySearch(keys, board.positionKey());
+                board.unmakeMove();
+                if (index < 0) {
+                    throw new IllegalStateException("Tablebase: a move leads to a position which has not been enumerated.");
+                }
+                links[next++] = index;
+            }
+        }
+    }
+
+    /**
+     * Solves those of the specified positions which are won or lost in {@link #plies} plies.
+     *
+     * @param from the first position
+     * @param to   the position after the last one
+     */
+    private void sweep(int from, int to) {
+        boolean winning = plies % 2 == 1;
+        long count = 0;
+        for (int i = from; i < to; ++i) {
+            if (values[i] != 0) {
+                continue;
+            }
+            boolean solves = !winning;
+            for (int l = offsets[i]; l < offsets[i + 1]; ++l) {
+                int value = values[links[l]];
+                if (winning && value < 0 && -value < plies) {
+                    /* a following position is lost for the opponent */
+                    solves = true;
+                    break;
+                }
+                if (!winning && (value <= 0 || value >= plies)) {
+                    /* a following position is not won by the opponent yet */
+                    solves = false;
+                    break;
+                }
+            }
+            if (solves) {
+                values[i] = (short) (winning ? plies : -plies);
+                ++count;
+            }
+        }
+        solved.addAndGet(count);
+    }
+}
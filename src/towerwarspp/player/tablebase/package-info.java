@@ -0,0 +1,5 @@
+/**
+ * The tablebase package which solves all positions with few stones on small boards by retrograde analysis
+ * and lets players look them up in a memory-mapped file.
+ */
+package towerwarspp.player.tablebase;
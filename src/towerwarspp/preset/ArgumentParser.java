@@ -1,9 +1,11 @@
 package towerwarspp.preset;
 
+import towerwarspp.board.EngineType;
 import towerwarspp.main.OutputType;
 import towerwarspp.util.debug.DebugLevel;
 import towerwarspp.util.debug.DebugSource;
 import towerwarspp.player.PlayStrategy;
+import towerwarspp.player.mcts.ParallelizationMode;
 import towerwarspp.player.mcts.TreeSelectionStrategy;
 
 import java.util.HashMap;
@@ -320,6 +322,38 @@ public class ArgumentParser {
         }
     }
 
+    /**
+     * Parse the {@link EngineType} entered by the user.
+     * @param engine user input
+     * @return board engine to use for the Monte Carlo tree search
+     * @throws ArgumentParserException if engine is unknown
+     */
+    private EngineType parseEngineType(String engine) throws ArgumentParserException {
+        switch (engine) {
+            case "entity": return EngineType.ENTITY;
+            case "e": return EngineType.ENTITY;
+            case "packed": return EngineType.PACKED;
+            case "p": return EngineType.PACKED;
+            default: throw new ArgumentParserException("Unknown board engine: " + engine);
+        }
+    }
+
+    /**
+     * Parse the {@link ParallelizationMode} entered by the user.
+     * @param mode user input
+     * @return parallelization mode to use for the Monte Carlo tree search
+     * @throws ArgumentParserException if mode is unknown
+     */
+    private ParallelizationMode parseParallelizationMode(String mode) throws ArgumentParserException {
+        switch (mode) {
+            case "tree": return ParallelizationMode.TREE;
+            case "t": return ParallelizationMode.TREE;
+            case "root": return ParallelizationMode.ROOT;
+            case "r": return ParallelizationMode.ROOT;
+            default: throw new ArgumentParserException("Unknown parallelization mode: " + mode);
+        }
+    }
+
     // ------------------------------------------------------------
 
     public boolean isGraphic() throws ArgumentParserException {
@@ -370,6 +404,10 @@ public class ArgumentParser {
         return getFlag("fair");
     }
 
+    public boolean isTranspositions() throws ArgumentParserException {
+        return getFlag("transpositions");
+    }
+
     public String getHost() throws ArgumentParserException {
         return (String) getSetting("host");
     }
@@ -437,6 +475,22 @@ public class ArgumentParser {
         return parseTreeSelectionStrategy((String) getSetting("tstrategy"));
     }
 
+    public EngineType getEngineType() throws ArgumentParserException {
+        return parseEngineType((String) getSetting("engine"));
+    }
+
+    public ParallelizationMode getParallelizationMode() throws ArgumentParserException {
+        return parseParallelizationMode((String) getSetting("pmode"));
+    }
+
+    public String getTablebase() throws ArgumentParserException {
+        return (String) getSetting("tablebase");
+    }
+
+    public String getBook() throws ArgumentParserException {
+        return (String) getSetting("book");
+    }
+
     public int getParrallelFactor() throws ArgumentParserException {
         try {
             return Integer.parseInt((String) getSetting("parallel"));
@@ -445,6 +499,41 @@ public class ArgumentParser {
         }
     }
 
+    public int getNodeCap() throws ArgumentParserException {
+        try {
+            int nodeCap = Integer.parseInt((String) getSetting("nodes"));
+            if (nodeCap <= 0)
+                throw new ArgumentParserException("nodes argument must be positive.");
+            return nodeCap;
+        } catch (NumberFormatException e) {
+            throw new ArgumentParserException("nodes argument has wrong format.");
+        }
+    }
+
+    public double getRaveEquivalence() throws ArgumentParserException {
+        try {
+            return Double.parseDouble((String) getSetting("rave"));
+        } catch (NumberFormatException e) {
+            throw new ArgumentParserException("rave argument has wrong format.");
+        }
+    }
+
+    public double getWidening() throws ArgumentParserException {
+        try {
+            return Double.parseDouble((String) getSetting("widening"));
+        } catch (NumberFormatException e) {
+            throw new ArgumentParserException("widening argument has wrong format.");
+        }
+    }
+
+    public int getPlayoutDepth() throws ArgumentParserException {
+        try {
+            return Integer.parseInt((String) getSetting("pdepth"));
+        } catch (NumberFormatException e) {
+            throw new ArgumentParserException("pdepth argument has wrong format.");
+        }
+    }
+
     public double getBias() throws ArgumentParserException {
         try {
             return Double.parseDouble((String) getSetting("bias"));
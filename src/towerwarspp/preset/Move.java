@@ -5,22 +5,92 @@ import java.io.Serializable;
 public class Move implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    private Position start;
-    private Position end;
+    /** Number of bits of the end index in the packed encoding of a move. */
+    private static final int END_BITS = 10;
+
+    /** Mask of the end index in the packed encoding of a move. */
+    private static final int END_MASK = (1 << END_BITS) - 1;
+
+    /**
+     * Canonical instances of all moves indexed by start index * {@link Position#INDICES} + end index.
+     * An entry is created on first request. Since all fields of a move are final, a move which is
+     * created twice by concurrent requests is still complete and equal to the other instance.
+     */
+    private static final Move[] CACHE = new Move[Position.INDICES * Position.INDICES];
+
+    private final Position start;
+    private final Position end;
 
     // ------------------------------------------------------------
 
     public Move(Position start, Position end) {
-        setStart(start);
-        setEnd(end);
+        this.start = checkStart(start);
+        this.end = checkEnd(end);
     }
 
     public Move(Move move) {
         if (move == null)
             throw new IllegalArgumentException("move == null");
 
-        setStart(move.getStart());
-        setEnd(move.getEnd());
+        this.start = move.getStart();
+        this.end = move.getEnd();
+    }
+
+    // ------------------------------------------------------------
+
+    /**
+     * Returns the canonical instance of the move from start to end instead of creating a new one.
+     */
+    public static Move of(Position start, Position end) {
+        return of(checkStart(start).index(), checkEnd(end).index());
+    }
+
+    /**
+     * Returns the canonical instance of the move from the position with index start to the position with index end.
+     */
+    public static Move of(int start, int end) {
+        int i = start * Position.INDICES + end;
+        Move move = CACHE[i];
+        if (move == null) {
+            move = new Move(Position.ofIndex(start), Position.ofIndex(end));
+            CACHE[i] = move;
+        }
+        return move;
+    }
+
+    /**
+     * Returns the canonical instance of the move with the given packed encoding, see {@link #pack(int, int)}.
+     */
+    public static Move unpack(int packed) {
+        return of(packedStart(packed), packedEnd(packed));
+    }
+
+    /**
+     * Encodes the move from the position with index start to the position with index end as one int.
+     */
+    public static int pack(int start, int end) {
+        return (start << END_BITS) | end;
+    }
+
+    /**
+     * Returns the index of the start position of a packed move.
+     */
+    public static int packedStart(int packed) {
+        return packed >>> END_BITS;
+    }
+
+    /**
+     * Returns the index of the end position of a packed move.
+     */
+    public static int packedEnd(int packed) {
+        return packed & END_MASK;
+    }
+
+    /**
+     * Returns the packed encoding of this move, see {@link #pack(int, int)}.
+     */
+    public int pack() {
+        return pack(start.index(), end.index());
     }
 
     // ------------------------------------------------------------
@@ -29,22 +99,22 @@ public class Move implements Serializable {
         return start;
     }
 
-    private void setStart(Position start) {
+    private static Position checkStart(Position start) {
         if (start == null)
             throw new IllegalArgumentException("start == null");
 
-        this.start = start;
+        return start;
     }
 
     public Position getEnd() {
         return end;
     }
 
-    private void setEnd(Position end) {
+    private static Position checkEnd(Position end) {
         if (end == null)
             throw new IllegalArgumentException("end == null");
 
-        this.end = end;
+        return end;
     }
 
     // ------------------------------------------------------------
@@ -60,7 +130,7 @@ public class Move implements Serializable {
 
         try {
             String[] params = str.split("->");
-            return new Move(Position.parsePosition(params[0]),
+            return Move.of(Position.parsePosition(params[0]),
                                    Position.parsePosition(params[1]));
         } catch (IndexOutOfBoundsException | PositionFormatException e) {
             throw new MoveFormatException("Error parsing: \"" + str + "\"", e);
@@ -74,7 +144,7 @@ public class Move implements Serializable {
 
     @Override
     public int hashCode() {
-        return getStart().hashCode() ^ getEnd().hashCode();
+        return getStart().index() * Position.INDICES + getEnd().index();
     }
 
     @Override
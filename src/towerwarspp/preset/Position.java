@@ -5,21 +5,60 @@ import java.io.Serializable;
 public class Position implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    private int letter, number;
+    /** Number of distinct positions, every position has an index in [0, INDICES). */
+    public static final int INDICES = 26 * 26;
+
+    /** Canonical instances of all positions indexed by {@link #index()}. */
+    private static final Position[] CACHE = new Position[INDICES];
+
+    static {
+        for (int letter = 1; letter <= 26; letter++)
+            for (int number = 1; number <= 26; number++)
+                CACHE[index(letter, number)] = new Position(letter, number);
+    }
+
+    private final int letter, number;
 
     // ------------------------------------------------------------
 
     public Position(int letter, int number) {
-        setLetter(letter);
-        setNumber(number);
+        this.letter = checkLetter(letter);
+        this.number = checkNumber(number);
     }
 
     public Position(Position position) {
         if (position == null)
             throw new IllegalArgumentException("position == null");
 
-        setLetter(position.getLetter());
-        setNumber(position.getNumber());
+        this.letter = position.getLetter();
+        this.number = position.getNumber();
+    }
+
+    // ------------------------------------------------------------
+
+    /**
+     * Returns the canonical instance of the position (letter, number) instead of creating a new one.
+     */
+    public static Position of(int letter, int number) {
+        return CACHE[index(checkLetter(letter), checkNumber(number))];
+    }
+
+    /**
+     * Returns the canonical instance of the position with the given {@link #index()}.
+     */
+    public static Position ofIndex(int index) {
+        return CACHE[index];
+    }
+
+    /**
+     * Returns the index (letter - 1) * 26 + (number - 1) of this position.
+     */
+    public int index() {
+        return index(letter, number);
+    }
+
+    private static int index(int letter, int number) {
+        return (letter - 1) * 26 + number - 1;
     }
 
     // ------------------------------------------------------------
@@ -28,22 +67,22 @@ public class Position implements Serializable {
         return letter;
     }
 
-    private void setLetter(int letter) {
+    private static int checkLetter(int letter) {
         if (letter <= 0 || letter > 26)
             throw new IllegalArgumentException("letter " + letter + " out of range!");
 
-        this.letter = letter;
+        return letter;
     }
 
     public int getNumber() {
         return number;
     }
 
-    private void setNumber(int number) {
+    private static int checkNumber(int number) {
         if (number <= 0 || number > 26)
             throw new IllegalArgumentException("number " + number + " out of range!");
 
-        this.number = number;
+        return number;
     }
 
     // ------------------------------------------------------------
@@ -55,7 +94,7 @@ public class Position implements Serializable {
             throw new IllegalArgumentException("str == null");
 
         try {
-            return new Position(Character.toUpperCase(str.charAt(0)) - 'A' + 1,
+            return Position.of(Character.toUpperCase(str.charAt(0)) - 'A' + 1,
                                        Integer.parseInt(str.substring(1)));
         } catch (IndexOutOfBoundsException | NumberFormatException e) {
             throw new PositionFormatException("Error parsing: \"" + str + "\"", e);
@@ -69,7 +108,7 @@ public class Position implements Serializable {
 
     @Override
     public int hashCode() {
-        return Integer.hashCode(getLetter()) ^ Integer.hashCode(getNumber());
+        return index();
     }
 
     @Override
@@ -133,6 +133,19 @@ public class Debug {
         return debugging;
     }
 
+    /**
+     * Returns whether a message with the specified {@link DebugLevel} and {@link DebugSource} would be logged by
+     * {@link #send(DebugLevel, DebugSource, String)}. Can be used to switch on expensive consistency checks
+     * only in debug mode.
+     *
+     * @param level  of the debug message
+     * @param source of the debug message
+     * @return true if such a message would be logged
+     */
+    public boolean isLogging(DebugLevel level, DebugSource source) {
+        return debugging && level.compareTo(debugLevel) <= 0 && (debugSource == NO_SOURCE_DEBUG || debugSource == source);
+    }
+
     /**
      * Can be used to send debug messages with the specified {@link DebugLevel} and {@link DebugSource} to the {@link #debugMessages} Buffer
      * to await collection by {@link #getDebugOutput()}.